@@ -88,6 +88,7 @@ dependencies {
 
     implementation ("de.hdodenhof:circleimageview:3.1.0")
     implementation("com.squareup.picasso:picasso:2.8")
+    implementation("com.squareup.okhttp3:okhttp:3.12.13")
 
 
     testImplementation("junit:junit:4.13.2")
@@ -21,8 +21,28 @@ package com.wirelessalien.android.moviedb
 
 import android.app.Application
 import com.google.android.material.color.DynamicColors
+import com.wirelessalien.android.moviedb.helper.EpisodeReminderDatabaseHelper
+import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
+import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
+import com.wirelessalien.android.moviedb.helper.PeopleDatabaseHelper
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 
 class App : Application() {
+    /**
+     * The TMDB client shared by all screens and workers.
+     */
+    val tmdbClient: TmdbClient by lazy { TmdbClient(this) }
+
+    /**
+     * The database helpers, each database is opened once for the whole process.
+     */
+    val movieDatabaseHelper: MovieDatabaseHelper by lazy { MovieDatabaseHelper(this) }
+    val peopleDatabaseHelper: PeopleDatabaseHelper by lazy { PeopleDatabaseHelper(this) }
+    val listDatabaseHelper: ListDatabaseHelper by lazy { ListDatabaseHelper(this) }
+    val episodeReminderDatabaseHelper: EpisodeReminderDatabaseHelper by lazy {
+        EpisodeReminderDatabaseHelper(this)
+    }
+
     override fun onCreate() {
         super.onCreate()
         DynamicColors.applyToActivitiesIfAvailable(this)
@@ -38,6 +38,7 @@ import android.view.animation.AnimationUtils
 import android.widget.RelativeLayout
 import android.widget.TextView
 import androidx.core.content.ContextCompat
+import androidx.lifecycle.lifecycleScope
 import androidx.palette.graphics.Palette
 import androidx.preference.PreferenceManager
 import androidx.recyclerview.widget.LinearLayoutManager
@@ -47,30 +48,21 @@ import com.squareup.picasso.Picasso.LoadedFrom
 import com.squareup.picasso.Target
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
+import com.wirelessalien.android.moviedb.data.CombinedCredits
 import com.wirelessalien.android.moviedb.databinding.ActivityCastBinding
-import com.wirelessalien.android.moviedb.helper.ConfigHelper
 import com.wirelessalien.android.moviedb.helper.PeopleDatabaseHelper
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.asCoroutineDispatcher
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
+import com.wirelessalien.android.moviedb.tmdb.TmdbDecoder
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
-import okhttp3.ConnectionPool
-import okhttp3.OkHttpClient
-import okhttp3.Request
 import org.json.JSONArray
 import org.json.JSONException
 import org.json.JSONObject
-import java.io.BufferedReader
 import java.io.IOException
-import java.io.InputStreamReader
-import java.net.URL
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.concurrent.TimeUnit
 import java.util.Locale
 import kotlin.math.abs
-import java.util.concurrent.Executors
 
 /**
  * This class displays information about person objects.
@@ -86,7 +78,7 @@ class CastActivity : BaseActivity() {
     private var actorId = 0
     private lateinit var target: Target
     private var mShowGenreList: HashMap<String, String?>? = null
-    private var API_KEY: String? = null
+    private lateinit var tmdbClient: TmdbClient
 
     /*
     * This class provides an overview for actors.
@@ -111,7 +103,7 @@ class CastActivity : BaseActivity() {
         supportActionBar?.title = getString(R.string.title_people)
         setBackButtons()
         val preferences = PreferenceManager.getDefaultSharedPreferences(this)
-        API_KEY = ConfigHelper.getConfigValue(applicationContext, "api_key")
+        tmdbClient = TmdbClient.getInstance(this)
         context = this
 
         // Create a variable with the application context that can be used
@@ -314,7 +306,7 @@ class CastActivity : BaseActivity() {
     override fun onCreateOptionsMenu(menu: Menu): Boolean {
         menuInflater.inflate(R.menu.save_menu, menu)
         val saveItem = menu.findItem(R.id.action_save)
-        val dbHelper = PeopleDatabaseHelper(context)
+        val dbHelper = PeopleDatabaseHelper.getInstance(context)
         if (dbHelper.personExists(actorId)) {
             saveItem.setIcon(R.drawable.ic_star)
         } else {
@@ -326,7 +318,7 @@ class CastActivity : BaseActivity() {
     override fun onOptionsItemSelected(item: MenuItem): Boolean {
         val id = item.itemId
         if (id == R.id.action_save) {
-            val dbHelper = PeopleDatabaseHelper(context)
+            val dbHelper = PeopleDatabaseHelper.getInstance(context)
             val actorId = actorObject.optInt("id")
             if (dbHelper.personExists(actorId)) {
                 dbHelper.deleteById(actorId)
@@ -443,61 +435,37 @@ class CastActivity : BaseActivity() {
      */
 
     private fun fetchActorMovies() {
-        CoroutineScope(Dispatchers.Main).launch {
-            val response = withContext(Dispatchers.IO) { doInBackground() }
+        lifecycleScope.launch {
+            val response = doInBackground()
             onPostExecute(response)
         }
     }
 
-    private fun doInBackground(): String? {
-        var line: String?
-        val stringBuilder = StringBuilder()
-
+    private suspend fun doInBackground(): CombinedCredits? {
         // Load the webpage with the person's shows.
-        try {
-            val url = URL(
-                "https://api.themoviedb.org/3/person/" +
-                        actorId + "/combined_credits?api_key=" + API_KEY + getLanguageParameter(
-                    applicationContext
-                )
+        return try {
+            tmdbClient.getDecoded(
+                "3/person/$actorId/combined_credits",
+                withLanguage = true,
+                decoder = TmdbDecoder::readCombinedCredits
             )
-            val urlConnection = url.openConnection()
-            try {
-                val bufferedReader = BufferedReader(
-                    InputStreamReader(
-                        urlConnection.getInputStream()
-                    )
-                )
-
-                // Create one long string of the webpage.
-                while (bufferedReader.readLine().also { line = it } != null) {
-                    stringBuilder.append(line).append("\n")
-                }
-
-                // Close connection and return the data from the webpage.
-                bufferedReader.close()
-                return stringBuilder.toString()
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-            }
         } catch (ioe: IOException) {
             ioe.printStackTrace()
-        }
 
-        // Loading the dataset failed, return null.
-        return null
+            // Loading the dataset failed, return null.
+            null
+        }
     }
 
-    private fun onPostExecute(response: String?) {
-        if (!response.isNullOrEmpty()) {
-            // Break the JSON dataset down and add the JSONObjects to the array.
+    private fun onPostExecute(credits: CombinedCredits?) {
+        if (credits != null) {
+            // Break the credits down and add the JSONObjects to the array.
             try {
-                val reader = JSONObject(response)
-                var castMovieArray = JSONArray()
-                var crewMovieArray = JSONArray()
+                val castMovieArray = JSONArray()
+                val crewMovieArray = JSONArray()
 
                 // Add the cast roles to the movieView
-                if (reader.getJSONArray("cast").length() <= 0) {
+                if (credits.cast.isEmpty()) {
                     // This person has no roles as cast, do not show the
                     // cast related views.
 //                    val textView = mActivity.findViewById<TextView>(R.id.castMovieTitle)
@@ -509,9 +477,9 @@ class CastActivity : BaseActivity() {
                     actorCastRoles.visibility = View.GONE
                     binding.castMovieRecyclerView.visibility = View.GONE
                 } else {
-                    castMovieArray = reader.getJSONArray("cast")
-                    for (i in 0 until castMovieArray.length()) {
-                        val actorMovies = castMovieArray.getJSONObject(i)
+                    for (credit in credits.cast) {
+                        val actorMovies = credit.toJSONObject()
+                        castMovieArray.put(actorMovies)
                         castMovieArrayList.add(actorMovies)
                     }
 
@@ -524,7 +492,7 @@ class CastActivity : BaseActivity() {
                 }
 
                 // Add the crew roles to the crewMovieView
-                if (reader.getJSONArray("crew").length() <= 0) {
+                if (credits.crew.isEmpty()) {
                     // This person has no roles as crew, do not show the
                     // crew related views.
 //                    val textView = mActivity.findViewById<TextView>(R.id.crewMovieTitle)
@@ -536,9 +504,9 @@ class CastActivity : BaseActivity() {
                     actorCrewRoles.visibility = View.GONE
                     binding.crewMovieRecyclerView.visibility = View.GONE
                 } else {
-                    crewMovieArray = reader.getJSONArray("crew")
-                    for (i in 0 until crewMovieArray.length()) {
-                        val crewMovies = crewMovieArray.getJSONObject(i)
+                    for (credit in credits.crew) {
+                        val crewMovies = credit.toJSONObject()
+                        crewMovieArray.put(crewMovies)
 
                         // TODO: Build a lightweight duplicate checker
                         // (any heavy ones will cause the application to crash).
@@ -586,52 +554,25 @@ class CastActivity : BaseActivity() {
     /**
      * Coroutine that retrieves the details of the person from the API.
      */
-    // Define a single instance of OkHttpClient
-    private val client: OkHttpClient by lazy {
-        OkHttpClient.Builder()
-            .connectionPool(ConnectionPool(5, 5, TimeUnit.MINUTES))
-            .build()
-    }
-
-    // Use a fixed thread pool for coroutines
-    private val coroutineDispatcher = Executors.newFixedThreadPool(4).asCoroutineDispatcher()
-
     private fun fetchActorDetails() {
-        CoroutineScope(coroutineDispatcher).launch {
-            val baseUrl = "https://api.themoviedb.org/3/person/$actorId?api_key=$API_KEY"
-            val urlWithLanguage = baseUrl + getLanguageParameter(applicationContext)
+        lifecycleScope.launch {
             try {
                 // First request with language parameter
-                var actorData = fetchActorDetails(client, urlWithLanguage)
+                var actorData = tmdbClient.getJson("3/person/$actorId", withLanguage = true)
 
                 // Check if biography is empty
                 if (actorData.getString("biography").isEmpty()) {
                     // Second request without language parameter
-                    actorData = fetchActorDetails(client, baseUrl)
-                }
-                withContext(Dispatchers.Main) {
-                    actorObject = actorData
-                    setActorData(actorObject)
+                    actorData = tmdbClient.getJson("3/person/$actorId")
                 }
+                actorObject = actorData
+                setActorData(actorObject)
             } catch (e: Exception) {
                 e.printStackTrace()
             }
         }
     }
 
-    @Throws(IOException::class, JSONException::class)
-    private fun fetchActorDetails(client: OkHttpClient, url: String): JSONObject {
-        val request = Request.Builder()
-            .url(url)
-            .get()
-            .build()
-        client.newCall(request).execute().use { response ->
-            if (!response.isSuccessful) throw IOException("Unexpected code $response")
-            val responseBody = response.body()!!.string()
-            return JSONObject(responseBody)
-        }
-    }
-
     private fun onPostExecute(actorData: JSONObject?) {
         actorData?.let {
             if (actorData.isNull("deathday")) {
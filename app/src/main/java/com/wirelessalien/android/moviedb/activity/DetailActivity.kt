@@ -87,27 +87,22 @@ import com.wirelessalien.android.moviedb.databinding.ActivityDetailBinding
 import com.wirelessalien.android.moviedb.fragment.LastEpisodeFragment.Companion.newInstance
 import com.wirelessalien.android.moviedb.fragment.ListBottomSheetDialogFragment
 import com.wirelessalien.android.moviedb.fragment.ListFragment.Companion.databaseUpdate
-import com.wirelessalien.android.moviedb.helper.ConfigHelper.getConfigValue
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
+import com.wirelessalien.android.moviedb.tmdb.TmdbDecoder
 import com.wirelessalien.android.moviedb.tmdb.account.AddRating
 import com.wirelessalien.android.moviedb.tmdb.account.AddToFavourites
 import com.wirelessalien.android.moviedb.tmdb.account.AddToWatchlist
 import com.wirelessalien.android.moviedb.tmdb.account.DeleteRating
 import com.wirelessalien.android.moviedb.tmdb.account.GetAccountState
 import com.wirelessalien.android.moviedb.view.NotifyingScrollView
+import com.wirelessalien.android.moviedb.work.ReleaseReminderWorker
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
 import org.json.JSONArray
 import org.json.JSONException
 import org.json.JSONObject
-import java.io.BufferedReader
-import java.io.IOException
-import java.io.InputStreamReader
-import java.net.HttpURLConnection
-import java.net.URL
 import java.text.ParseException
 import java.text.SimpleDateFormat
 import java.util.Calendar
@@ -120,8 +115,7 @@ import kotlin.math.abs
  * It also manages personal show data.
  */
 class DetailActivity : BaseActivity() {
-    private var API_KEY: String? = null
-    private var api_read_access_token: String? = null
+    private lateinit var tmdbClient: TmdbClient
     private lateinit var castAdapter: CastBaseAdapter
     private lateinit var crewAdapter: CastBaseAdapter
     private lateinit var castArrayList: ArrayList<JSONObject>
@@ -132,8 +126,12 @@ class DetailActivity : BaseActivity() {
     private lateinit var similarMovieArrayList: ArrayList<JSONObject>
     private var sessionId: String? = null
     private var accountId: String? = null
-    private lateinit var database: SQLiteDatabase
     private lateinit var databaseHelper: MovieDatabaseHelper
+
+    // Always taken from the helper, because an imported database replaces the open one.
+    private val database: SQLiteDatabase
+        get() = databaseHelper.writableDatabase
+
     private var movieId = 0
     private var seasons: JSONArray? = null
     private lateinit var target: Target
@@ -195,8 +193,7 @@ class DetailActivity : BaseActivity() {
             layoutInflater
         )
         WindowCompat.setDecorFitsSystemWindows(window, false)
-        API_KEY = getConfigValue(applicationContext, "api_key")
-        api_read_access_token = getConfigValue(applicationContext, "api_read_access_token")
+        tmdbClient = TmdbClient.getInstance(this)
         setContentView(binding.root)
         setNavigationDrawer()
         supportActionBar!!.title = ""
@@ -305,9 +302,7 @@ class DetailActivity : BaseActivity() {
             e.printStackTrace()
         }
         checkNetwork()
-        databaseHelper = MovieDatabaseHelper(applicationContext)
-        database = databaseHelper.writableDatabase
-        databaseHelper.onCreate(database)
+        databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
 
         // Check if the show is already in the database.
         val cursor = database.rawQuery(
@@ -720,6 +715,7 @@ class DetailActivity : BaseActivity() {
                 added = false
                 binding.fabSave.setImageResource(R.drawable.ic_star_border)
                 databaseUpdate()
+                ReleaseReminderWorker.schedule(this)
             } else {
                 val showValues = ContentValues()
 
@@ -787,50 +783,23 @@ class DetailActivity : BaseActivity() {
     }
 
     override fun doNetworkWork() {
-        // Get the cast and crew for the CastListAdapter and get the movies for the MovieListAdapter.
-        if (!mCastAndCrewLoaded) {
-            lifecycleScope.launch {
-                fetchCastList()
-            }
-        }
-        if (!mSimilarMoviesLoaded) {
-            startSimilarMovieList()
-        }
-
-        // Load movie details.
-        if (!mMovieDetailsLoaded) {
+        // The details, cast and crew, similar movies and videos all come with one request.
+        if (!mMovieDetailsLoaded || !mCastAndCrewLoaded || !mSimilarMoviesLoaded || !mVideosLoaded) {
             fetchMovieDetailsCoroutine()
         }
-        if (!mVideosLoaded) {
-            lifecycleScope.launch {
-                fetchVideos()
-            }
-        }
     }
 
     private fun addSeasonsAndEpisodesToDatabase() {
         if (!isMovie && seasons != null) {
             try {
+                val episodes = HashMap<Int, IntRange>()
                 for (i in 1..seasons!!.length()) {
                     val season = seasons!!.getJSONObject(i - 1)
-                    val seasonNumber = season.getInt("season_number")
-                    val episodeCount = season.getInt("episode_count")
-                    for (j in 1..episodeCount) {
-                        val values = ContentValues()
-                        values.put(MovieDatabaseHelper.COLUMN_MOVIES_ID, movieId)
-                        values.put(MovieDatabaseHelper.COLUMN_SEASON_NUMBER, seasonNumber)
-                        values.put(MovieDatabaseHelper.COLUMN_EPISODE_NUMBER, j)
-                        val newRowId =
-                            database.insert(MovieDatabaseHelper.TABLE_EPISODES, null, values)
-                        if (newRowId == -1L) {
-                            Toast.makeText(
-                                this,
-                                R.string.error_adding_episode_to_database,
-                                Toast.LENGTH_SHORT
-                            ).show()
-                        }
-                    }
+                    episodes[season.getInt("season_number")] = 1..season.getInt("episode_count")
                 }
+                // All seasons are written in one transaction, episodes that are
+                // already marked as watched are skipped by the database.
+                databaseHelper.addEpisodeNumbers(movieId, episodes)
             } catch (e: JSONException) {
                 e.printStackTrace()
             }
@@ -879,7 +848,11 @@ class DetailActivity : BaseActivity() {
             )
 
             // Insert the show into the database.
-            database.insert(MovieDatabaseHelper.TABLE_MOVIES, null, showValues)
+            val showId = database.insert(MovieDatabaseHelper.TABLE_MOVIES, null, showValues)
+            if (showId != -1L) {
+                databaseHelper.setShowGenres(database, showId, jMovieObject.getString("genre_ids"))
+                ReleaseReminderWorker.schedule(this)
+            }
 
             // Inform the user of the addition to the database
             // and change the boolean in order to change the MenuItem's behaviour.
@@ -956,9 +929,7 @@ class DetailActivity : BaseActivity() {
 
             // The rating also uses a class variable for the same reason
             // as the image.
-            databaseHelper = MovieDatabaseHelper(applicationContext)
-            database = databaseHelper.writableDatabase
-            databaseHelper.onCreate(database)
+            databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
 
             // Retrieve and present saved data of the show.
             val cursor = database.rawQuery(
@@ -1354,34 +1325,8 @@ class DetailActivity : BaseActivity() {
         }
     }
 
-    private suspend fun fetchVideos() {
-        withContext(Dispatchers.IO) {
-            try {
-                val type = if (isMovie) SectionsPagerAdapter.MOVIE else SectionsPagerAdapter.TV
-                val url = URL("https://api.themoviedb.org/3/$type/$movieId/videos?api_key=$API_KEY")
-                val connection = url.openConnection() as HttpURLConnection
-                connection.requestMethod = "GET"
-                connection.connect()
-                val reader = BufferedReader(InputStreamReader(connection.inputStream))
-                val stringBuilder = StringBuilder()
-                var line: String?
-                while (reader.readLine().also { line = it } != null) {
-                    stringBuilder.append(line)
-                }
-                reader.close()
-                val response = stringBuilder.toString()
-                withContext(Dispatchers.Main) {
-                    onVideoPostExecute(response)
-                }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            }
-        }
-    }
-
-    private fun onVideoPostExecute(response: String) {
+    private fun onVideoPostExecute(jsonObject: JSONObject) {
         try {
-            val jsonObject = JSONObject(response)
             val results = jsonObject.getJSONArray("results")
             for (i in 0 until results.length()) {
                 val video = results.getJSONObject(i)
@@ -1468,7 +1413,6 @@ class DetailActivity : BaseActivity() {
                 AdapterView.OnItemClickListener { _: AdapterView<*>?, _: View?, position: Int, _: Long ->
                     // Save the category to the database
                     val showValues = ContentValues()
-                    database = databaseHelper.writableDatabase
                     val cursor = database.rawQuery(
                         "SELECT * FROM " +
                                 MovieDatabaseHelper.TABLE_MOVIES +
@@ -1514,7 +1458,6 @@ class DetailActivity : BaseActivity() {
                         MovieDatabaseHelper.TABLE_MOVIES, showValues,
                         MovieDatabaseHelper.COLUMN_MOVIES_ID + "=" + movieId, null
                     )
-                    database.close()
                 }
 
             // Listen to changes to the EditText.
@@ -1525,13 +1468,10 @@ class DetailActivity : BaseActivity() {
                         val showValues = ContentValues()
                         val timesWatched = timesWatchedView.text.toString().toInt()
                         showValues.put(MovieDatabaseHelper.COLUMN_PERSONAL_REWATCHED, timesWatched)
-                        database = databaseHelper.writableDatabase
-                        databaseHelper.onCreate(database)
                         database.update(
                             MovieDatabaseHelper.TABLE_MOVIES, showValues,
                             MovieDatabaseHelper.COLUMN_MOVIES_ID + "=" + movieId, null
                         )
-                        database.close()
 
                         // Update the view
                         binding.movieRewatched.text =
@@ -1554,13 +1494,10 @@ class DetailActivity : BaseActivity() {
                             rating = 0.0f
                         }
                         showValues.put(MovieDatabaseHelper.COLUMN_PERSONAL_RATING, rating)
-                        database = databaseHelper.writableDatabase
-                        databaseHelper.onCreate(database)
                         database.update(
                             MovieDatabaseHelper.TABLE_MOVIES, showValues,
                             MovieDatabaseHelper.COLUMN_MOVIES_ID + "=" + movieId, null
                         )
-                        database.close()
 
                         // Update the view
                         val localizedTen = String.format(Locale.getDefault(), "%.1f", 10.0f)
@@ -1577,13 +1514,10 @@ class DetailActivity : BaseActivity() {
                         val showValues = ContentValues()
                         val review = movieReview.text.toString()
                         showValues.put(MovieDatabaseHelper.COLUMN_MOVIE_REVIEW, review)
-                        database = databaseHelper.writableDatabase
-                        databaseHelper.onCreate(database)
                         database.update(
                             MovieDatabaseHelper.TABLE_MOVIES, showValues,
                             MovieDatabaseHelper.COLUMN_MOVIES_ID + "=" + movieId, null
                         )
-                        database.close()
                     }
                 }
         } else {
@@ -1603,8 +1537,6 @@ class DetailActivity : BaseActivity() {
     }
 
     private fun updateEditShowDetails() {
-        database = databaseHelper.writableDatabase
-        databaseHelper.onCreate(database)
         val cursor = database.rawQuery(
             "SELECT * FROM " +
                     MovieDatabaseHelper.TABLE_MOVIES +
@@ -1761,8 +1693,6 @@ class DetailActivity : BaseActivity() {
             showYearMonthPickerDialog(context) { selectedYear, selectedMonth ->
                 // Save the selected year and month to the database
                 val movieValues = ContentValues()
-                database = databaseHelper.writableDatabase
-                databaseHelper.onCreate(database)
                 val month = selectedMonth?.toString()?.padStart(2, '0') ?: "00"
                 if (view.tag == "start_date") {
                     movieValues.put(MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE, "00-$month-$selectedYear")
@@ -1865,8 +1795,6 @@ class DetailActivity : BaseActivity() {
                     getString(R.string.change_finish_date_2) + formattedDate
                 finishDate = calendar.time
             }
-            database = databaseHelper.writableDatabase
-            databaseHelper.onCreate(database)
             database.update(
                 MovieDatabaseHelper.TABLE_MOVIES,
                 movieValues,
@@ -1905,54 +1833,10 @@ class DetailActivity : BaseActivity() {
         }
     }
 
-    // Load the list of actors.
-    private suspend fun fetchCastList() {
-        withContext(Dispatchers.IO) {
-            var line: String?
-            val stringBuilder = StringBuilder()
-            val movie = if (isMovie) SectionsPagerAdapter.MOVIE else SectionsPagerAdapter.TV
-
-            // Load the list with actors that played in the movie.
-            try {
-                val url = URL(
-                    "https://api.themoviedb.org/3/" + movie + "/" +
-                            movieId + "/credits?api_key=" + API_KEY +
-                            getLanguageParameter(applicationContext)
-                )
-                val urlConnection = url.openConnection()
-                try {
-                    val bufferedReader = BufferedReader(
-                        InputStreamReader(
-                            urlConnection.getInputStream()
-                        )
-                    )
-
-                    // Create one long string of the webpage.
-                    while (bufferedReader.readLine().also { line = it } != null) {
-                        stringBuilder.append(line).append("\n")
-                    }
-
-                    // Close connection and return the data from the webpage.
-                    bufferedReader.close()
-                    val response = stringBuilder.toString()
-                    withContext(Dispatchers.Main) {
-                        onCastPostExecute(response)
-                    }
-                } catch (ioe: IOException) {
-                    ioe.printStackTrace()
-                }
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-            }
-        }
-    }
-
-    private fun onCastPostExecute(response: String?) {
-        if (!response.isNullOrEmpty()) {
+    private fun onCastPostExecute(reader: JSONObject?) {
+        if (reader != null) {
             // Set all the actors in a list and send that to the adapter.
             try {
-                val reader = JSONObject(response)
-
                 // Add the cast to the castView
                 if (reader.getJSONArray("cast").length() <= 0) {
                     // This movie has no available cast,
@@ -2012,56 +1896,12 @@ class DetailActivity : BaseActivity() {
         hideEmptyRecyclerView(binding.castRecyclerView, binding.crewTitle)
     }
 
-    private fun startSimilarMovieList() {
-        lifecycleScope.launch {
-            val response = doInBackground()
-            onPostExecuteSimilarMovies(response)
-        }
-    }
-
-    private suspend fun doInBackground(): String? = withContext(Dispatchers.IO) {
-        var line: String?
-        val stringBuilder = StringBuilder()
-        val movie = if (isMovie) SectionsPagerAdapter.MOVIE else SectionsPagerAdapter.TV
-
-        // Load the webpage with the list of similar movies.
-        try {
-            val url = URL(
-                "https://api.themoviedb.org/3/" + movie + "/" +
-                        movieId + "/recommendations?api_key=" +
-                        API_KEY + getLanguageParameter(applicationContext)
-            )
-            val urlConnection = url.openConnection()
-            try {
-                val bufferedReader = BufferedReader(
-                    InputStreamReader(urlConnection.getInputStream())
-                )
-
-                // Create one long string of the webpage.
-                while (bufferedReader.readLine().also { line = it } != null) {
-                    stringBuilder.append(line).append("\n")
-                }
-
-                // Close connection and return the data from the webpage.
-                bufferedReader.close()
-                return@withContext stringBuilder.toString()
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-            }
-        } catch (ioe: IOException) {
-            ioe.printStackTrace()
-        }
-
-        // Loading the dataset failed, return null.
-        return@withContext null
-    }
-
-    private fun onPostExecuteSimilarMovies(response: String?) {
-        if (!response.isNullOrEmpty()) {
+    private fun onPostExecuteSimilarMovies(reader: JSONObject?) {
+        if (reader != null) {
             // Set all the similar movies in a list and send that to the adapter.
             try {
-                val reader = JSONObject(response)
                 val similarMovieArray = reader.getJSONArray("results")
+                similarMovieArrayList.clear()
                 for (i in 0 until similarMovieArray.length()) {
                     val movieData = similarMovieArray.getJSONObject(i)
                     similarMovieArrayList.add(movieData)
@@ -2070,7 +1910,7 @@ class DetailActivity : BaseActivity() {
                     similarMovieArrayList, mShowGenreList, ShowBaseAdapter.MView.RECOMMENDATIONS, false
                 )
                 binding.movieRecyclerView.adapter = similarMovieAdapter
-                mSimilarMoviesLoaded = false
+                mSimilarMoviesLoaded = true
             } catch (je: JSONException) {
                 je.printStackTrace()
             }
@@ -2078,19 +1918,27 @@ class DetailActivity : BaseActivity() {
         hideEmptyRecyclerView(binding.movieRecyclerView, binding.similarMovieTitle)
     }
 
-    // Load the movie details.
-    private fun fetchMovieDetails(url: String): JSONObject {
-        val client = OkHttpClient()
-        val request = Request.Builder()
-            .url(url)
-            .get()
-            .addHeader("accept", "application/json")
-            .addHeader("Authorization", "Bearer $api_read_access_token")
-            .build()
-        client.newCall(request).execute().use { response ->
-            val responseBody = response.body()!!.string()
-            return JSONObject(responseBody)
-        }
+    // Load the movie details together with the cast, similar movies and videos,
+    // the response is parsed on the network thread before it reaches the main thread.
+    private suspend fun fetchMovieDetails(): JSONObject {
+        val type = if (isMovie) SectionsPagerAdapter.MOVIE else SectionsPagerAdapter.TV
+        val ratingsEndpoint = if (isMovie) "release_dates" else "content_ratings"
+        val params = mapOf(
+            "append_to_response" to "credits,videos,recommendations,$ratingsEndpoint,external_ids,keywords",
+            // Otherwise the videos would be limited to the requested language.
+            "include_video_language" to tmdbClient.language + ",en,null"
+        )
+        return tmdbClient.getJson("3/$type/$movieId", params, withLanguage = true)
+    }
+
+    /**
+     * Hands every section of the combined response to the view it belongs to.
+     */
+    private fun onDetailsPostExecute(movieData: JSONObject) {
+        onCastPostExecute(movieData.optJSONObject("credits"))
+        onPostExecuteSimilarMovies(movieData.optJSONObject("recommendations"))
+        movieData.optJSONObject("videos")?.let { onVideoPostExecute(it) }
+        onPostExecute(movieData)
     }
 
     private fun onPostExecute(movieData: JSONObject?) {
@@ -2216,25 +2064,18 @@ class DetailActivity : BaseActivity() {
     private fun fetchMovieDetailsCoroutine() {
         lifecycleScope.launch {
             try {
-                OkHttpClient()
-                val type = if (isMovie) SectionsPagerAdapter.MOVIE else SectionsPagerAdapter.TV
-                val additionalEndpoint = if (isMovie) "release_dates,external_ids,keywords" else "content_ratings,external_ids,keywords"
-                val baseUrl = "https://api.themoviedb.org/3/$type/$movieId?append_to_response=$additionalEndpoint"
-                val urlWithLanguage = baseUrl + getLanguageParameter(applicationContext)
-
-                var movieData: JSONObject = withContext(Dispatchers.IO) {
-                    fetchMovieDetails(urlWithLanguage)
-                }
-
-                if (movieData.getString("overview").isEmpty()) {
-                    movieData = withContext(Dispatchers.IO) {
-                        fetchMovieDetails(baseUrl)
-                    }
+                val movieData = fetchMovieDetails()
+
+                // Only the overview falls back to the default language, the other sections are kept.
+                if (movieData.optString("overview").isEmpty()) {
+                    val type = if (isMovie) SectionsPagerAdapter.MOVIE else SectionsPagerAdapter.TV
+                    movieData.put("overview", tmdbClient.getDecoded(
+                        "3/$type/$movieId",
+                        decoder = TmdbDecoder::readOverview
+                    ))
                 }
 
-                withContext(Dispatchers.Main) {
-                    onPostExecute(movieData)
-                }
+                onDetailsPostExecute(movieData)
             } catch (e: Exception) {
                 e.printStackTrace()
             }
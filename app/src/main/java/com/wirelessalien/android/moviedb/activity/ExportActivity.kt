@@ -32,6 +32,8 @@ import androidx.activity.result.contract.ActivityResultContracts
 import androidx.appcompat.app.AppCompatActivity
 import androidx.appcompat.content.res.AppCompatResources
 import androidx.preference.PreferenceManager
+import androidx.work.Constraints
+import androidx.work.ExistingPeriodicWorkPolicy
 import androidx.work.PeriodicWorkRequestBuilder
 import androidx.work.WorkManager
 import androidx.work.workDataOf
@@ -40,14 +42,12 @@ import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.databinding.ActivityExportBinding
 import com.wirelessalien.android.moviedb.helper.CrashHelper
 import com.wirelessalien.android.moviedb.helper.DirectoryHelper
+import com.wirelessalien.android.moviedb.helper.DatabaseConfig
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import java.io.File
-import java.io.FileInputStream
-import java.nio.ByteBuffer
 import java.util.concurrent.TimeUnit
 
 class ExportActivity : AppCompatActivity() {
@@ -70,6 +70,7 @@ class ExportActivity : AppCompatActivity() {
             preferences.edit().putString("db_backup_directory", it.toString()).apply()
             binding.backupBtn.icon = AppCompatResources.getDrawable(this, R.drawable.ic_check)
             binding.backupBtn.text = getString(R.string.backup_directory_selected)
+            scheduleDatabaseExport()
         }
     }
     private val openExportDirectoryLauncher = registerForActivityResult(ActivityResultContracts.OpenDocumentTree()) { uri: Uri? ->
@@ -107,7 +108,7 @@ class ExportActivity : AppCompatActivity() {
         }
 
         binding.exportButton.setOnClickListener {
-            val databaseHelper = MovieDatabaseHelper(applicationContext)
+            val databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
             databaseHelper.exportDatabase(context, exportDirectoryUri)
         }
 
@@ -140,7 +141,7 @@ class ExportActivity : AppCompatActivity() {
                 preferences.edit().remove("db_backup_directory").apply()
                 binding.backupBtn.icon = null
                 binding.backupBtn.text = getString(R.string.auto_backup_directory_selection)
-                WorkManager.getInstance(this).cancelAllWorkByTag("DatabaseBackupWorker")
+                WorkManager.getInstance(this).cancelUniqueWork(DatabaseBackupWorker.WORK_NAME)
             }
         }
 
@@ -153,12 +154,24 @@ class ExportActivity : AppCompatActivity() {
             val directoryUri = Uri.parse(dbBackupDirectory)
             val inputData = workDataOf("directoryUri" to directoryUri.toString())
 
+            // Only back up when the device is not in use, the worker skips days without changes.
+            val constraints = Constraints.Builder()
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .build()
             val exportWorkRequest = PeriodicWorkRequestBuilder<DatabaseBackupWorker>(1, TimeUnit.DAYS)
                 .setInputData(inputData)
-                .addTag("DatabaseBackupWorker")
+                .setConstraints(constraints)
                 .build()
 
-            WorkManager.getInstance(this).enqueue(exportWorkRequest)
+            val workManager = WorkManager.getInstance(this)
+            // Older versions enqueued a new (tagged) request every time this screen was opened.
+            workManager.cancelAllWorkByTag(LEGACY_BACKUP_TAG)
+            workManager.enqueueUniquePeriodicWork(
+                DatabaseBackupWorker.WORK_NAME,
+                ExistingPeriodicWorkPolicy.UPDATE,
+                exportWorkRequest
+            )
         }
     }
 
@@ -189,32 +202,19 @@ class ExportActivity : AppCompatActivity() {
             try {
                 contentResolver.openOutputStream(uri)?.use { outputStream ->
                     if (isJson) {
-                        val databaseHelper = MovieDatabaseHelper(applicationContext)
+                        val databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
                         val db = databaseHelper.readableDatabase
-                        val json = MovieDatabaseHelper.jSONExport(db)
-                        outputStream.write(json.toByteArray())
+                        MovieDatabaseHelper.jSONExport(db, outputStream)
                     } else if (isCsv) {
-                        val databaseHelper = MovieDatabaseHelper(applicationContext)
+                        val databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
                         val db = databaseHelper.readableDatabase
-                        val csv = MovieDatabaseHelper.cSVExport(db)
-                        outputStream.write(csv.toByteArray())
+                        MovieDatabaseHelper.cSVExport(db, outputStream)
                     } else {
-                        val dynamicPath = context.getDatabasePath(MovieDatabaseHelper.databaseFileName).absolutePath
-                        val currentDB = File(dynamicPath)
-
-                        if (!currentDB.exists()) {
-                            withContext(Dispatchers.Main) {
-                                Toast.makeText(this@ExportActivity, getString(R.string.database_not_found), Toast.LENGTH_SHORT).show()
-                            }
-                        }
-
-                        val fileChannel = FileInputStream(currentDB).channel
-                        val buffer = ByteBuffer.allocate(fileChannel.size().toInt())
-                        fileChannel.read(buffer)
-                        buffer.flip()
-                        val byteArray = ByteArray(buffer.remaining())
-                        buffer[byteArray]
-                        outputStream.write(byteArray)
+                        DatabaseConfig.writeSnapshot(
+                            applicationContext,
+                            MovieDatabaseHelper.getInstance(applicationContext),
+                            outputStream
+                        )
                     }
                     outputStream.flush()
                     withContext(Dispatchers.Main) {
@@ -229,4 +229,8 @@ class ExportActivity : AppCompatActivity() {
             }
         }
     }
+
+    companion object {
+        private const val LEGACY_BACKUP_TAG = "DatabaseBackupWorker"
+    }
 }
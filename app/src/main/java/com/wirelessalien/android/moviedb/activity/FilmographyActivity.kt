@@ -27,30 +27,26 @@ import android.os.Process
 import android.view.View
 import android.widget.ProgressBar
 import androidx.appcompat.app.AppCompatActivity
+import androidx.lifecycle.lifecycleScope
 import androidx.preference.PreferenceManager
 import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.appbar.MaterialToolbar
 import com.wirelessalien.android.moviedb.R
-import com.wirelessalien.android.moviedb.activity.BaseActivity.Companion.getLanguageParameter
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
+import com.wirelessalien.android.moviedb.data.CombinedCredits
 import com.wirelessalien.android.moviedb.fragment.BaseFragment
-import com.wirelessalien.android.moviedb.helper.ConfigHelper
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
+import com.wirelessalien.android.moviedb.tmdb.TmdbDecoder
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
 import org.json.JSONArray
 import org.json.JSONObject
-import java.io.BufferedReader
 import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
-import java.io.InputStreamReader
 import java.io.PrintWriter
 import java.io.StringWriter
-import java.net.URL
 
 class FilmographyActivity : AppCompatActivity() {
     private lateinit var recyclerView: RecyclerView
@@ -58,8 +54,6 @@ class FilmographyActivity : AppCompatActivity() {
     private lateinit var list: ArrayList<JSONObject>
     private lateinit var jsonArray: JSONArray
 
-    private var API_KEY: String? = null
-
     private var mShowGenreList: HashMap<String, String?>? = null
     lateinit var preferences: SharedPreferences
     private var SHOWS_LIST_PREFERENCE = "key_show_shows_grid"
@@ -70,7 +64,6 @@ class FilmographyActivity : AppCompatActivity() {
         setContentView(R.layout.activity_filmography)
         mShowGenreList = HashMap()
         list = ArrayList()
-        API_KEY = ConfigHelper.getConfigValue(applicationContext, "api_key")
 
         Thread.setDefaultUncaughtExceptionHandler { thread: Thread?, throwable: Throwable ->
             val crashLog = StringWriter()
@@ -135,62 +128,36 @@ class FilmographyActivity : AppCompatActivity() {
     }
 
     private fun fetchActorMovies() {
-        CoroutineScope(Dispatchers.Main).launch {
-            val response = withContext(Dispatchers.IO) { doInBackground() }
+        lifecycleScope.launch {
+            val response = doInBackground()
             onPostExecute(response)
         }
     }
 
-    private fun doInBackground(): String? {
-        var line: String?
-        val stringBuilder = StringBuilder()
+    private suspend fun doInBackground(): CombinedCredits? {
         val actorId = intent.getStringExtra("actorId")
 
         // Load the webpage with the person's shows.
-        try {
-            val url = URL(
-                "https://api.themoviedb.org/3/person/" +
-                        actorId + "/combined_credits?api_key=" + API_KEY + getLanguageParameter(
-                    applicationContext
-                )
+        return try {
+            TmdbClient.getInstance(this@FilmographyActivity).getDecoded(
+                "3/person/$actorId/combined_credits",
+                withLanguage = true,
+                decoder = TmdbDecoder::readCombinedCredits
             )
-            val urlConnection = url.openConnection()
-            try {
-                val bufferedReader = BufferedReader(
-                    InputStreamReader(
-                        urlConnection.getInputStream()
-                    )
-                )
-
-                // Create one long string of the webpage.
-                while (bufferedReader.readLine().also { line = it } != null) {
-                    stringBuilder.append(line).append("\n")
-                }
-
-                // Close connection and return the data from the webpage.
-                bufferedReader.close()
-                return stringBuilder.toString()
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-            }
         } catch (ioe: IOException) {
             ioe.printStackTrace()
-        }
 
-        // Loading the dataset failed, return null.
-        return null
+            // Loading the dataset failed, return null.
+            null
+        }
     }
 
-    private fun onPostExecute(response: String?) {
-        if (!response.isNullOrEmpty()) {
-            val reader = JSONObject(response)
+    private fun onPostExecute(credits: CombinedCredits?) {
+        if (credits != null) {
             val type = intent.getStringExtra("type")
-            var movieArray = JSONArray()
-
-            movieArray = reader.getJSONArray(type)
-            for (i in 0 until movieArray.length()) {
-                val actorMovies = movieArray.getJSONObject(i)
-                list.add(actorMovies)
+            val roles = if (type == "crew") credits.crew else credits.cast
+            for (credit in roles) {
+                list.add(credit.toJSONObject())
             }
 
             adapter = ShowBaseAdapter(list, mShowGenreList!!,  if (preferences.getBoolean(
@@ -110,13 +110,13 @@ class ImportActivity : AppCompatActivity(), AdapterDataChangedListener {
         }
         val importMovieDbButton = findViewById<Button>(R.id.import_movie_db_button)
         importMovieDbButton.setOnClickListener {
-            val databaseHelper = MovieDatabaseHelper(applicationContext)
+            val databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
             databaseHelper.importDatabase(context, this)
         }
 
         val importPeopleDbButton = findViewById<Button>(R.id.import_people_db_button)
         importPeopleDbButton.setOnClickListener {
-            val databaseHelper = PeopleDatabaseHelper(applicationContext)
+            val databaseHelper = PeopleDatabaseHelper.getInstance(applicationContext)
             databaseHelper.importDatabase(context, this)
         }
     }
@@ -56,8 +56,6 @@ import androidx.fragment.app.FragmentContainerView
 import androidx.fragment.app.FragmentManager
 import androidx.lifecycle.lifecycleScope
 import androidx.preference.PreferenceManager
-import androidx.work.PeriodicWorkRequest
-import androidx.work.WorkManager
 import com.google.android.material.appbar.MaterialToolbar
 import com.google.android.material.bottomnavigation.BottomNavigationView
 import com.google.android.material.color.DynamicColors
@@ -78,18 +76,17 @@ import com.wirelessalien.android.moviedb.fragment.ShowFragment
 import com.wirelessalien.android.moviedb.fragment.ShowFragment.Companion.newInstance
 import com.wirelessalien.android.moviedb.helper.ConfigHelper
 import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
+import com.wirelessalien.android.moviedb.tmdb.TmdbPriority
 import com.wirelessalien.android.moviedb.tmdb.account.FetchList
 import com.wirelessalien.android.moviedb.tmdb.account.GetAccessToken
 import com.wirelessalien.android.moviedb.tmdb.account.GetAllListData
 import com.wirelessalien.android.moviedb.work.ReleaseReminderWorker
 import kotlinx.coroutines.launch
-import org.json.JSONException
 import org.json.JSONObject
 import java.io.BufferedReader
 import java.io.File
 import java.io.FileReader
 import java.io.IOException
-import java.util.concurrent.TimeUnit
 
 class MainActivity : BaseActivity() {
     private lateinit var bottomNavigationView: BottomNavigationView
@@ -307,9 +304,7 @@ class MainActivity : BaseActivity() {
             notificationManager.createNotificationChannel(channel)
         }
 
-        val periodicWorkRequest = PeriodicWorkRequest.Builder(ReleaseReminderWorker::class.java, 1, TimeUnit.DAYS)
-            .build()
-        WorkManager.getInstance(this).enqueue(periodicWorkRequest)
+        ReleaseReminderWorker.schedule(this)
 
         val nIntent = intent
         if (nIntent != null && nIntent.hasExtra("tab_index")) {
@@ -320,7 +315,7 @@ class MainActivity : BaseActivity() {
         val accessToken = preferences.getString("access_token", null)
         val hasRunOnce = preferences.getBoolean("hasRunOnce", false)
         if (!hasRunOnce && accessToken != null && accessToken != "") {
-            val listDatabaseHelper = ListDatabaseHelper(this@MainActivity)
+            val listDatabaseHelper = ListDatabaseHelper.getInstance(this@MainActivity)
             val db = listDatabaseHelper.readableDatabase
             val cursor = db.rawQuery("SELECT * FROM " + ListDatabaseHelper.TABLE_LISTS, null)
             if (cursor.count > 0) {
@@ -331,7 +326,8 @@ class MainActivity : BaseActivity() {
                     .create()
                 progressDialog.show()
 
-                lifecycleScope.launch {
+                // Synchronising the lists must not slow down the screen that is being opened.
+                lifecycleScope.launch(TmdbPriority.BACKGROUND) {
                     try {
                         val fetchListCoroutineTMDb = FetchList(this@MainActivity, object : FetchList.OnListFetchListener {
                             override fun onListFetch(listData: List<ListData>?) {
@@ -344,18 +340,13 @@ class MainActivity : BaseActivity() {
                                             object : GetAllListData.OnFetchListDetailsListener {
                                                 override fun onFetchListDetails(listDetailsData: ArrayList<JSONObject>?) {
                                                     if (listDetailsData != null) {
-                                                        for (item in listDetailsData) {
-                                                            try {
-                                                                val movieId = item.getInt("id")
-                                                                val mediaType = item.getString("media_type")
-                                                                listDatabaseHelper.addListDetails(
-                                                                    data.id,
-                                                                    data.name,
-                                                                    movieId,
-                                                                    mediaType
-                                                                )
-                                                            } catch (e: JSONException) {
-                                                                e.printStackTrace()
+                                                        val invalidItems = listDatabaseHelper.addListDetails(
+                                                            data.id,
+                                                            data.name,
+                                                            listDetailsData
+                                                        )
+                                                        if (invalidItems > 0) {
+                                                            runOnUiThread {
                                                                 Toast.makeText(
                                                                     this@MainActivity,
                                                                     R.string.error_occurred_in_list_data,
@@ -422,8 +413,8 @@ class MainActivity : BaseActivity() {
                             null,
                             object : GetAccessToken.OnTokenReceivedListener {
                                 override fun onTokenReceived(accessToken: String?) {
-                                    lifecycleScope.launch {
-                                        val listDatabaseHelper = ListDatabaseHelper(this@MainActivity)
+                                    lifecycleScope.launch(TmdbPriority.BACKGROUND) {
+                                        val listDatabaseHelper = ListDatabaseHelper.getInstance(this@MainActivity)
                                         listDatabaseHelper.deleteAllData()
 
                                         val fetchListCoroutineTMDb = FetchList(
@@ -437,18 +428,13 @@ class MainActivity : BaseActivity() {
                                                             this@MainActivity,
                                                             object : GetAllListData.OnFetchListDetailsListener {
                                                                 override fun onFetchListDetails(listDetailsData: ArrayList<JSONObject>?) {
-                                                                    for (item in listDetailsData!!) {
-                                                                        try {
-                                                                            val movieId = item.getInt("id")
-                                                                            val mediaType = item.getString("media_type")
-                                                                            listDatabaseHelper.addListDetails(
-                                                                                data.id,
-                                                                                data.name,
-                                                                                movieId,
-                                                                                mediaType
-                                                                            )
-                                                                        } catch (e: JSONException) {
-                                                                            e.printStackTrace()
+                                                                    val invalidItems = listDatabaseHelper.addListDetails(
+                                                                        data.id,
+                                                                        data.name,
+                                                                        listDetailsData!!
+                                                                    )
+                                                                    if (invalidItems > 0) {
+                                                                        runOnUiThread {
                                                                             progressDialog.dismiss()
                                                                             Toast.makeText(
                                                                                 this@MainActivity,
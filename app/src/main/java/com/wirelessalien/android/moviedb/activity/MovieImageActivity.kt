@@ -29,6 +29,7 @@ import androidx.activity.OnBackPressedDispatcher
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.app.ActivityCompat
 import androidx.core.content.ContextCompat
+import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.RecyclerView
 import com.google.android.flexbox.AlignItems
 import com.google.android.flexbox.FlexDirection
@@ -41,6 +42,7 @@ import com.wirelessalien.android.moviedb.adapter.MovieImageAdapter
 import com.wirelessalien.android.moviedb.data.MovieImage
 import com.wirelessalien.android.moviedb.helper.CrashHelper
 import com.wirelessalien.android.moviedb.tmdb.GetMovieImage
+import kotlinx.coroutines.launch
 
 class MovieImageActivity : AppCompatActivity() {
     private lateinit var recyclerView: RecyclerView
@@ -114,7 +116,9 @@ class MovieImageActivity : AppCompatActivity() {
         recyclerView.layoutManager = layoutManager
         val adapter = MovieImageAdapter(this, movieImages)
         recyclerView.adapter = adapter
-        GetMovieImage(movieId, type!!, this, recyclerView).fetchMovieImages()
+        lifecycleScope.launch {
+            GetMovieImage(movieId, type!!, this@MovieImageActivity, recyclerView).fetchMovieImages()
+        }
 
         // Handle back button press
         OnBackPressedDispatcher().addCallback(this, object : OnBackPressedCallback(true) {
@@ -106,12 +106,12 @@ class PersonActivity : BaseActivity() , AdapterDataChangedListener {
                     )
                 } else {
                     //call export function from PeopleDatabaseHelper
-                    val peopleDatabaseHelper = PeopleDatabaseHelper(this)
+                    val peopleDatabaseHelper = PeopleDatabaseHelper.getInstance(this)
                     peopleDatabaseHelper.exportDatabase(this, exportDirectoryUri)
                 }
             } else {
                 //call export function from PeopleDatabaseHelper
-                val peopleDatabaseHelper = PeopleDatabaseHelper(this)
+                val peopleDatabaseHelper = PeopleDatabaseHelper.getInstance(this)
                 peopleDatabaseHelper.exportDatabase(this, exportDirectoryUri)
             }
 
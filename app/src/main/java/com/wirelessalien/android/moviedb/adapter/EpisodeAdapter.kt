@@ -48,6 +48,7 @@ import com.squareup.picasso.Picasso
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.adapter.EpisodeAdapter.EpisodeViewHolder
 import com.wirelessalien.android.moviedb.data.Episode
+import com.wirelessalien.android.moviedb.data.SeasonTrackingState
 import com.wirelessalien.android.moviedb.databinding.EpisodeItemBinding
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
 import com.wirelessalien.android.moviedb.tmdb.account.AddEpisodeRating
@@ -64,7 +65,8 @@ class EpisodeAdapter(
     private val context: Context,
     val episodes: List<Episode>?,
     var seasonNumber: Int,
-    private var tvShowId: Int
+    private var tvShowId: Int,
+    val trackingState: SeasonTrackingState
 ) : RecyclerView.Adapter<EpisodeViewHolder?>() {
     private var episodeRatings: Map<Int, Double> = HashMap()
 
@@ -128,81 +130,65 @@ class EpisodeAdapter(
                 Locale.getDefault(), "%.1f/" + String.format(Locale.getDefault(), "%d", 10), rating
             )
         }
-        try {
-            MovieDatabaseHelper(context).use { db ->
-                if (db.isEpisodeInDatabase(tvShowId, seasonNumber, listOf(episode.episodeNumber))) {
-                    holder.binding.watched.icon =
-                        ContextCompat.getDrawable(context, R.drawable.ic_visibility_fill)
+        // The tracking state is loaded before the adapter is created, binding does not query the database.
+        holder.binding.watched.icon = ContextCompat.getDrawable(
+            context,
+            if (trackingState.isWatched(episode.episodeNumber)) R.drawable.ic_visibility_fill
+            else R.drawable.ic_visibility
+        )
+        holder.binding.watched.setOnClickListener {
+            val watched = !trackingState.isWatched(episode.episodeNumber)
+            try {
+                val db = MovieDatabaseHelper.getInstance(context)
+                if (watched) {
+                    db.addEpisodeNumber(tvShowId, seasonNumber, listOf(episode.episodeNumber))
                 } else {
-                    holder.binding.watched.icon =
-                        ContextCompat.getDrawable(context, R.drawable.ic_visibility)
-                }
-                holder.binding.watched.setOnClickListener {
-                    // If the episode is in the database, remove it
-                    if (db.isEpisodeInDatabase(
-                            tvShowId,
-                            seasonNumber,
-                            listOf(episode.episodeNumber)
-                        )
-                    ) {
-                        db.removeEpisodeNumber(
-                            tvShowId,
-                            seasonNumber,
-                            listOf(episode.episodeNumber)
-                        )
-                        holder.binding.watched.icon =
-                            ContextCompat.getDrawable(context, R.drawable.ic_visibility)
-                    } else {
-                        // If the episode is not in the database, add it
-                        db.addEpisodeNumber(tvShowId, seasonNumber, listOf(episode.episodeNumber))
-                        holder.binding.watched.icon =
-                            ContextCompat.getDrawable(context, R.drawable.ic_visibility_fill)
-                    }
+                    db.removeEpisodeNumber(tvShowId, seasonNumber, listOf(episode.episodeNumber))
                 }
+                trackingState.setWatched(episode.episodeNumber, watched)
+                notifyItemChanged(holder.bindingAdapterPosition)
+            } catch (e: Exception) {
+                e.printStackTrace()
             }
-        } catch (e: Exception) {
-            e.printStackTrace()
         }
 
-        try {
-            MovieDatabaseHelper(context).use { db ->
-                val details = db.getEpisodeDetails(tvShowId, seasonNumber, episode.episodeNumber)
-                if (details != null) {
-                    if (details.rating?.toDouble() != 0.0) {
-                        val formattedRating =
-                            String.format(Locale.getDefault(), "%.1f/%d", details.rating, 10)
-                        holder.binding.episodeDbRating.text =
-                            context.getString(R.string.rating_db) + " " + formattedRating
-                    }
-                    if (details.watchDate != "0000-00-00") {
-                        val originalFormat = SimpleDateFormat("yyyy-MM-dd", Locale.ENGLISH)
-                        try {
-                            val date = originalFormat.parse(details.watchDate)
-                            val formattedDate = when {
-                                details.watchDate.endsWith("-00-00") -> {
-                                    val year = details.watchDate.substring(0, 4).toInt()
-                                    year.toString()
-                                }
-                                details.watchDate.endsWith("-00") -> {
-                                    val year = details.watchDate.substring(0, 4).toInt()
-                                    val month = details.watchDate.substring(5, 7).toInt()
-                                    String.format(Locale.getDefault(), "%d-%02d", year, month)
-                                }
-                                else -> {
-                                    DateFormat.getDateInstance(DateFormat.DEFAULT).format(date)
-                                }
-                            }
-                            holder.binding.watchedDate.text =
-                                context.getString(R.string.watched_on) + " " + formattedDate
-                        } catch (e: ParseException) {
-                            e.printStackTrace()
+        holder.binding.episodeDbRating.setText(R.string.episode_rating_db_not_set)
+        holder.binding.watchedDate.setText(R.string.watched_on_not_set)
+        holder.binding.episodeReview.text = null
+        val details = trackingState.getDetails(episode.episodeNumber)
+        if (details != null) {
+            if (details.rating != null && details.rating.toDouble() != 0.0) {
+                val formattedRating =
+                    String.format(Locale.getDefault(), "%.1f/%d", details.rating, 10)
+                holder.binding.episodeDbRating.text =
+                    context.getString(R.string.rating_db) + " " + formattedRating
+            }
+            val watchDate = details.watchDate
+            if (watchDate != null && watchDate != "0000-00-00") {
+                val originalFormat = SimpleDateFormat("yyyy-MM-dd", Locale.ENGLISH)
+                try {
+                    val date = originalFormat.parse(watchDate)
+                    val formattedDate = when {
+                        watchDate.endsWith("-00-00") -> {
+                            val year = watchDate.substring(0, 4).toInt()
+                            year.toString()
+                        }
+                        watchDate.endsWith("-00") -> {
+                            val year = watchDate.substring(0, 4).toInt()
+                            val month = watchDate.substring(5, 7).toInt()
+                            String.format(Locale.getDefault(), "%d-%02d", year, month)
+                        }
+                        else -> {
+                            DateFormat.getDateInstance(DateFormat.DEFAULT).format(date)
                         }
                     }
-                    holder.binding.episodeReview.text = details.review
+                    holder.binding.watchedDate.text =
+                        context.getString(R.string.watched_on) + " " + formattedDate
+                } catch (e: ParseException) {
+                    e.printStackTrace()
                 }
             }
-        } catch (e: Exception) {
-            e.printStackTrace()
+            holder.binding.episodeReview.text = details.review
         }
 
         holder.binding.editDetails.setOnClickListener {
@@ -221,21 +207,13 @@ class EpisodeAdapter(
             episodeTitle.text =
                 "S:" + seasonNumber + " " + "E:" + episode.episodeNumber + " " + episode.name
 
-            // Fetch episode details from the database
-            try {
-                MovieDatabaseHelper(context).use { db ->
-                    val details =
-                        db.getEpisodeDetails(tvShowId, seasonNumber, episode.episodeNumber)
-                    if (details != null) {
-                        dateTextView.text = details.watchDate
-                        if (details.rating?.toDouble() != 0.0 && details.rating != null) {
-                            ratingEditText.setText(details.rating.toString())
-                        }
-                        reviewEditText.setText(details.review)
-                    }
+            val currentDetails = trackingState.getDetails(episode.episodeNumber)
+            if (currentDetails != null) {
+                dateTextView.text = currentDetails.watchDate
+                if (currentDetails.rating?.toDouble() != 0.0 && currentDetails.rating != null) {
+                    ratingEditText.setText(currentDetails.rating.toString())
                 }
-            } catch (e: Exception) {
-                e.printStackTrace()
+                reviewEditText.setText(currentDetails.review)
             }
 
             dateButton.setOnClickListener {
@@ -282,16 +260,15 @@ class EpisodeAdapter(
                 episode1.setRating(episodeRating)
                 episode1.setReview(review)
                 try {
-                    MovieDatabaseHelper(context).use { movieDatabaseHelper ->
-                        movieDatabaseHelper.addOrUpdateEpisode(
-                            tvShowId,
-                            seasonNumber,
-                            episode1.episodeNumber,
-                            episodeRating,
-                            date,
-                            review
-                        )
-                    }
+                    MovieDatabaseHelper.getInstance(context).addOrUpdateEpisode(
+                        tvShowId,
+                        seasonNumber,
+                        episode1.episodeNumber,
+                        episodeRating,
+                        date,
+                        review
+                    )
+                    trackingState.update(episode1.episodeNumber, episodeRating, date, review)
                 } catch (e: Exception) {
                     e.printStackTrace()
                 }
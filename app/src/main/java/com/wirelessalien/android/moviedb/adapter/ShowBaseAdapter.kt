@@ -38,6 +38,7 @@ import androidx.recyclerview.widget.RecyclerView
 import com.squareup.picasso.Picasso
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.activity.DetailActivity
+import com.wirelessalien.android.moviedb.data.ShowSummary
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
 import com.wirelessalien.android.moviedb.tmdb.account.DeleteFromList
 import kotlinx.coroutines.CoroutineScope
@@ -88,217 +89,14 @@ class ShowBaseAdapter(
         return mShowArrayList.size
     }
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ShowItemViewHolder {
-        val view: View = when (mGridView) {
-            MView.GRID -> {
-                LayoutInflater.from(parent.context).inflate(R.layout.show_grid_card, parent, false)
-            }
-            MView.LIST -> {
-                LayoutInflater.from(parent.context).inflate(R.layout.show_card, parent, false)
-            }
-            MView.RECOMMENDATIONS -> {
-                LayoutInflater.from(parent.context).inflate(R.layout.movie_card, parent, false)
-            }
-            MView.ROLES -> {
-                LayoutInflater.from(parent.context).inflate(R.layout.role_card, parent, false)
-            }
-            else -> {
-                LayoutInflater.from(parent.context).inflate(R.layout.filmography_card, parent, false)
-            }
-        }
-        return ShowItemViewHolder(view, mGridView)
+        return createViewHolder(parent, mGridView)
     }
 
     override fun onBindViewHolder(holder: ShowItemViewHolder, position: Int) {
         // Fill the views with the needed data.
         val showData = mShowArrayList[position]
         val context = holder.showView.context
-
-        // Fills the views with show details.
-        try {
-            // Load the thumbnail with Picasso.
-            val defaultSharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
-            val loadHDImage = defaultSharedPreferences.getBoolean(HD_IMAGE_SIZE, false)
-            val imageSize = if (loadHDImage) "w780" else "w500"
-
-            if (mGridView == MView.GRID || mGridView == MView.LIST || mGridView == MView.FILMOGRAPHY) {
-                if (showData.getString(KEY_POSTER) == "null") {
-                    holder.showImage.setImageDrawable(
-                        ResourcesCompat.getDrawable(
-                            context.resources,
-                            R.drawable.ic_broken_image,
-                            null
-                        )
-                    )
-                } else {
-                    Picasso.get().load(
-                        "https://image.tmdb.org/t/p/$imageSize" + showData.getString(
-                            KEY_POSTER
-                        )
-                    ).into(holder.showImage)
-                }
-            } else {
-                if (showData.getString(KEY_IMAGE) == "null" && showData.getString(KEY_POSTER) == "null"){
-                    holder.showImage.setImageDrawable(
-                        ResourcesCompat.getDrawable(
-                            context.resources,
-                            R.drawable.ic_broken_image,
-                            null
-                        )
-                    )
-                } else if (showData.getString(KEY_IMAGE) != "null") {
-                    Picasso.get().load(
-                        "https://image.tmdb.org/t/p/$imageSize" + showData.getString(
-                            KEY_IMAGE
-                        )
-                    ).into(holder.showImage)
-                } else {
-                    Picasso.get().load(
-                        "https://image.tmdb.org/t/p/$imageSize" + showData.getString(
-                            KEY_POSTER
-                        )
-                    ).into(holder.showImage)
-                }
-            }
-
-            // Check if the object has "title" if not,
-            // it is a series and "name" is used.
-            val name =
-                if (showData.has(KEY_TITLE)) showData.getString(KEY_TITLE) else showData.getString(
-                    KEY_NAME
-                )
-
-            // Set the title and description.
-            holder.showTitle.text = name
-
-            // Set the right category color if available.
-            if (mGridView == MView.GRID || mGridView == MView.LIST) {
-                if (showData.has(KEY_CATEGORIES)) {
-                    val categoryText = when (showData.getInt(KEY_CATEGORIES)) {
-                        0 -> "Plan to watch"
-                        1 -> "Watched"
-                        2 -> "Watching"
-                        3 -> "On hold"
-                        4 -> "Dropped"
-                        else -> "Unknown"
-                    }
-                    (holder.categoryColorView as TextView).text = categoryText
-                    holder.categoryColorView.setVisibility(View.VISIBLE)
-                } else {
-                    holder.categoryColorView?.visibility = View.GONE
-                }
-            }
-
-            // Check if the object has "title" if not,
-            // it is a series and "name" is used.
-            var dateString =
-                if (showData.has(KEY_DATE_MOVIE)) showData.getString(KEY_DATE_MOVIE) else showData.getString(
-                    KEY_DATE_SERIES
-                )
-
-            // Convert date to locale.
-            val originalFormat = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
-            try {
-                val date = originalFormat.parse(dateString)
-
-                if (mGridView == MView.GRID || mGridView == MView.LIST) {
-                    val localFormat =
-                        DateFormat.getDateInstance(DateFormat.DEFAULT, Locale.getDefault())
-                    dateString = localFormat.format(date)
-                } else {
-                    val yearFormat = SimpleDateFormat("yyyy")
-                    dateString = yearFormat.format(date)
-                }
-            } catch (e: ParseException) {
-                e.printStackTrace()
-            }
-            holder.showDate.text = dateString
-
-            // Only if the shows are presented in a list.
-            if (mGridView == MView.LIST) {
-                holder.showDescription?.text = showData.getString(KEY_DESCRIPTION)
-
-            // Divide the rating in two so it fits in the five stars.
-                holder.showRating?.rating = showData.getString(KEY_RATING).toFloat() / 2
-
-                // Remove the [ and ] from the String
-                val genreIds = showData.getString(KEY_GENRES)
-                    .substring(
-                        1, showData.getString(KEY_GENRES)
-                            .length - 1
-                    )
-
-                // Split the String with ids and set them into an array.
-                val genreArray =
-                    genreIds.split(",".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray()
-
-                // Get sharedPreferences in case the genreHashMap doesn't have the value
-                val sharedPreferences = context.getSharedPreferences(
-                    "GenreList", Context.MODE_PRIVATE
-                )
-
-                // Add all the genres in one String.
-                val genreNames = StringBuilder()
-                for (aGenreArray in genreArray) {
-                    if (mGenreHashMap!![aGenreArray] != null) {
-                        genreNames.append(", ").append(mGenreHashMap!![aGenreArray])
-                    } else {
-                        genreNames.append(", ").append(sharedPreferences.getString(aGenreArray, ""))
-                    }
-                }
-
-                // Remove the first ", " from the string and set the text.
-                holder.showGenre?.text = genreNames.substring(2)
-            } else if (mGridView == MView.RECOMMENDATIONS) {
-                // Quickly fade in the poster when loaded.
-                val animation = AnimationUtils.loadAnimation(
-                    context,
-                    R.anim.fade_in_fast
-                )
-                holder.showImage.startAnimation(animation)
-
-                if (showData.has(KEY_RATING)) {
-                    // Add rating
-                    val voteAverage: Float = showData.getString(KEY_RATING).toFloat()
-                    holder.showRatingText?.text = String.format(Locale.getDefault(), "★%.2f", voteAverage)
-                }
-            } else if (mGridView == MView.ROLES) {
-                if (showData.has(KEY_CHARACTER)) {
-                    holder.showRole?.text = showData.getString(KEY_CHARACTER)
-                }
-
-                if (showData.has(KEY_CREW_JOB)) {
-                    holder.showRole?.text = showData.getString(KEY_CREW_JOB)
-                }
-            } else if (mGridView == MView.FILMOGRAPHY) {
-                if (showData.getString("media_type").equals("tv")) {
-                    holder.detailButton?.visibility = View.VISIBLE
-                } else {
-                    holder.detailButton?.visibility = View.GONE
-                }
-
-                holder.showRating?.rating = showData.getString(KEY_RATING).toFloat() / 2
-
-                if (showData.has(KEY_CHARACTER)) {
-                    holder.showRole?.text = showData.getString(KEY_CHARACTER)
-                }
-
-                if (showData.has(KEY_CREW_JOB)) {
-                    holder.showRole?.text = showData.getString(KEY_CREW_JOB)
-                }
-            }
-        } catch (e: JSONException) {
-            e.printStackTrace()
-        }
-
-        // Send the movie data and the user to DetailActivity when clicking on a card.
-        holder.itemView.setOnClickListener { view: View ->
-            val intent = Intent(view.context, DetailActivity::class.java)
-            intent.putExtra("movieObject", showData.toString())
-            if (showData.has(KEY_NAME)) {
-                intent.putExtra("isMovie", false)
-            }
-            view.context.startActivity(intent)
-        }
+        bindShow(holder, showData, mGridView, mGenreHashMap)
 
         if (mGridView == MView.GRID || mGridView == MView.LIST) {
             if (showDeleteButton) {
@@ -387,5 +185,292 @@ class ShowBaseAdapter(
         const val KEY_CREW_JOB = "job"
         private const val HD_IMAGE_SIZE = "key_hq_images"
         private const val KEY_CATEGORIES = MovieDatabaseHelper.COLUMN_CATEGORIES
+
+        /**
+         * Inflates the card that belongs to the given view type.
+         */
+        fun createViewHolder(parent: ViewGroup, gridView: MView): ShowItemViewHolder {
+            val view: View = when (gridView) {
+                MView.GRID -> {
+                    LayoutInflater.from(parent.context).inflate(R.layout.show_grid_card, parent, false)
+                }
+                MView.LIST -> {
+                    LayoutInflater.from(parent.context).inflate(R.layout.show_card, parent, false)
+                }
+                MView.RECOMMENDATIONS -> {
+                    LayoutInflater.from(parent.context).inflate(R.layout.movie_card, parent, false)
+                }
+                MView.ROLES -> {
+                    LayoutInflater.from(parent.context).inflate(R.layout.role_card, parent, false)
+                }
+                else -> {
+                    LayoutInflater.from(parent.context).inflate(R.layout.filmography_card, parent, false)
+                }
+            }
+            return ShowItemViewHolder(view, gridView)
+        }
+
+        /**
+         * Fills the card with the data of the show and opens the DetailActivity on click.
+         * Shared with [ShowPagingAdapter] so that both adapters display the shows the same way.
+         */
+        fun bindShow(
+            holder: ShowItemViewHolder,
+            showData: JSONObject,
+            gridView: MView,
+            genreHashMap: HashMap<String, String?>?
+        ) {
+            val context = holder.showView.context
+
+            // Fills the views with show details.
+            try {
+                // Load the thumbnail with Picasso.
+                val defaultSharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
+                val loadHDImage = defaultSharedPreferences.getBoolean(HD_IMAGE_SIZE, false)
+                val imageSize = if (loadHDImage) "w780" else "w500"
+
+                if (gridView == MView.GRID || gridView == MView.LIST || gridView == MView.FILMOGRAPHY) {
+                    if (showData.getString(KEY_POSTER) == "null") {
+                        holder.showImage.setImageDrawable(
+                            ResourcesCompat.getDrawable(
+                                context.resources,
+                                R.drawable.ic_broken_image,
+                                null
+                            )
+                        )
+                    } else {
+                        Picasso.get().load(
+                            "https://image.tmdb.org/t/p/$imageSize" + showData.getString(
+                                KEY_POSTER
+                            )
+                        ).into(holder.showImage)
+                    }
+                } else {
+                    if (showData.getString(KEY_IMAGE) == "null" && showData.getString(KEY_POSTER) == "null"){
+                        holder.showImage.setImageDrawable(
+                            ResourcesCompat.getDrawable(
+                                context.resources,
+                                R.drawable.ic_broken_image,
+                                null
+                            )
+                        )
+                    } else if (showData.getString(KEY_IMAGE) != "null") {
+                        Picasso.get().load(
+                            "https://image.tmdb.org/t/p/$imageSize" + showData.getString(
+                                KEY_IMAGE
+                            )
+                        ).into(holder.showImage)
+                    } else {
+                        Picasso.get().load(
+                            "https://image.tmdb.org/t/p/$imageSize" + showData.getString(
+                                KEY_POSTER
+                            )
+                        ).into(holder.showImage)
+                    }
+                }
+
+                // Check if the object has "title" if not,
+                // it is a series and "name" is used.
+                val name =
+                    if (showData.has(KEY_TITLE)) showData.getString(KEY_TITLE) else showData.getString(
+                        KEY_NAME
+                    )
+
+                // Set the title and description.
+                holder.showTitle.text = name
+
+                // Set the right category color if available.
+                if (gridView == MView.GRID || gridView == MView.LIST) {
+                    if (showData.has(KEY_CATEGORIES)) {
+                        val categoryText = when (showData.getInt(KEY_CATEGORIES)) {
+                            0 -> "Plan to watch"
+                            1 -> "Watched"
+                            2 -> "Watching"
+                            3 -> "On hold"
+                            4 -> "Dropped"
+                            else -> "Unknown"
+                        }
+                        (holder.categoryColorView as TextView).text = categoryText
+                        holder.categoryColorView.setVisibility(View.VISIBLE)
+                    } else {
+                        holder.categoryColorView?.visibility = View.GONE
+                    }
+                }
+
+                // Check if the object has "title" if not,
+                // it is a series and "name" is used.
+                val dateString =
+                    if (showData.has(KEY_DATE_MOVIE)) showData.getString(KEY_DATE_MOVIE) else showData.getString(
+                        KEY_DATE_SERIES
+                    )
+
+                holder.showDate.text = formatDate(dateString, gridView)
+
+                // Only if the shows are presented in a list.
+                if (gridView == MView.LIST) {
+                    holder.showDescription?.text = showData.getString(KEY_DESCRIPTION)
+
+                // Divide the rating in two so it fits in the five stars.
+                    holder.showRating?.rating = showData.getString(KEY_RATING).toFloat() / 2
+
+                    // Remove the [ and ] from the String and split it into the ids.
+                    val genreArray = showData.getString(KEY_GENRES)
+                        .trim('[', ']')
+                        .split(',')
+                        .filter { it.isNotEmpty() }
+                    holder.showGenre?.text = genreNames(context, genreArray, genreHashMap)
+                } else if (gridView == MView.RECOMMENDATIONS) {
+                    // Quickly fade in the poster when loaded.
+                    val animation = AnimationUtils.loadAnimation(
+                        context,
+                        R.anim.fade_in_fast
+                    )
+                    holder.showImage.startAnimation(animation)
+
+                    if (showData.has(KEY_RATING)) {
+                        // Add rating
+                        val voteAverage: Float = showData.getString(KEY_RATING).toFloat()
+                        holder.showRatingText?.text = String.format(Locale.getDefault(), "★%.2f", voteAverage)
+                    }
+                } else if (gridView == MView.ROLES) {
+                    if (showData.has(KEY_CHARACTER)) {
+                        holder.showRole?.text = showData.getString(KEY_CHARACTER)
+                    }
+
+                    if (showData.has(KEY_CREW_JOB)) {
+                        holder.showRole?.text = showData.getString(KEY_CREW_JOB)
+                    }
+                } else if (gridView == MView.FILMOGRAPHY) {
+                    if (showData.getString("media_type").equals("tv")) {
+                        holder.detailButton?.visibility = View.VISIBLE
+                    } else {
+                        holder.detailButton?.visibility = View.GONE
+                    }
+
+                    holder.showRating?.rating = showData.getString(KEY_RATING).toFloat() / 2
+
+                    if (showData.has(KEY_CHARACTER)) {
+                        holder.showRole?.text = showData.getString(KEY_CHARACTER)
+                    }
+
+                    if (showData.has(KEY_CREW_JOB)) {
+                        holder.showRole?.text = showData.getString(KEY_CREW_JOB)
+                    }
+                }
+            } catch (e: JSONException) {
+                e.printStackTrace()
+            }
+
+            // Send the movie data and the user to DetailActivity when clicking on a card.
+            holder.itemView.setOnClickListener { view: View ->
+                val intent = Intent(view.context, DetailActivity::class.java)
+                intent.putExtra("movieObject", showData.toString())
+                if (showData.has(KEY_NAME)) {
+                    intent.putExtra("isMovie", false)
+                }
+                view.context.startActivity(intent)
+            }
+        }
+
+        /**
+         * Fills the card with a show of a paged list. It is bound from the typed model,
+         * the show is only converted to a JSONObject for the DetailActivity when it is clicked.
+         */
+        fun bindShow(
+            holder: ShowItemViewHolder,
+            show: ShowSummary,
+            gridView: MView,
+            genreHashMap: HashMap<String, String?>?
+        ) {
+            val context = holder.showView.context
+
+            // Load the thumbnail with Picasso.
+            val defaultSharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
+            val loadHDImage = defaultSharedPreferences.getBoolean(HD_IMAGE_SIZE, false)
+            val imageSize = if (loadHDImage) "w780" else "w500"
+            val imagePath = if (gridView == MView.GRID || gridView == MView.LIST || gridView == MView.FILMOGRAPHY) {
+                show.posterPath
+            } else {
+                show.backdropPath ?: show.posterPath
+            }
+            if (imagePath == null) {
+                holder.showImage.setImageDrawable(
+                    ResourcesCompat.getDrawable(
+                        context.resources,
+                        R.drawable.ic_broken_image,
+                        null
+                    )
+                )
+            } else {
+                Picasso.get().load("https://image.tmdb.org/t/p/$imageSize$imagePath").into(holder.showImage)
+            }
+
+            // Movies have a title and TV shows a name.
+            holder.showTitle.text = show.title ?: show.name
+
+            // Shows of the paged lists are not in the database, so they have no category.
+            holder.categoryColorView?.visibility = View.GONE
+
+            val dateString = show.releaseDate ?: show.firstAirDate
+            holder.showDate.text = if (dateString != null) formatDate(dateString, gridView) else ""
+
+            if (gridView == MView.LIST) {
+                holder.showDescription?.text = show.overview
+
+                // Divide the rating in two so it fits in the five stars.
+                holder.showRating?.rating = show.voteAverage.toFloat() / 2
+                holder.showGenre?.text = genreNames(context, show.genreIds.map { it.toString() }, genreHashMap)
+            } else if (gridView == MView.RECOMMENDATIONS) {
+                holder.showRatingText?.text = String.format(Locale.getDefault(), "★%.2f", show.voteAverage)
+            }
+
+            // Send the movie data and the user to DetailActivity when clicking on a card.
+            holder.itemView.setOnClickListener { view: View ->
+                val intent = Intent(view.context, DetailActivity::class.java)
+                intent.putExtra("movieObject", show.toJSONObject().toString())
+                if (show.name != null) {
+                    intent.putExtra("isMovie", false)
+                }
+                view.context.startActivity(intent)
+            }
+        }
+
+        /**
+         * Converts the date to the locale, lists and grids show the full date and the other cards only the year.
+         */
+        private fun formatDate(dateString: String, gridView: MView): String {
+            val originalFormat = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault())
+            try {
+                val date = originalFormat.parse(dateString)
+
+                return if (gridView == MView.GRID || gridView == MView.LIST) {
+                    val localFormat =
+                        DateFormat.getDateInstance(DateFormat.DEFAULT, Locale.getDefault())
+                    localFormat.format(date)
+                } else {
+                    val yearFormat = SimpleDateFormat("yyyy")
+                    yearFormat.format(date)
+                }
+            } catch (e: ParseException) {
+                e.printStackTrace()
+            }
+            return dateString
+        }
+
+        /**
+         * Joins the names of the genres, the saved genre list is used for the ids that are not loaded yet.
+         */
+        private fun genreNames(
+            context: Context,
+            genreIds: List<String>,
+            genreHashMap: HashMap<String, String?>?
+        ): String {
+            val sharedPreferences = context.getSharedPreferences(
+                "GenreList", Context.MODE_PRIVATE
+            )
+            return genreIds.joinToString(", ") { id ->
+                genreHashMap?.get(id) ?: sharedPreferences.getString(id, "") ?: ""
+            }
+        }
     }
 }
@@ -0,0 +1,65 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.adapter
+
+import android.view.View
+import android.view.ViewGroup
+import androidx.paging.PagingDataAdapter
+import androidx.recyclerview.widget.DiffUtil
+import com.wirelessalien.android.moviedb.data.ShowSummary
+
+/**
+ * Displays shows that are loaded page by page by a [androidx.paging.Pager].
+ *
+ * New pages are inserted with granular notifications computed by the paging library,
+ * so the list is never rebound as a whole while scrolling.
+ * The loaded pages hold the typed [ShowSummary] models and the cards are bound from
+ * them directly, a show is only converted to a JSONObject when its card is clicked.
+ */
+class ShowPagingAdapter(
+    private val genreList: HashMap<String, String?>?,
+    private val mGridView: ShowBaseAdapter.MView
+) : PagingDataAdapter<ShowSummary, ShowBaseAdapter.ShowItemViewHolder>(SHOW_COMPARATOR) {
+
+    override fun onCreateViewHolder(
+        parent: ViewGroup,
+        viewType: Int
+    ): ShowBaseAdapter.ShowItemViewHolder {
+        return ShowBaseAdapter.createViewHolder(parent, mGridView)
+    }
+
+    override fun onBindViewHolder(holder: ShowBaseAdapter.ShowItemViewHolder, position: Int) {
+        val show = getItem(position) ?: return
+        ShowBaseAdapter.bindShow(holder, show, mGridView, genreList)
+        holder.deleteButton?.visibility = View.GONE
+    }
+
+    companion object {
+        private val SHOW_COMPARATOR = object : DiffUtil.ItemCallback<ShowSummary>() {
+            override fun areItemsTheSame(oldItem: ShowSummary, newItem: ShowSummary): Boolean {
+                return oldItem.id == newItem.id && (oldItem.title == null) == (newItem.title == null)
+            }
+
+            override fun areContentsTheSame(oldItem: ShowSummary, newItem: ShowSummary): Boolean {
+                return oldItem == newItem
+            }
+        }
+    }
+}
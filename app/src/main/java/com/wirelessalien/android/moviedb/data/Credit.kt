@@ -0,0 +1,47 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.data
+
+import org.json.JSONObject
+
+/**
+ * A role of a person in a movie or TV show, either as cast (character) or as crew (job).
+ */
+class Credit(
+    val show: ShowSummary,
+    val character: String?,
+    val job: String?
+) {
+
+    fun toJSONObject(): JSONObject {
+        val json = show.toJSONObject()
+        character?.let { json.put("character", it) }
+        job?.let { json.put("job", it) }
+        return json
+    }
+}
+
+/**
+ * All the roles of a person, as returned by combined_credits.
+ */
+class CombinedCredits(
+    val cast: List<Credit>,
+    val crew: List<Credit>
+)
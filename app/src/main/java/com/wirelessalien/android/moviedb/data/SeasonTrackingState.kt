@@ -0,0 +1,61 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.data
+
+import android.util.SparseArray
+
+/**
+ * The watched episodes of a season together with their rating, watch date and review.
+ * It is loaded with a single query and then updated together with the database,
+ * so binding an episode does not have to access the database.
+ */
+class SeasonTrackingState(private val episodes: SparseArray<EpisodeDbDetails>) {
+
+    fun isWatched(episodeNumber: Int): Boolean {
+        return episodes.indexOfKey(episodeNumber) >= 0
+    }
+
+    fun getDetails(episodeNumber: Int): EpisodeDbDetails? {
+        return episodes.get(episodeNumber)
+    }
+
+    fun setWatched(episodeNumber: Int, watched: Boolean) {
+        if (!watched) {
+            episodes.remove(episodeNumber)
+        } else if (!isWatched(episodeNumber)) {
+            episodes.put(episodeNumber, EpisodeDbDetails(null, null, null))
+        }
+    }
+
+    /**
+     * Mirrors MovieDatabaseHelper.addOrUpdateEpisode: a rating of 0 and null values
+     * keep the values that were already stored.
+     */
+    fun update(episodeNumber: Int, rating: Float, watchDate: String?, review: String?) {
+        val current = episodes.get(episodeNumber)
+        episodes.put(
+            episodeNumber, EpisodeDbDetails(
+                if (rating.toDouble() != 0.0) rating else current?.rating,
+                watchDate ?: current?.watchDate,
+                review ?: current?.review
+            )
+        )
+    }
+}
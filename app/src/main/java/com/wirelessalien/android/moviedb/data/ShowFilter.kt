@@ -0,0 +1,35 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.data
+
+/**
+ * The filter and sort settings for the saved shows, as chosen in the FilterActivity.
+ *
+ * @param sort the tag of the chosen sort order, or null to show the newest shows first.
+ * @param categories the categories to show, all categories are shown if it is empty.
+ */
+class ShowFilter(
+    val sort: String?,
+    val categories: List<Int>,
+    val showMovies: Boolean,
+    val showSeries: Boolean,
+    val withGenres: List<Int>,
+    val withoutGenres: List<Int>
+)
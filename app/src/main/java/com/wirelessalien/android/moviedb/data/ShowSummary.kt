@@ -0,0 +1,74 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.data
+
+import org.json.JSONArray
+import org.json.JSONObject
+
+/**
+ * A movie or TV show as it appears in a list (discover, search, trending etc.),
+ * limited to the fields that are actually displayed.
+ */
+data class ShowSummary(
+    val id: Int,
+    val mediaType: String?,
+    val title: String?,
+    val name: String?,
+    val posterPath: String?,
+    val backdropPath: String?,
+    var overview: String,
+    val voteAverage: Double,
+    val releaseDate: String?,
+    val firstAirDate: String?,
+    val genreIds: List<Int>
+) {
+
+    /**
+     * Converts the show to the JSONObject layout that is used by the adapters
+     * and passed on to the DetailActivity. Movies only have a title and a
+     * release date, TV shows only a name and a first air date.
+     * The paged lists only convert a show when it is opened, the short lists of the
+     * home screen and the filmography still keep the converted objects.
+     */
+    fun toJSONObject(): JSONObject {
+        val json = JSONObject()
+        json.put("id", id)
+        mediaType?.let { json.put("media_type", it) }
+        title?.let { json.put("title", it) }
+        name?.let { json.put("name", it) }
+        json.put("poster_path", posterPath ?: JSONObject.NULL)
+        json.put("backdrop_path", backdropPath ?: JSONObject.NULL)
+        json.put("overview", overview)
+        json.put("vote_average", voteAverage)
+        releaseDate?.let { json.put("release_date", it) }
+        firstAirDate?.let { json.put("first_air_date", it) }
+        json.put("genre_ids", JSONArray(genreIds))
+        return json
+    }
+}
+
+/**
+ * One page of a paged list together with the position of that page.
+ */
+class ShowPage(
+    val page: Int,
+    val totalPages: Int,
+    val results: List<ShowSummary>
+)
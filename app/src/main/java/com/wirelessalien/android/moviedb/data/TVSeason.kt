@@ -29,6 +29,8 @@ class TVSeason {
     private var posterPath: String? = null
     var seasonNumber = 0
     var voteAverage = 0.0
+    var episodes: List<Episode> = emptyList()
+
     fun setPosterPath(posterPath: String?) {
         this.posterPath = posterPath
     }
@@ -21,33 +21,24 @@ package com.wirelessalien.android.moviedb.fragment
 
 import android.content.Context
 import android.content.SharedPreferences
-import android.os.Bundle
 import android.view.View
 import androidx.fragment.app.Fragment
+import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
-import com.wirelessalien.android.moviedb.helper.ConfigHelper
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
 import org.json.JSONException
 import org.json.JSONObject
-import java.io.BufferedReader
-import java.io.IOException
-import java.io.InputStreamReader
-import java.net.URL
 
 /**
  * This class contains some basic functionality that would
  * otherwise be duplicated in multiple fragments.
  */
 open class BaseFragment : Fragment() {
-    private var API_KEY: String? = null
-
     lateinit var mShowView: RecyclerView
 
     open lateinit var mShowAdapter: ShowBaseAdapter
@@ -64,10 +55,12 @@ open class BaseFragment : Fragment() {
     open var mSearchView = false
     protected open lateinit var preferences: SharedPreferences
     var mGenreListLoaded = false
-    override fun onCreate(savedInstanceState: Bundle?) {
-        super.onCreate(savedInstanceState)
-        API_KEY = ConfigHelper.getConfigValue(requireContext().applicationContext, "api_key")
-    }
+
+    /**
+     * The client that is shared by the whole application.
+     */
+    protected val tmdbClient: TmdbClient
+        get() = TmdbClient.getInstance(requireContext())
 
     open fun doNetworkWork() {}
 
@@ -130,37 +123,28 @@ open class BaseFragment : Fragment() {
      * Uses Coroutine to retrieve the id to genre mapping.
      */
     fun fetchGenreList(mGenreType: String) {
-        CoroutineScope(Dispatchers.Main).launch {
+        lifecycleScope.launch {
             val response = fetchGenreListFromNetwork(mGenreType)
             handleResponse(response, mGenreType)
         }
     }
 
     private suspend fun fetchGenreListFromNetwork(mGenreType: String): String? {
-        return withContext(Dispatchers.IO) {
-            var line: String?
-            val stringBuilder = StringBuilder()
-            try {
-                val url = URL("https://api.themoviedb.org/3/genre/$mGenreType/list?api_key=$API_KEY")
-                val urlConnection = url.openConnection()
-                try {
-                    val bufferedReader = BufferedReader(InputStreamReader(urlConnection.getInputStream()))
-                    while (bufferedReader.readLine().also { line = it } != null) {
-                        stringBuilder.append(line).append("\n")
-                    }
-                    bufferedReader.close()
-                    stringBuilder.toString()
-                } catch (ioe: IOException) {
-                    ioe.printStackTrace()
-                    null
-                }
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-                null
-            }
+        return try {
+            tmdbClient.get("3/genre/$mGenreType/list")
+        } catch (e: Exception) {
+            e.printStackTrace()
+            null
         }
     }
 
+    /**
+     * Called when the genre names are available, so the shows can display them.
+     */
+    protected open fun onGenreListLoaded() {
+        mShowAdapter.notifyDataSetChanged()
+    }
+
     private fun handleResponse(response: String?, mGenreType: String) {
         if (isAdded && !response.isNullOrEmpty()) {
             val sharedPreferences = requireContext().applicationContext
@@ -179,7 +163,7 @@ open class BaseFragment : Fragment() {
                 }
                 prefsEditor.putString(mGenreType+ "GenreJSONArrayList", genreArray.toString())
                 prefsEditor.commit()
-                mShowAdapter.notifyDataSetChanged()
+                onGenreListLoaded()
                 mGenreListLoaded = true
             } catch (je: JSONException) {
                 je.printStackTrace()
@@ -47,16 +47,12 @@ import com.wirelessalien.android.moviedb.activity.BaseActivity
 import com.wirelessalien.android.moviedb.activity.PersonActivity
 import com.wirelessalien.android.moviedb.adapter.NowPlayingMovieAdapter
 import com.wirelessalien.android.moviedb.adapter.TrendingPagerAdapter
-import com.wirelessalien.android.moviedb.helper.ConfigHelper
-import kotlinx.coroutines.Dispatchers
+import com.wirelessalien.android.moviedb.data.ShowSummary
+import com.wirelessalien.android.moviedb.tmdb.TmdbDecoder
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
 import org.json.JSONException
 import org.json.JSONObject
 import java.io.IOException
-import java.net.URL
 import java.util.Optional
 
 class HomeFragment : BaseFragment() {
@@ -66,7 +62,6 @@ class HomeFragment : BaseFragment() {
     private lateinit var tvShowView: RecyclerView
     private lateinit var mUpcomingTVShowView: RecyclerView
     private lateinit var mUpcomingMovieView: RecyclerView
-    private var api_key: String? = null
     private var mShowListLoaded = false
     private lateinit var mHomeShowAdapter: NowPlayingMovieAdapter
     private lateinit var mTVShowArrayList: ArrayList<JSONObject>
@@ -85,10 +80,6 @@ class HomeFragment : BaseFragment() {
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         setHasOptionsMenu(true)
-        api_key = ConfigHelper.getConfigValue(
-            requireContext().applicationContext,
-            "api_read_access_token"
-        )
         preferences = PreferenceManager.getDefaultSharedPreferences(requireContext())
         createShowList()
     }
@@ -260,46 +251,19 @@ class HomeFragment : BaseFragment() {
     }
 
     private suspend fun fetchNowPlayingMovies() {
-        val response = withContext(Dispatchers.IO) {
-            var response: String? = null
-            try {
-                val url = URL(
-                    "https://api.themoviedb.org/3/movie/now_playing" + BaseActivity.getLanguageParameter2(
-                        requireContext()
-                    ) + "&page=1"
-                )
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("Content-Type", "application/json;charset=utf-8")
-                    .addHeader("Authorization", "Bearer $api_key")
-                    .build()
-                client.newCall(request).execute().use { res ->
-                    if (res.body() != null) {
-                        response = res.body()!!.string()
-                    }
-                }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            }
-            response
-        }
+        val response = fetchShowsFromNetwork("3/movie/now_playing", mapOf("page" to 1))
 
         if (isAdded && !response.isNullOrEmpty()) {
             handleMovieResponse(response)
         }
     }
 
-    private fun handleMovieResponse(response: String?) {
+    private fun handleMovieResponse(response: List<ShowSummary>?) {
         if (isAdded && !response.isNullOrEmpty()) {
             try {
-                val reader = JSONObject(response)
-                val arrayData = reader.getJSONArray("results")
                 mHomeShowArrayList.clear()
-                for (i in 0 until arrayData.length()) {
-                    val websiteData = arrayData.getJSONObject(i)
-                    mHomeShowArrayList.add(websiteData)
+                for (show in response) {
+                    mHomeShowArrayList.add(show.toJSONObject())
                 }
                 mShowView.adapter = mHomeShowAdapter
                 mShowListLoaded = true
@@ -313,46 +277,19 @@ class HomeFragment : BaseFragment() {
     }
 
     private suspend fun fetchNowPlayingTVShows() {
-        val response = withContext(Dispatchers.IO) {
-            var response: String? = null
-            try {
-                val url = URL(
-                    "https://api.themoviedb.org/3/tv/airing_today" + BaseActivity.getLanguageParameter2(
-                        requireContext()
-                    ) + "&page=1"
-                )
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("Content-Type", "application/json;charset=utf-8")
-                    .addHeader("Authorization", "Bearer $api_key")
-                    .build()
-                client.newCall(request).execute().use { res ->
-                    if (res.body() != null) {
-                        response = res.body()!!.string()
-                    }
-                }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            }
-            response
-        }
+        val response = fetchShowsFromNetwork("3/tv/airing_today", mapOf("page" to 1))
 
         if (isAdded && !response.isNullOrEmpty()) {
             handleTVResponse(response)
         }
     }
 
-    private fun handleTVResponse(response: String?) {
+    private fun handleTVResponse(response: List<ShowSummary>?) {
         if (isAdded && !response.isNullOrEmpty()) {
             try {
-                val reader = JSONObject(response)
-                val arrayData = reader.getJSONArray("results")
                 mTVShowArrayList.clear()
-                for (i in 0 until arrayData.length()) {
-                    val websiteData = arrayData.getJSONObject(i)
-                    mTVShowArrayList.add(websiteData)
+                for (show in response) {
+                    mTVShowArrayList.add(show.toJSONObject())
                 }
                 tvShowView.adapter = mTVShowAdapter
                 mShowListLoaded = true
@@ -366,46 +303,19 @@ class HomeFragment : BaseFragment() {
     }
 
     private suspend fun fetchUpcomingTVShows() {
-        val response = withContext(Dispatchers.IO) {
-            var response: String? = null
-            try {
-                val url = URL(
-                    "https://api.themoviedb.org/3/tv/on_the_air" + BaseActivity.getLanguageParameter2(
-                        requireContext()
-                    ) + "&page=1"
-                )
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("Content-Type", "application/json;charset=utf-8")
-                    .addHeader("Authorization", "Bearer $api_key")
-                    .build()
-                client.newCall(request).execute().use { res ->
-                    if (res.body() != null) {
-                        response = res.body()!!.string()
-                    }
-                }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            }
-            response
-        }
+        val response = fetchShowsFromNetwork("3/tv/on_the_air", mapOf("page" to 1))
 
         if (isAdded && !response.isNullOrEmpty()) {
             handleUpcomingTVResponse(response)
         }
     }
 
-    private fun handleUpcomingTVResponse(response: String?) {
+    private fun handleUpcomingTVResponse(response: List<ShowSummary>?) {
         if (isAdded && !response.isNullOrEmpty()) {
             try {
-                val reader = JSONObject(response)
-                val arrayData = reader.getJSONArray("results")
                 mUpcomingTVShowArrayList.clear()
-                for (i in 0 until arrayData.length()) {
-                    val websiteData = arrayData.getJSONObject(i)
-                    mUpcomingTVShowArrayList.add(websiteData)
+                for (show in response) {
+                    mUpcomingTVShowArrayList.add(show.toJSONObject())
                 }
                 mUpcomingTVShowView.adapter = mUpcomingTVAdapter
                 mShowListLoaded = true
@@ -419,45 +329,18 @@ class HomeFragment : BaseFragment() {
     }
 
     private suspend fun fetchUpcomingMovies() {
-        val response = withContext(Dispatchers.IO) {
-            var response: String? = null
-            try {
-                val url = URL(
-                    "https://api.themoviedb.org/3/movie/upcoming" + BaseActivity.getLanguageParameter2(
-                        requireContext()
-                    ) + "&page=1"
-                )
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("Content-Type", "application/json;charset=utf-8")
-                    .addHeader("Authorization", "Bearer $api_key")
-                    .build()
-                client.newCall(request).execute().use { res ->
-                    if (res.body() != null) {
-                        response = res.body()!!.string()
-                    }
-                }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            }
-            response
-        }
+        val response = fetchShowsFromNetwork("3/movie/upcoming", mapOf("page" to 1))
 
         if (isAdded && !response.isNullOrEmpty()) {
             handleUpcomingMovieResponse(response)
         }
     }
 
-    private fun handleUpcomingMovieResponse(response: String?) {
+    private fun handleUpcomingMovieResponse(response: List<ShowSummary>?) {
         if (isAdded && !response.isNullOrEmpty()) {
             try {
-                val reader = JSONObject(response)
-                val arrayData = reader.getJSONArray("results")
-                for (i in 0 until arrayData.length()) {
-                    val websiteData = arrayData.getJSONObject(i)
-                    mUpcomingMovieArrayList.add(websiteData)
+                for (show in response) {
+                    mUpcomingMovieArrayList.add(show.toJSONObject())
                 }
                 mUpcomingMovieView.adapter = mUpcomingMovieAdapter
                 mShowListLoaded = true
@@ -471,49 +354,20 @@ class HomeFragment : BaseFragment() {
     }
 
     private suspend fun fetchTrendingList() {
-        val response = withContext(Dispatchers.IO) {
-            var response: String? = null
-            try {
-                val url = URL(
-                    "https://api.themoviedb.org/3/trending/all/day" + BaseActivity.getLanguageParameter2(
-                        requireContext()
-                    )
-                )
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("Content-Type", "application/json;charset=utf-8")
-                    .addHeader("Authorization", "Bearer $api_key")
-                    .build()
-                client.newCall(request).execute().use { res ->
-                    if (res.body() != null) {
-                        response = res.body()!!.string()
-                    }
-                }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            }
-            response
-        }
+        val response = fetchShowsFromNetwork("3/trending/all/day")
 
         if (isAdded && !response.isNullOrEmpty()) {
             handleTrendingResponse(response)
         }
     }
 
-    private fun handleTrendingResponse(response: String?) {
+    private fun handleTrendingResponse(response: List<ShowSummary>?) {
         if (isAdded && !response.isNullOrEmpty()) {
             val trendingArrayList = ArrayList<JSONObject>()
             try {
-                val reader = JSONObject(response)
-                val arrayData = reader.getJSONArray("results")
-                trendingArrayList.clear()
-                for (i in 0 until arrayData.length()) {
-                    val websiteData = arrayData.getJSONObject(i)
-                    val mediaType = websiteData.getString("media_type")
-                    if (mediaType == "movie" || mediaType == "tv") {
-                        trendingArrayList.add(websiteData)
+                for (show in response) {
+                    if (show.mediaType == "movie" || show.mediaType == "tv") {
+                        trendingArrayList.add(show.toJSONObject())
                     }
                 }
                 val adapter = trandingRv.adapter as TrendingPagerAdapter?
@@ -535,7 +389,7 @@ class HomeFragment : BaseFragment() {
         )
         progressBar.ifPresent { bar: ProgressBar -> bar.visibility = View.VISIBLE }
         lifecycleScope.launch {
-            val response = withContext(Dispatchers.IO) { doInBackground(query) }
+            val response = doInBackground(query)
             if (response != null) {
                 onPostExecute(response)
             }
@@ -543,33 +397,48 @@ class HomeFragment : BaseFragment() {
         }
     }
 
-    private fun doInBackground(query: String): String? {
-        var response: String? = null
-        try {
-            val url = URL(
-                "https://api.themoviedb.org/3/search/multi?"
-                        + "query=" + query + "&page=" + currentSearchPage
+    private suspend fun doInBackground(query: String): String? {
+        return fetchFromNetwork(
+            "3/search/multi",
+            mapOf("query" to query, "page" to currentSearchPage),
+            withLanguage = false
+        )
+    }
+
+    /**
+     * Retrieves a page of the API through the shared client.
+     */
+    private suspend fun fetchFromNetwork(
+        path: String,
+        params: Map<String, Any?> = emptyMap(),
+        withLanguage: Boolean = true
+    ): String? {
+        return try {
+            tmdbClient.get(path, params, withLanguage = withLanguage)
+        } catch (e: IOException) {
+            e.printStackTrace()
+            null
+        }
+    }
+
+    /**
+     * Retrieves a list of shows and decodes it while it is being received.
+     */
+    private suspend fun fetchShowsFromNetwork(
+        path: String,
+        params: Map<String, Any?> = emptyMap()
+    ): List<ShowSummary>? {
+        return try {
+            tmdbClient.getDecoded(
+                path,
+                params,
+                withLanguage = true,
+                decoder = TmdbDecoder::readResults
             )
-            val client = OkHttpClient()
-            val request = Request.Builder()
-                .url(url)
-                .get()
-                .addHeader("Content-Type", "application/json;charset=utf-8")
-                .addHeader("Authorization", "Bearer $api_key")
-                .build()
-            try {
-                client.newCall(request).execute().use { res ->
-                    if (res.body() != null) {
-                        response = res.body()!!.string()
-                    }
-                }
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-            }
-        } catch (ioe: IOException) {
-            ioe.printStackTrace()
+        } catch (e: IOException) {
+            e.printStackTrace()
+            null
         }
-        return response
     }
 
     private fun onPostExecute(response: String) {
@@ -100,7 +100,7 @@ class LastEpisodeFragment : Fragment() {
                 val dateFormat = DateFormat.getDateInstance(DateFormat.DEFAULT, Locale.getDefault())
                 val formattedDate = dateFormat.format(date)
                 binding!!.episodeAirDate.text = formattedDate
-                databaseHelper = MovieDatabaseHelper(context)
+                databaseHelper = MovieDatabaseHelper.getInstance(requireContext())
                 if (databaseHelper!!.isEpisodeInDatabase(
                         movieId,
                         seasonNumber,
@@ -154,7 +154,7 @@ class LastEpisodeFragment : Fragment() {
                 }
                 binding!!.episodeWathchBtn.setOnClickListener {
                     if (databaseHelper == null) {
-                        databaseHelper = MovieDatabaseHelper(context)
+                        databaseHelper = MovieDatabaseHelper.getInstance(requireContext())
                     }
                     if (databaseHelper!!.isEpisodeInDatabase(
                             movieId,
@@ -43,13 +43,13 @@ import com.wirelessalien.android.moviedb.adapter.ListDataAdapter
 import com.wirelessalien.android.moviedb.data.ListData
 import com.wirelessalien.android.moviedb.data.ListDetailsData
 import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
+import com.wirelessalien.android.moviedb.tmdb.TmdbPriority
 import com.wirelessalien.android.moviedb.tmdb.account.CreateList
 import com.wirelessalien.android.moviedb.tmdb.account.FetchList
 import com.wirelessalien.android.moviedb.tmdb.account.GetAllListData
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import org.json.JSONException
 import org.json.JSONObject
 
 class ListBottomSheetDialogFragment(
@@ -111,7 +111,7 @@ class ListBottomSheetDialogFragment(
         if (fetchList) {
             lifecycleScope.launch {
                 val listData: MutableList<ListDetailsData> = withContext(Dispatchers.IO) {
-                    val listdatabaseHelper = ListDatabaseHelper(context)
+                    val listdatabaseHelper = ListDatabaseHelper.getInstance(requireContext())
                     val listdb = listdatabaseHelper.readableDatabase
                     val cursor = listdb.query(
                         true,
@@ -162,7 +162,7 @@ class ListBottomSheetDialogFragment(
         val selection =
             ListDatabaseHelper.COLUMN_MOVIE_ID + " = ? AND " + ListDatabaseHelper.COLUMN_LIST_NAME + " = ?"
         val selectionArgs = arrayOf(movieId.toString(), listName)
-        val listdatabaseHelper = ListDatabaseHelper(context)
+        val listdatabaseHelper = ListDatabaseHelper.getInstance(requireContext())
         val listdb = listdatabaseHelper.readableDatabase
         val projection = arrayOf(
             ListDatabaseHelper.COLUMN_MOVIE_ID,
@@ -184,7 +184,7 @@ class ListBottomSheetDialogFragment(
 
     //fetch list function
     private fun fetchList() {
-        val listDatabaseHelper = ListDatabaseHelper(context)
+        val listDatabaseHelper = ListDatabaseHelper.getInstance(requireContext())
         val db = listDatabaseHelper.readableDatabase
         val cursor = db.rawQuery("SELECT * FROM " + ListDatabaseHelper.TABLE_LISTS, null)
         if (cursor.count > 0) {
@@ -196,7 +196,7 @@ class ListBottomSheetDialogFragment(
                 .setCancelable(false)
                 .create()
             progressDialog.show()
-            lifecycleScope.launch {
+            lifecycleScope.launch(TmdbPriority.BACKGROUND) {
                 val fetchList =
                     FetchList(context, object : FetchList.OnListFetchListener {
                         override fun onListFetch(listData: List<ListData>?) {
@@ -211,19 +211,13 @@ class ListBottomSheetDialogFragment(
                                                 GetAllListData.OnFetchListDetailsListener {
                                                 override fun onFetchListDetails(listDetailsData: ArrayList<JSONObject>?) {
                                                     if (listDetailsData != null) {
-                                                        for (item in listDetailsData) {
-                                                            try {
-                                                                val movieId = item.getInt("id")
-                                                                val mediaType =
-                                                                    item.getString("media_type")
-                                                                listDatabaseHelper.addListDetails(
-                                                                    data.id,
-                                                                    data.name,
-                                                                    movieId,
-                                                                    mediaType
-                                                                )
-                                                            } catch (e: JSONException) {
-                                                                e.printStackTrace()
+                                                        val invalidItems = listDatabaseHelper.addListDetails(
+                                                            data.id,
+                                                            data.name,
+                                                            listDetailsData
+                                                        )
+                                                        if (invalidItems > 0) {
+                                                            activity?.runOnUiThread {
                                                                 progressDialog.dismiss()
                                                                 Toast.makeText(
                                                                     context,
@@ -26,8 +26,6 @@ import android.content.DialogInterface
 import android.content.Intent
 import android.content.pm.PackageManager
 import android.database.Cursor
-import android.database.SQLException
-import android.database.sqlite.SQLiteDatabase
 import android.os.Build
 import android.os.Bundle
 import android.view.LayoutInflater
@@ -52,14 +50,11 @@ import com.wirelessalien.android.moviedb.activity.ExportActivity
 import com.wirelessalien.android.moviedb.activity.FilterActivity
 import com.wirelessalien.android.moviedb.activity.ImportActivity
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
+import com.wirelessalien.android.moviedb.data.ShowFilter
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
 import com.wirelessalien.android.moviedb.listener.AdapterDataChangedListener
 import org.json.JSONException
 import org.json.JSONObject
-import java.text.ParseException
-import java.text.SimpleDateFormat
-import java.util.Date
-import java.util.Locale
 
 /**
  *
@@ -68,10 +63,8 @@ import java.util.Locale
 class ListFragment : BaseFragment(), AdapterDataChangedListener {
     private val REQUEST_CODE_ASK_PERMISSIONS_EXPORT = 123
     private val REQUEST_CODE_ASK_PERMISSIONS_IMPORT = 124
-    private lateinit var mShowBackupArrayList: ArrayList<JSONObject>
-    private lateinit var mSearchShowBackupArrayList: ArrayList<JSONObject>
+    private var mSearchQuery: String? = null
     private var usedFilter = false
-    private lateinit var mDatabase: SQLiteDatabase
     private lateinit var mDatabaseHelper: MovieDatabaseHelper
 
     // Used to restore scroll position
@@ -83,15 +76,17 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
-        mDatabaseHelper = MovieDatabaseHelper(requireContext().applicationContext)
+        mDatabaseHelper = MovieDatabaseHelper.getInstance(requireContext().applicationContext)
 
         filterActivityResultLauncher = registerForActivityResult(
             ActivityResultContracts.StartActivityForResult()
         ) { result ->
             if (result.resultCode == Activity.RESULT_OK) {
                 usedFilter = true
-                filterAdapter()
                 updateShowViewAdapter()
+                if (mSearchView) {
+                    filterAdapter()
+                }
             }
         }
 
@@ -231,7 +226,7 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
      * Create and set the new adapter to update the show view.
      */
     private fun updateShowViewAdapter() {
-        mShowArrayList = getShowsFromDatabase(null, MovieDatabaseHelper.COLUMN_ID + " DESC")
+        mShowArrayList = getShowsFromDatabase(null, if (usedFilter) loadFilter() else null)
         mShowAdapter = ShowBaseAdapter(
             mShowArrayList, mShowGenreList,
             if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
@@ -240,13 +235,7 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
             false
         )
         if (!mSearchView) {
-            if (usedFilter) {
-                // Also change the backup.
-                mShowBackupArrayList = mShowArrayList.clone() as ArrayList<JSONObject>
-                filterAdapter()
-            } else {
-                mShowView.adapter = mShowAdapter
-            }
+            mShowView.adapter = mShowAdapter
             if (mScrollPosition != null) {
                 mShowView.scrollToPosition(mScrollPosition!!)
             }
@@ -254,355 +243,41 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
     }
 
     /**
-     * Filters the shows based on the settings in the FilterActivity.
+     * Reads the filter and sort settings that the FilterActivity stored.
      */
-    private fun filterAdapter() {
-        // Get the parameters from the filter activity and reload the adapter
+    private fun loadFilter(): ShowFilter {
         val sharedPreferences =
             requireActivity().getSharedPreferences(FilterActivity.FILTER_PREFERENCES, Context.MODE_PRIVATE)
-
-        // Clone the ArrayList as the original needs to be kept
-        // in case the filter settings are changed (and removed shows might need to be shown again).
-        if (!mSearchView) {
-            mShowBackupArrayList = (mShowArrayList.clone() as ArrayList<*>).filterNotNull() as ArrayList<JSONObject>
-        } else {
-            mSearchShowArrayList = (mSearchShowArrayList.clone() as ArrayList<*>).filterNotNull() as ArrayList<JSONObject>
-        }
         val showMovie = FilterActivity.convertStringToArrayList(
             sharedPreferences.getString(FilterActivity.FILTER_SHOW_MOVIE, null), ", "
         )
-        if (showMovie != null && (!showMovie.contains("movie") || !showMovie.contains("tv"))) {
-            if (mSearchView) {
-                mSearchShowArrayList.removeIf { showObject: JSONObject ->
-                    val isTV = showObject.optString(ShowBaseAdapter.KEY_NAME) == "0"
-                    showMovie.contains("movie") && isTV || showMovie.contains("tv") && !isTV
-                }
-            } else {
-                mShowArrayList.removeIf { showObject: JSONObject ->
-                    val isTV = showObject.optString(ShowBaseAdapter.KEY_NAME) == "0"
-                    showMovie.contains("movie") && isTV || showMovie.contains("tv") && !isTV
-                }
-            }
-        }
-
-
-        // Sort the ArrayList based on the chosen order.
-        var sortPreference: String?
-        if (sharedPreferences.getString(FilterActivity.FILTER_SORT, null)
-                .also { sortPreference = it } != null
-        ) {
-            when (sortPreference) {
-                "best_rated" -> {
-                    if (mSearchView) {
-                        mSearchShowArrayList.sortWith { firstObject: JSONObject, secondObject: JSONObject ->
-                            firstObject
-                                .optInt(ShowBaseAdapter.KEY_RATING).compareTo(
-                                    secondObject
-                                        .optInt(ShowBaseAdapter.KEY_RATING)
-                                ) * -1
-                        }
-                    } else {
-                        mShowArrayList.sortWith { firstObject: JSONObject, secondObject: JSONObject ->
-                            firstObject
-                                .optInt(ShowBaseAdapter.KEY_RATING).compareTo(
-                                    secondObject
-                                        .optInt(ShowBaseAdapter.KEY_RATING)
-                                ) * -1
-                        }
-                    }
-                }
-
-                "release_date" -> {
-                    if (mSearchView) {
-                        mSearchShowArrayList.sortWith(java.util.Comparator<JSONObject> { firstObject: JSONObject, secondObject: JSONObject ->
-                            val simpleDateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.US)
-                            val firstDate: Date?
-                            val secondDate: Date?
-                            try {
-                                firstDate =
-                                    simpleDateFormat.parse(firstObject.optString(ShowBaseAdapter.KEY_RELEASE_DATE))
-                                secondDate =
-                                    simpleDateFormat.parse(secondObject.optString(ShowBaseAdapter.KEY_RELEASE_DATE))
-                            } catch (e: ParseException) {
-                                e.printStackTrace()
-                                return@Comparator 0
-                            }
-                            if (firstDate.time > secondDate.time) -1 else 1
-                        })
-                    } else {
-                        mShowArrayList.sortWith(java.util.Comparator<JSONObject> { firstObject: JSONObject, secondObject: JSONObject ->
-                            val simpleDateFormat = SimpleDateFormat("yyyy-MM-dd", Locale.US)
-                            val firstDate: Date?
-                            val secondDate: Date?
-                            try {
-                                firstDate =
-                                    simpleDateFormat.parse(firstObject.optString(ShowBaseAdapter.KEY_RELEASE_DATE))
-                                secondDate =
-                                    simpleDateFormat.parse(secondObject.optString(ShowBaseAdapter.KEY_RELEASE_DATE))
-                            } catch (e: ParseException) {
-                                e.printStackTrace()
-                                return@Comparator 0
-                            }
-                            if (firstDate.time > secondDate.time) -1 else 1
-                        })
-                    }
-                }
-
-                "alphabetic_order" -> {
-                    if (mSearchView) {
-                        mSearchShowArrayList.sortWith { firstObject: JSONObject, secondObject: JSONObject ->
-                            firstObject.optString(ShowBaseAdapter.KEY_TITLE)
-                                .compareTo(
-                                    secondObject.optString(ShowBaseAdapter.KEY_TITLE),
-                                    ignoreCase = true
-                                )
-                        }
-                    } else {
-                        mShowArrayList.sortWith { firstObject: JSONObject, secondObject: JSONObject ->
-                            firstObject.optString(ShowBaseAdapter.KEY_TITLE)
-                                .compareTo(
-                                    secondObject.optString(ShowBaseAdapter.KEY_TITLE),
-                                    ignoreCase = true
-                                )
-                        }
-                    }
-                }
-
-                "start_date_order" -> {
-                    val simpleDateFormat = SimpleDateFormat("dd-MM-yyyy", Locale.US)
-                    if (mSearchView) {
-                        mSearchShowArrayList.sortWith(java.util.Comparator<JSONObject> { firstObject: JSONObject, secondObject: JSONObject ->
-                            val firstDate: Date?
-                            val secondDate: Date?
-                            try {
-                                val firstDateString =
-                                    firstObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE)
-                                val secondDateString =
-                                    secondObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE)
-                                firstDate = if (firstDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(firstDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                                secondDate = if (secondDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(secondDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                            } catch (e: ParseException) {
-                                e.printStackTrace()
-                                return@Comparator 0
-                            }
-                            // * -1 is to make the order descending instead of ascending.
-                            if (firstDate != null) {
-                                return@Comparator firstDate.compareTo(secondDate) * -1
-                            } else if (secondDate != null) {
-                                return@Comparator -1
-                            }
-                            0
-                        })
-                    } else {
-                        mShowArrayList.sortWith(java.util.Comparator<JSONObject> { firstObject: JSONObject, secondObject: JSONObject ->
-                            val firstDate: Date?
-                            val secondDate: Date?
-                            try {
-                                val firstDateString =
-                                    firstObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE)
-                                val secondDateString =
-                                    secondObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE)
-                                firstDate = if (firstDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(firstDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                                secondDate = if (secondDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(secondDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                            } catch (e: ParseException) {
-                                e.printStackTrace()
-                                return@Comparator 0
-                            }
-                            if (firstDate == null) return@Comparator if (secondDate == null) 0 else 1
-                            if (secondDate == null) return@Comparator -1
-                            firstDate.compareTo(secondDate) * -1
-                        })
-                    }
-                }
-
-                "finish_date_order" -> {
-                    val simpleDateFormat = SimpleDateFormat("dd-MM-yyyy", Locale.US)
-                    if (mSearchView) {
-                        mSearchShowArrayList.sortWith(java.util.Comparator<JSONObject> { firstObject: JSONObject, secondObject: JSONObject ->
-                            val firstDate: Date?
-                            val secondDate: Date?
-                            try {
-                                val firstDateString =
-                                    firstObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_FINISH_DATE)
-                                val secondDateString =
-                                    secondObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_FINISH_DATE)
-                                firstDate = if (firstDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(firstDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                                secondDate = if (secondDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(secondDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                            } catch (e: ParseException) {
-                                e.printStackTrace()
-                                return@Comparator 0
-                            }
-                            if (firstDate == null) return@Comparator if (secondDate == null) 0 else 1
-                            if (secondDate == null) return@Comparator -1
-                            firstDate.compareTo(secondDate) * -1
-                        })
-                    } else {
-                        mShowArrayList.sortWith(java.util.Comparator<JSONObject> { firstObject: JSONObject, secondObject: JSONObject ->
-                            val firstDate: Date?
-                            val secondDate: Date?
-                            try {
-                                val firstDateString =
-                                    firstObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_FINISH_DATE)
-                                val secondDateString =
-                                    secondObject.optString(MovieDatabaseHelper.COLUMN_PERSONAL_FINISH_DATE)
-                                firstDate = if (firstDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(firstDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                                secondDate = if (secondDateString.isNotEmpty()) {
-                                    simpleDateFormat.parse(secondDateString)
-                                } else {
-                                    Date(Long.MIN_VALUE)
-                                }
-                            } catch (e: ParseException) {
-                                e.printStackTrace()
-                                return@Comparator 0
-                            }
-                            if (firstDate == null) return@Comparator if (secondDate == null) 0 else 1
-                            if (secondDate == null) return@Comparator -1
-                            firstDate.compareTo(secondDate) * -1
-                        })
-                    }
-                }
-            }
-        }
-
-
-        // Remove the movies that should not be displayed from the list.
+        val onlyMovies = showMovie != null && showMovie.contains("movie") && !showMovie.contains("tv")
+        val onlySeries = showMovie != null && showMovie.contains("tv") && !showMovie.contains("movie")
         val selectedCategories = FilterActivity.convertStringToArrayList(
-            sharedPreferences.getString(
-                FilterActivity.FILTER_CATEGORIES,
-                null
-            ), ", "
+            sharedPreferences.getString(FilterActivity.FILTER_CATEGORIES, null), ", "
         )
-        // Filter the search list if the user was searching, otherwise filter the normal list.
-        if (mSearchView && selectedCategories != null) {
-            val iterator = mSearchShowArrayList.iterator()
-            while (iterator.hasNext()) {
-                val columnWatched = iterator.next()
-                    .optInt(MovieDatabaseHelper.COLUMN_CATEGORIES)
-                var shouldKeep = false
-                for (i in selectedCategories.indices) {
-                    if (columnWatched == DetailActivity.getCategoryNumber(selectedCategories[i])) {
-                        shouldKeep = true
-                        break
-                    }
-                }
-                if (!shouldKeep) {
-                    iterator.remove()
-                }
-            }
-        } else if (selectedCategories != null) {
-            val iterator = mShowArrayList.iterator()
-            while (iterator.hasNext()) {
-                val columnWatched = iterator.next()
-                    .optInt(MovieDatabaseHelper.COLUMN_CATEGORIES)
-                var shouldKeep = false
-                for (i in selectedCategories.indices) {
-                    if (columnWatched == DetailActivity.getCategoryNumber(selectedCategories[i])) {
-                        shouldKeep = true
-                        break
-                    }
-                }
-                if (!shouldKeep) {
-                    iterator.remove()
-                }
-            }
-        }
-
-        // Remove shows that do not contain certain genres from the list.
-        val withGenres = FilterActivity.convertStringToIntegerArrayList(
-            sharedPreferences.getString(
-                FilterActivity.FILTER_WITH_GENRES,
-                null
-            ), ", "
-        )
-        if (withGenres != null && withGenres.isNotEmpty()) {
-            if (mSearchView) {
-                val iterator = mSearchShowArrayList.iterator()
-                while (iterator.hasNext()) {
-                    val showObject = iterator.next()
-                    val idList = FilterActivity.convertStringToIntegerArrayList(
-                        showObject.optString(ShowBaseAdapter.KEY_GENRES), ","
-                    )
-                    if (!idList.containsAll(withGenres)) {
-                        iterator.remove()
-                    }
-                }
-            } else {
-                val iterator = mShowArrayList.iterator()
-                while (iterator.hasNext()) {
-                    val showObject = iterator.next()
-                    val idList = FilterActivity.convertStringToIntegerArrayList(
-                        showObject.optString(ShowBaseAdapter.KEY_GENRES), ","
-                    )
-                    if (!idList.containsAll(withGenres)) {
-                        iterator.remove()
-                    }
-                }
-            }
-        }
-
-// Remove shows that contain certain genres from the list.
-        val withoutGenres = FilterActivity.convertStringToIntegerArrayList(
-            sharedPreferences.getString(
-                FilterActivity.FILTER_WITHOUT_GENRES,
-                null
-            ), ", "
+        return ShowFilter(
+            sharedPreferences.getString(FilterActivity.FILTER_SORT, null),
+            selectedCategories?.map { DetailActivity.getCategoryNumber(it) } ?: emptyList(),
+            !onlySeries,
+            !onlyMovies,
+            FilterActivity.convertStringToIntegerArrayList(
+                sharedPreferences.getString(FilterActivity.FILTER_WITH_GENRES, null), ", "
+            ),
+            FilterActivity.convertStringToIntegerArrayList(
+                sharedPreferences.getString(FilterActivity.FILTER_WITHOUT_GENRES, null), ", "
+            )
         )
-        if (withoutGenres != null && withoutGenres.isNotEmpty()) {
-            if (mSearchView) {
-                val iterator = mSearchShowArrayList.iterator()
-                while (iterator.hasNext()) {
-                    val showObject = iterator.next()
-                    val idList = FilterActivity.convertStringToIntegerArrayList(
-                        showObject.optString(ShowBaseAdapter.KEY_GENRES), ","
-                    )
-                    if (idList.any { withoutGenres.contains(it) }) {
-                        iterator.remove()
-                    }
-                }
-            } else {
-                val iterator = mShowArrayList.iterator()
-                while (iterator.hasNext()) {
-                    val showObject = iterator.next()
-                    val idList = FilterActivity.convertStringToIntegerArrayList(
-                        showObject.optString(ShowBaseAdapter.KEY_GENRES), ","
-                    )
-                    if (idList.any { withoutGenres.contains(it) }) {
-                        iterator.remove()
-                    }
-                }
-            }
-        }
+    }
 
-        // Set a new adapter with the cloned (and filtered) ArrayList.
+    /**
+     * Filters the shows based on the settings in the FilterActivity.
+     * The database does the filtering and sorting, only the shows that are shown are loaded.
+     */
+    private fun filterAdapter() {
+        val filter = loadFilter()
         if (mSearchView) {
+            mSearchShowArrayList = getShowsFromDatabase(mSearchQuery, filter)
             mShowView.adapter = ShowBaseAdapter(
                 mSearchShowArrayList, mShowGenreList,
                 if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
@@ -611,13 +286,15 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
                 false
             )
         } else {
-            mShowView.adapter = ShowBaseAdapter(
+            mShowArrayList = getShowsFromDatabase(null, filter)
+            mShowAdapter = ShowBaseAdapter(
                 mShowArrayList, mShowGenreList,
                 if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
                     ShowBaseAdapter.MView.GRID
                 else ShowBaseAdapter.MView.LIST,
                 false
             )
+            mShowView.adapter = mShowAdapter
         }
     }
 
@@ -627,7 +304,7 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
      */
     private fun createShowList() {
         mShowGenreList = HashMap()
-        mShowArrayList = getShowsFromDatabase(null, MovieDatabaseHelper.COLUMN_ID + " DESC")
+        mShowArrayList = getShowsFromDatabase(null, null)
         mShowAdapter = ShowBaseAdapter(
             mShowArrayList, mShowGenreList,
             if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
@@ -643,34 +320,12 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
      * Retrieves the shows from the database.
      *
      * @param searchQuery the text (if any) that the title should contain.
-     * @param order       the order of the shows.
+     * @param filter      the filter and sort order (if any) of the shows.
      * @return an ArrayList filled with the shows from the database
-     * (optionally filtered and sorted on the given query and order).
+     * (optionally filtered and sorted on the given query and filter).
      */
-    private fun getShowsFromDatabase(searchQuery: String?, order: String?): ArrayList<JSONObject> {
-        // Add the order that the output should be sorted on.
-        // When no order is specified leave the string empty.
-        val dbOrder: String = if (order != null) {
-            " ORDER BY $order"
-        } else {
-            ""
-        }
-        open()
-        mDatabaseHelper.onCreate(mDatabase)
-        // Search for shows that fulfill the searchQuery and fit in the list.
-        val cursor: Cursor = if (searchQuery != null && searchQuery != "") {
-            mDatabase.rawQuery(
-                "SELECT *, " + MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE + ", " + MovieDatabaseHelper.COLUMN_PERSONAL_FINISH_DATE + " FROM " + MovieDatabaseHelper.TABLE_MOVIES
-                        + " WHERE " + MovieDatabaseHelper.COLUMN_TITLE + " LIKE '%"
-                        + searchQuery + "%'" + dbOrder, null
-            )
-        } else {
-            mDatabase.rawQuery(
-                "SELECT *, " + MovieDatabaseHelper.COLUMN_PERSONAL_START_DATE + ", " + MovieDatabaseHelper.COLUMN_PERSONAL_FINISH_DATE + " FROM " +
-                        MovieDatabaseHelper.TABLE_MOVIES + dbOrder, null
-            )
-        }
-        return convertDatabaseListToArrayList(cursor)
+    private fun getShowsFromDatabase(searchQuery: String?, filter: ShowFilter?): ArrayList<JSONObject> {
+        return convertDatabaseListToArrayList(mDatabaseHelper.getShows(searchQuery, filter))
     }
 
     /**
@@ -775,27 +430,9 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
             cursor.moveToNext()
         }
         cursor.close()
-        close()
         return dbShowsArrayList
     }
 
-    /**
-     * Gets (or creates) a writable database.
-     *
-     * @throws SQLException if the database cannot be opened for writing.
-     */
-    @Throws(SQLException::class)
-    private fun open() {
-        mDatabase = mDatabaseHelper.writableDatabase
-    }
-
-    /**
-     * Closes the writable database.
-     */
-    private fun close() {
-        mDatabaseHelper.close()
-    }
-
     /**
      * Shows a dialog with the given message and a positive (triggering the given listener) and
      * negative (does nothing) button.
@@ -817,17 +454,17 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
 
     /**
      * Sets a new adapter only containing the shows that fit the search query.
-     * If a filter is being used, the retrieved shows will be filtered
-     * and the adapter will be replaced again.
+     * If a filter is being used, the retrieved shows are filtered by the same query.
      *
      * @param query the text that the show title should contain.
      */
     fun search(query: String) {
         if (query != "") {
             mSearchView = true
+            mSearchQuery = query
+            // Only use the filter if the user has gone to the FilterActivity in this session.
             mSearchShowArrayList =
-                getShowsFromDatabase(query, MovieDatabaseHelper.COLUMN_ID + " DESC")
-            mSearchShowBackupArrayList = mSearchShowArrayList.clone() as ArrayList<JSONObject>
+                getShowsFromDatabase(query, if (usedFilter) loadFilter() else null)
             mSearchShowAdapter = ShowBaseAdapter(
                 mSearchShowArrayList, mShowGenreList,
                 if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
@@ -836,11 +473,6 @@ class ListFragment : BaseFragment(), AdapterDataChangedListener {
                 false
             )
             mShowView.adapter = mSearchShowAdapter
-
-            // Only use the filter if the user has gone to the FilterActivity in this session.
-            if (usedFilter) {
-                filterAdapter()
-            }
         }
     }
 
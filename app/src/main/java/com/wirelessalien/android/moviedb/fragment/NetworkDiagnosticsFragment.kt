@@ -0,0 +1,76 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.fragment
+
+import android.app.Dialog
+import android.content.ClipData
+import android.content.ClipboardManager
+import android.content.Context
+import android.os.Bundle
+import android.widget.TextView
+import android.widget.Toast
+import androidx.fragment.app.DialogFragment
+import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.wirelessalien.android.moviedb.R
+import com.wirelessalien.android.moviedb.helper.CrashHelper
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
+
+/**
+ * Shows the timings of the TMDB requests per endpoint family,
+ * so it can be seen where the time of slow screens goes.
+ */
+class NetworkDiagnosticsFragment : DialogFragment() {
+
+    override fun onCreateDialog(savedInstanceState: Bundle?): Dialog {
+        val report = TmdbClient.getInstance(requireContext()).metrics.report()
+        val dialogView = layoutInflater.inflate(R.layout.dialog_network_diagnostics, null)
+        val textView = dialogView.findViewById<TextView>(R.id.diagnostics_text)
+        textView.text = report.ifEmpty { getString(R.string.no_network_diagnostics) }
+
+        val builder = MaterialAlertDialogBuilder(requireContext())
+            .setTitle(getString(R.string.network_diagnostics))
+            .setView(dialogView)
+            .setNegativeButton(getString(R.string.close), null)
+        if (report.isNotEmpty()) {
+            builder.setPositiveButton(getString(R.string.copy)) { _, _ ->
+                val clipboard = requireContext().getSystemService(Context.CLIPBOARD_SERVICE) as ClipboardManager
+                clipboard.setPrimaryClip(ClipData.newPlainText("ShowCase Network Diagnostics", report))
+                Toast.makeText(requireContext(), R.string.network_diagnostics_copied, Toast.LENGTH_SHORT).show()
+            }
+            builder.setNeutralButton(getString(R.string.export)) { _, _ ->
+                val file = CrashHelper.exportNetworkDiagnostics(requireContext(), report)
+                if (file != null) {
+                    Toast.makeText(
+                        requireContext(),
+                        getString(R.string.network_diagnostics_exported, file.absolutePath),
+                        Toast.LENGTH_LONG
+                    ).show()
+                } else {
+                    Toast.makeText(
+                        requireContext(),
+                        R.string.network_diagnostics_export_failed,
+                        Toast.LENGTH_SHORT
+                    ).show()
+                }
+            }
+        }
+        return builder.create()
+    }
+}
@@ -25,25 +25,18 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.ProgressBar
+import androidx.lifecycle.lifecycleScope
 import androidx.preference.PreferenceManager
 import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.floatingactionbutton.FloatingActionButton
 import com.wirelessalien.android.moviedb.R
-import com.wirelessalien.android.moviedb.activity.BaseActivity
 import com.wirelessalien.android.moviedb.adapter.PersonBaseAdapter
-import com.wirelessalien.android.moviedb.helper.ConfigHelper
 import com.wirelessalien.android.moviedb.helper.PeopleDatabaseHelper
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
 import org.json.JSONException
 import org.json.JSONObject
-import java.io.BufferedReader
 import java.io.IOException
-import java.io.InputStreamReader
-import java.net.URL
 
 class PersonFragment : BaseFragment() {
     private lateinit var mPersonGridView: RecyclerView
@@ -53,7 +46,6 @@ class PersonFragment : BaseFragment() {
     private var mSearchPersonArrayList: ArrayList<JSONObject>? = null
     private lateinit var mGridLayoutManager: GridLayoutManager
     private var isShowingDatabasePeople = false
-    private var API_KEY: String? = null
     private val mSearchQuery: String? = null
     override var mSearchView = false
 
@@ -70,7 +62,6 @@ class PersonFragment : BaseFragment() {
     private lateinit var sPreferences: SharedPreferences
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
-        API_KEY = ConfigHelper.getConfigValue(requireContext().applicationContext, "api_key")
         createPersonList()
     }
 
@@ -113,7 +104,7 @@ class PersonFragment : BaseFragment() {
     private val peopleFromDatabase: ArrayList<JSONObject>
         get() {
             val databasePeople = ArrayList<JSONObject>()
-            val dbHelper = PeopleDatabaseHelper(requireActivity())
+            val dbHelper = PeopleDatabaseHelper.getInstance(requireActivity())
             val db = dbHelper.readableDatabase
             val cursor = db.rawQuery(PeopleDatabaseHelper.SELECT_ALL_SORTED_BY_NAME, null)
             if (cursor.moveToFirst()) {
@@ -130,7 +121,6 @@ class PersonFragment : BaseFragment() {
                 } while (cursor.moveToNext())
             }
             cursor.close()
-            db.close()
             return databasePeople
         }
 
@@ -247,34 +237,21 @@ class PersonFragment : BaseFragment() {
      * Uses Coroutine to retrieve the list with popular people.
      */
     private fun fetchPersonList(page: Int) {
-        CoroutineScope(Dispatchers.Main).launch {
+        lifecycleScope.launch {
             requireActivity().runOnUiThread {
                 val progressBar = requireActivity().findViewById<ProgressBar>(R.id.progressBar)
                 progressBar.visibility = View.VISIBLE
             }
 
-            val response = withContext(Dispatchers.IO) {
-                var line: String?
-                val stringBuilder = StringBuilder()
-
-                try {
-                    val url = URL(
-                        "https://api.themoviedb.org/3/person/popular?page=$page&api_key=$API_KEY${BaseActivity.getLanguageParameter(context)}"
-                    )
-                    val urlConnection = url.openConnection()
-                    try {
-                        val bufferedReader = BufferedReader(InputStreamReader(urlConnection.getInputStream()))
-                        while (bufferedReader.readLine().also { line = it } != null) {
-                            stringBuilder.append(line).append("\n")
-                        }
-                        bufferedReader.close()
-                    } catch (ioe: IOException) {
-                        ioe.printStackTrace()
-                    }
-                } catch (ioe: IOException) {
-                    ioe.printStackTrace()
-                }
-                stringBuilder.toString()
+            val response = try {
+                tmdbClient.get(
+                    "3/person/popular",
+                    mapOf("page" to page),
+                    withLanguage = true
+                )
+            } catch (ioe: IOException) {
+                ioe.printStackTrace()
+                ""
             }
 
             if (response.isNotEmpty()) {
@@ -312,52 +289,28 @@ class PersonFragment : BaseFragment() {
      * Load a list of persons that fulfill the search query.
      */
     private fun search(query: String?, page: Int) {
-        CoroutineScope(Dispatchers.Main).launch {
-            val response = withContext(Dispatchers.IO) {
-                doInBackground(query, page)
-            }
+        lifecycleScope.launch {
+            val response = doInBackground(query, page)
             if (response != null) {
                 onPostExecute(response)
             }
         }
     }
 
-    private fun doInBackground(query: String?, page: Int): String? {
-        var line: String?
-        val stringBuilder = StringBuilder()
-
-        // Load the webpage with the popular persons
-        try {
-            val url = URL(
-                "https://api.themoviedb.org/3/search/person?"
-                        + "query=" + query + "&page=" + page
-                        + "&api_key=" + API_KEY + BaseActivity.getLanguageParameter(context)
+    private suspend fun doInBackground(query: String?, page: Int): String? {
+        // Load the webpage with the persons that match the query
+        return try {
+            tmdbClient.get(
+                "3/search/person",
+                mapOf("query" to query, "page" to page),
+                withLanguage = true
             )
-            val urlConnection = url.openConnection()
-            try {
-                val bufferedReader = BufferedReader(
-                    InputStreamReader(
-                        urlConnection.getInputStream()
-                    )
-                )
-
-                // Create one long string of the webpage.
-                while (bufferedReader.readLine().also { line = it } != null) {
-                    stringBuilder.append(line).append("\n")
-                }
-
-                // Close the connection and return the data from the webpage.
-                bufferedReader.close()
-                return stringBuilder.toString()
-            } catch (ioe: IOException) {
-                ioe.printStackTrace()
-            }
         } catch (ioe: IOException) {
             ioe.printStackTrace()
-        }
 
-        // Loading the dataset failed, return null.
-        return null
+            // Loading the dataset failed, return null.
+            null
+        }
     }
 
     private fun onPostExecute(response: String?) {
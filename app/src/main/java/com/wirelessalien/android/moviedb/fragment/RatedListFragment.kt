@@ -25,18 +25,15 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.ProgressBar
 import android.widget.Toast
+import androidx.lifecycle.lifecycleScope
 import androidx.preference.PreferenceManager
 import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.floatingactionbutton.FloatingActionButton
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.activity.BaseActivity
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
 import org.json.JSONException
 import org.json.JSONObject
 import java.io.IOException
@@ -157,16 +154,14 @@ class RatedListFragment : BaseFragment() {
     }
 
     private fun loadRatedList(listType: String?, page: Int) {
-        CoroutineScope(Dispatchers.Main).launch {
+        lifecycleScope.launch {
             isLoadingData = true
             if (!isAdded) return@launch
 
             val progressBar = Optional.ofNullable(requireActivity().findViewById<ProgressBar>(R.id.progressBar))
             progressBar.ifPresent { it.visibility = View.VISIBLE }
 
-            val response = withContext(Dispatchers.IO) {
-                fetchRatedListFromApi(listType, page)
-            }
+            val response = fetchRatedListFromApi(listType, page)
 
             handleResponse(response)
             progressBar.ifPresent { it.visibility = View.GONE }
@@ -174,21 +169,14 @@ class RatedListFragment : BaseFragment() {
         }
     }
 
-    private fun fetchRatedListFromApi(listType: String?, page: Int): String? {
-        val accessToken = preferences.getString("access_token", "")
+    private suspend fun fetchRatedListFromApi(listType: String?, page: Int): String? {
         val accountId = preferences.getString("account_id", "")
-        val url = "https://api.themoviedb.org/4/account/$accountId/$listType/rated?page=$page"
-        val client = OkHttpClient()
-        val request = Request.Builder()
-            .url(url)
-            .get()
-            .addHeader("Content-Type", "application/json;charset=utf-8")
-            .addHeader("Authorization", "Bearer $accessToken")
-            .build()
         return try {
-            client.newCall(request).execute().use { response ->
-                response.body()?.string()
-            }
+            tmdbClient.get(
+                "4/account/$accountId/$listType/rated",
+                mapOf("page" to page),
+                TmdbClient.Auth.USER
+            )
         } catch (e: IOException) {
             e.printStackTrace()
             null
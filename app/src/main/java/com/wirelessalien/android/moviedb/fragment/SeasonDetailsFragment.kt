@@ -19,7 +19,7 @@
  */
 package com.wirelessalien.android.moviedb.fragment
 
-import android.content.ContentValues
+import android.database.sqlite.SQLiteException
 import android.icu.text.SimpleDateFormat
 import android.os.Bundle
 import android.view.LayoutInflater
@@ -31,6 +31,7 @@ import android.view.ViewGroup
 import android.widget.ProgressBar
 import android.widget.Toast
 import androidx.fragment.app.Fragment
+import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import androidx.viewpager2.widget.ViewPager2
@@ -41,8 +42,10 @@ import com.wirelessalien.android.moviedb.data.Episode
 import com.wirelessalien.android.moviedb.helper.EpisodeReminderDatabaseHelper
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
 import com.wirelessalien.android.moviedb.tmdb.TVSeasonDetails
-import kotlinx.coroutines.CoroutineScope
+import com.wirelessalien.android.moviedb.work.ReleaseReminderWorker
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
 import kotlinx.coroutines.launch
 import java.text.ParseException
 import java.util.Collections
@@ -91,19 +94,35 @@ class SeasonDetailsFragment : Fragment() {
         viewPager.registerOnPageChangeCallback(pageChangeCallback)
         val progressBar = view.findViewById<ProgressBar>(R.id.progressBar)
         progressBar.visibility = View.VISIBLE
-        CoroutineScope(Dispatchers.Main).launch {
+        viewLifecycleOwner.lifecycleScope.launch {
             progressBar.visibility = View.VISIBLE
             try {
+                // Load what is tracked of this season while the episodes are being fetched.
+                val databaseHelper = MovieDatabaseHelper.getInstance(requireContext())
+                val trackingState = async(Dispatchers.IO) {
+                    databaseHelper.getSeasonTrackingState(tvShowId, seasonNumber)
+                }
+                var seasonEpisodes: List<Episode>? = null
                 val tvSeasonDetails = TVSeasonDetails(tvShowId, seasonNumber, requireContext())
                 tvSeasonDetails.fetchSeasonDetails(object : TVSeasonDetails.SeasonDetailsCallback {
                     override fun onSeasonDetailsFetched(episodes: List<Episode>) {
-                        val adapter = EpisodeAdapter(requireContext(), episodes, currentTabNumber, tvShowId)
-                        rvEpisodes.layoutManager = LinearLayoutManager(requireContext())
-                        rvEpisodes.adapter = adapter
-                        progressBar.visibility = View.GONE
-                        requireActivity().invalidateOptionsMenu()
+                        seasonEpisodes = episodes
                     }
                 })
+                val episodes = seasonEpisodes
+                if (episodes != null) {
+                    val adapter = EpisodeAdapter(
+                        requireContext(), episodes, seasonNumber, tvShowId, trackingState.await()
+                    )
+                    rvEpisodes.layoutManager = LinearLayoutManager(requireContext())
+                    rvEpisodes.adapter = adapter
+                    requireActivity().invalidateOptionsMenu()
+                } else {
+                    trackingState.cancel()
+                }
+                progressBar.visibility = View.GONE
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
                 e.printStackTrace()
                 progressBar.visibility = View.GONE
@@ -118,7 +137,7 @@ class SeasonDetailsFragment : Fragment() {
 
     override fun onCreateOptionsMenu(menu: Menu, inflater: MenuInflater) {
         inflater.inflate(R.menu.notification_menu, menu)
-        dbHelper = EpisodeReminderDatabaseHelper(requireContext())
+        dbHelper = EpisodeReminderDatabaseHelper.getInstance(requireContext())
         val notificationItem = menu.findItem(R.id.action_notification)
         val tvShowId = requireArguments().getInt(ARG_TV_SHOW_ID)
         if (isShowInDatabase(tvShowId)) {
@@ -160,23 +179,8 @@ class SeasonDetailsFragment : Fragment() {
         val adapter = rvEpisodes.adapter as EpisodeAdapter?
         if (adapter != null) {
             val episodes = adapter.episodes
-            val db = MovieDatabaseHelper(requireContext())
-            var allEpisodesInDatabase = true
-            if (episodes != null) {
-                for (episode in episodes) {
-                    val seasonEpisodeNumbers: MutableMap<Int, List<Int>> = HashMap()
-                    seasonEpisodeNumbers[currentTabNumber] = listOf(episode.episodeNumber)
-                    if (!db.isEpisodeInDatabase(
-                            tvShowId,
-                            currentTabNumber,
-                            listOf(episode.episodeNumber)
-                        )
-                    ) {
-                        allEpisodesInDatabase = false
-                        break
-                    }
-                }
-            }
+            val allEpisodesInDatabase =
+                episodes?.all { adapter.trackingState.isWatched(it.episodeNumber) } ?: true
             if (allEpisodesInDatabase) {
                 watchedItem.setIcon(R.drawable.ic_visibility_fill)
             } else {
@@ -200,7 +204,7 @@ class SeasonDetailsFragment : Fragment() {
 
     override fun onOptionsItemSelected(item: MenuItem): Boolean {
         return if (item.itemId == R.id.action_notification) {
-            dbHelper = EpisodeReminderDatabaseHelper(requireContext())
+            dbHelper = EpisodeReminderDatabaseHelper.getInstance(requireContext())
             if (isShowInDatabase(requireArguments().getInt(ARG_TV_SHOW_ID))) {
                 dbHelper!!.deleteData(requireArguments().getInt(ARG_TV_SHOW_ID))
                 val message = getString(R.string.removed_from_reminder, ARG_TV_SHOW_NAME)
@@ -208,38 +212,29 @@ class SeasonDetailsFragment : Fragment() {
                 item.setIcon(R.drawable.ic_add_alert)
                 return true
             }
-            val db = dbHelper!!.writableDatabase
             val adapter = rvEpisodes.adapter as EpisodeAdapter?
             if (adapter != null) {
-                for (episode in adapter.episodes!!) {
-                    val values = ContentValues()
-                    val tvShowId = requireArguments().getInt(ARG_TV_SHOW_ID)
-                    values.put(EpisodeReminderDatabaseHelper.COLUMN_MOVIE_ID, tvShowId)
-                    val tvShowName = requireArguments().getString(ARG_TV_SHOW_NAME)
-                    values.put(EpisodeReminderDatabaseHelper.COLUMN_TV_SHOW_NAME, tvShowName)
-                    values.put(EpisodeReminderDatabaseHelper.COLUMN_NAME, episode.name)
-                    values.put(EpisodeReminderDatabaseHelper.COLUMN_DATE, episode.airDate)
-                    values.put(
-                        EpisodeReminderDatabaseHelper.COLUMN_EPISODE_NUMBER,
-                        episode.episodeNumber
-                    )
-                    val newRowId = db.insert(
-                        EpisodeReminderDatabaseHelper.TABLE_EPISODE_REMINDERS,
-                        null,
-                        values
+                val tvShowName = requireArguments().getString(ARG_TV_SHOW_NAME)
+                val added = try {
+                    dbHelper!!.addReminders(
+                        requireArguments().getInt(ARG_TV_SHOW_ID),
+                        tvShowName,
+                        adapter.seasonNumber,
+                        adapter.episodes.orEmpty()
                     )
-                    if (newRowId == -1L) {
-                        val message = getString(R.string.error_reminder_episode, tvShowName)
-                        Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show()
-                        return true
-                    }
+                } catch (e: SQLiteException) {
+                    e.printStackTrace()
+                    val message = getString(R.string.error_reminder_episode, tvShowName)
+                    Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show()
+                    return true
+                }
+                val message = if (added > 0) {
+                    getString(R.string.episode_reminders_added, added, tvShowName)
+                } else {
+                    getString(R.string.get_notified_for_episode, tvShowName)
                 }
-                val message = getString(
-                    R.string.get_notified_for_episode, requireArguments().getString(
-                        ARG_TV_SHOW_NAME
-                    )
-                )
                 Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show()
+                ReleaseReminderWorker.schedule(requireContext())
                 item.setIcon(R.drawable.ic_notifications_active)
                 return true
             }
@@ -248,51 +243,22 @@ class SeasonDetailsFragment : Fragment() {
             val adapter = rvEpisodes.adapter as EpisodeAdapter?
             if (adapter != null) {
                 val episodes = adapter.episodes
-                val db = MovieDatabaseHelper(requireContext())
-                var allEpisodesInDatabase = true
-                if (episodes != null) {
-                    for (episode in episodes) {
-                        if (!db.isEpisodeInDatabase(
-                                tvShowId,
-                                currentTabNumber,
-                                listOf(episode.episodeNumber)
-                            )
-                        ) {
-                            allEpisodesInDatabase = false
-                            break
-                        }
-                    }
+                val db = MovieDatabaseHelper.getInstance(requireContext())
+                val allEpisodesInDatabase =
+                    episodes?.all { adapter.trackingState.isWatched(it.episodeNumber) } ?: true
+                val episodeNumbers = episodes.orEmpty().map { it.episodeNumber }
+                val seasonEpisodes = mapOf(adapter.seasonNumber to episodeNumbers)
+                for (episodeNumber in episodeNumbers) {
+                    adapter.trackingState.setWatched(episodeNumber, !allEpisodesInDatabase)
                 }
+                adapter.notifyDataSetChanged()
                 if (!allEpisodesInDatabase) {
-                    if (episodes != null) {
-                        for (episode in episodes) {
-                            if (!db.isEpisodeInDatabase(
-                                    tvShowId,
-                                    currentTabNumber,
-                                    listOf(episode.episodeNumber)
-                                )
-                            ) {
-                                db.addEpisodeNumber(
-                                    tvShowId,
-                                    currentTabNumber,
-                                    listOf(episode.episodeNumber)
-                                )
-                            }
-                        }
-                    }
+                    db.addEpisodeNumbers(tvShowId, seasonEpisodes)
                     item.setIcon(R.drawable.ic_visibility_fill)
                     Toast.makeText(requireContext(), R.string.episodes_removed, Toast.LENGTH_SHORT)
                         .show()
                 } else {
-                    if (episodes != null) {
-                        for (episode in episodes) {
-                            db.removeEpisodeNumber(
-                                tvShowId,
-                                currentTabNumber,
-                                listOf(episode.episodeNumber)
-                            )
-                        }
-                    }
+                    db.removeEpisodeNumbers(tvShowId, seasonEpisodes)
                     item.setIcon(R.drawable.ic_visibility)
                     Toast.makeText(requireContext(), R.string.episodes_added, Toast.LENGTH_SHORT)
                         .show()
@@ -65,6 +65,15 @@ class SettingsFragment : PreferenceFragmentCompat(), OnSharedPreferenceChangeLis
                 }
         }
 
+        val networkDiagnosticsPreference = findPreference<Preference>("network_diagnostics_key")
+        if (networkDiagnosticsPreference != null) {
+            networkDiagnosticsPreference.onPreferenceClickListener =
+                Preference.OnPreferenceClickListener {
+                    NetworkDiagnosticsFragment().show(parentFragmentManager, "network_diagnostics_dialog")
+                    true
+                }
+        }
+
         val privacyKey = findPreference<Preference>("privacy_key")
         if (privacyKey != null) {
             privacyKey.onPreferenceClickListener =
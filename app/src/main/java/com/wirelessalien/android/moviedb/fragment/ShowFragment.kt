@@ -28,27 +28,31 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.ProgressBar
 import androidx.activity.result.contract.ActivityResultContract
+import androidx.lifecycle.lifecycleScope
+import androidx.paging.CombinedLoadStates
+import androidx.paging.LoadState
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import androidx.paging.map
 import androidx.preference.PreferenceManager
-import androidx.recyclerview.widget.RecyclerView
+import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.LinearLayoutManager
 import com.google.android.material.floatingactionbutton.FloatingActionButton
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.activity.BaseActivity
 import com.wirelessalien.android.moviedb.activity.FilterActivity
 import com.wirelessalien.android.moviedb.adapter.SectionsPagerAdapter
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
-import com.wirelessalien.android.moviedb.helper.ConfigHelper
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
+import com.wirelessalien.android.moviedb.adapter.ShowPagingAdapter
+import com.wirelessalien.android.moviedb.data.ShowSummary
+import com.wirelessalien.android.moviedb.tmdb.ShowPagingSource
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import org.json.JSONException
-import org.json.JSONObject
-import java.io.BufferedReader
-import java.io.IOException
-import java.io.InputStreamReader
-import java.net.URL
 import java.text.SimpleDateFormat
 import java.util.Calendar
 import java.util.Date
@@ -57,29 +61,19 @@ import java.util.Locale
 import java.util.Optional
 
 class ShowFragment : BaseFragment() {
-    private var API_KEY: String? = null
     private var mListType: String? = null
     override var mSearchView = false
-    private var mSearchQuery: String? = null
     private var filterParameter = ""
-    private var filterChanged = false
-
-    private var visibleThreshold = 0
-    private var currentPage = 0
-    private var currentSearchPage = 0
-    private var previousTotal = 0
-    private var loading = true
-    private var pastVisibleItems = 0
-    private var visibleItemCount = 0
-    private var totalItemCount = 0
     private var mShowListLoaded = false
-    private val showIdSet = HashSet<Int>()
-
+    private lateinit var mShowPagingAdapter: ShowPagingAdapter
+    private lateinit var mSearchPagingAdapter: ShowPagingAdapter
+    private var showListFlow: Flow<PagingData<ShowSummary>>? = null
+    private var showListJob: Job? = null
+    private var searchJob: Job? = null
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         setHasOptionsMenu(true)
-        API_KEY = ConfigHelper.getConfigValue(requireContext().applicationContext, "api_key")
         mListType = if (arguments != null) {
             requireArguments().getString(ARG_LIST_TYPE)
         } else {
@@ -87,25 +81,27 @@ class ShowFragment : BaseFragment() {
             SectionsPagerAdapter.MOVIE
         }
         preferences = PreferenceManager.getDefaultSharedPreferences(requireContext())
-        val gridSizePreference = preferences.getInt(GRID_SIZE_PREFERENCE, 3)
-        visibleThreshold = gridSizePreference * gridSizePreference
 
-        mShowArrayList = ArrayList()
+        val mView = if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
+            ShowBaseAdapter.MView.GRID
+        else ShowBaseAdapter.MView.LIST
         mShowGenreList = HashMap()
-        mShowAdapter = ShowBaseAdapter(
-            mShowArrayList, mShowGenreList,
-            if (preferences.getBoolean(
-                    SHOWS_LIST_PREFERENCE, true))
-                ShowBaseAdapter.MView.GRID
-            else ShowBaseAdapter.MView.LIST, false
-        )
+        mShowPagingAdapter = ShowPagingAdapter(mShowGenreList, mView)
+        mSearchPagingAdapter = ShowPagingAdapter(mShowGenreList, mView)
+        mShowPagingAdapter.addLoadStateListener { loadStates ->
+            if (loadStates.refresh is LoadState.NotLoading) {
+                mShowListLoaded = true
+            }
+            showProgress(loadStates)
+        }
+        mSearchPagingAdapter.addLoadStateListener { loadStates -> showProgress(loadStates) }
         (requireActivity() as BaseActivity).checkNetwork()
 
         // Use persistent filtering if it is enabled.
         if (preferences.getBoolean(PERSISTENT_FILTERING_PREFERENCE, false)) {
             filterShows()
         } else {
-            fetchShowList(arrayOf(mListType, "1"))
+            loadShowList()
         }
     }
 
@@ -114,7 +110,7 @@ class ShowFragment : BaseFragment() {
             fetchGenreList(mListType!!)
         }
         if (!mShowListLoaded) {
-            fetchShowList(arrayOf(mListType, "1"))
+            mShowPagingAdapter.retry()
         }
     }
 
@@ -135,6 +131,11 @@ class ShowFragment : BaseFragment() {
         return fragmentView
     }
 
+    override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
+        super.onViewCreated(view, savedInstanceState)
+        collectShowList()
+    }
+
     override fun onResume() {
         super.onResume()
         val fab = requireActivity().findViewById<FloatingActionButton>(R.id.fab)
@@ -270,8 +271,7 @@ class ShowFragment : BaseFragment() {
         ) {
             filterParameter += "&without_keywords=$withoutKeywords"
         }
-        filterChanged = true
-        fetchShowList(arrayOf(mListType, "1"))
+        loadShowList()
     }
 
     /**
@@ -280,70 +280,44 @@ class ShowFragment : BaseFragment() {
      * @param fragmentView the view to attach the ListView to.
      */
     override fun showShowList(fragmentView: View) {
-        super.showShowList(fragmentView)
-
-        // Dynamically load new pages when user scrolls down.
-        mShowView.addOnScrollListener(object : RecyclerView.OnScrollListener() {
-            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
-                if (dy > 0 && recyclerView.scrollState != RecyclerView.SCROLL_STATE_IDLE) { // Check for scroll down and if user is actively scrolling.
-                    visibleItemCount = mShowLinearLayoutManager.childCount
-                    totalItemCount = mShowLinearLayoutManager.itemCount
-                    pastVisibleItems = mShowLinearLayoutManager.findFirstVisibleItemPosition()
-                    if (loading) {
-                        if (totalItemCount > previousTotal) {
-                            loading = false
-                            previousTotal = totalItemCount
-                        }
-                    }
-                    var threshold = visibleThreshold
-                    if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true)) {
-                        // It is a grid view, so the threshold should be bigger.
-                        val gridSizePreference = preferences.getInt(GRID_SIZE_PREFERENCE, 3)
-                        threshold = gridSizePreference * gridSizePreference
-                    }
+        mShowView = fragmentView.findViewById(R.id.showRecyclerView)
 
-                    // When no new pages are being loaded,
-                    // but the user is at the end of the list, load the new page.
-                    if (!loading && visibleItemCount + pastVisibleItems + threshold >= totalItemCount) {
-                        // Load the next page of the content in the background.
-                        if (mSearchView) {
-                            searchList(mListType, currentSearchPage, mSearchQuery)
-                        } else {
-                            // Check if the previous request returned any data
-                            if (mShowArrayList.size > 0) {
-                                currentPage++
-                                fetchShowList(arrayOf(mListType, currentPage.toString()))
-                            }
-                        }
-                        loading = true
-                    }
-                }
-            }
-        })
+        // Set the layout of the RecyclerView.
+        mShowLinearLayoutManager = if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true)) {
+            GridLayoutManager(activity, preferences.getInt(GRID_SIZE_PREFERENCE, 3))
+        } else {
+            LinearLayoutManager(activity, LinearLayoutManager.VERTICAL, false)
+        }
+        mShowView.layoutManager = mShowLinearLayoutManager
+
+        // New pages are loaded by the paging adapter when the user scrolls down.
+        mShowView.adapter = if (mSearchView) mSearchPagingAdapter else mShowPagingAdapter
+    }
+
+    override fun onGenreListLoaded() {
+        mShowPagingAdapter.notifyDataSetChanged()
+        mSearchPagingAdapter.notifyDataSetChanged()
     }
 
     /**
-     * Creates the ShowBaseAdapter with the (still empty) ArrayList.
-     * Also starts an AsyncTask to load the items for the empty ArrayList.
+     * Starts a paged search and shows the results in a separate adapter.
      *
-     * @param query the query to start the AsyncTask with (and that will be added to the
-     * API call as search query).
+     * @param query the query that will be added to the API call as search query.
      */
     fun search(query: String?) {
-        // Create a separate adapter for the search results.
-        mSearchShowArrayList = ArrayList()
-        mSearchShowAdapter = ShowBaseAdapter(
-            mSearchShowArrayList, mShowGenreList,
-            if (preferences.getBoolean(SHOWS_LIST_PREFERENCE, true))
-                ShowBaseAdapter.MView.GRID
-            else ShowBaseAdapter.MView.LIST,
-            false
-        )
+        if (query.isNullOrEmpty()) {
+            // If the query is empty, show the original show list
+            cancelSearch()
+            return
+        }
 
-        // Cancel old AsyncTask if it exists.
-        currentSearchPage = 1
-        mSearchQuery = query
-        searchList(mListType, 1, query)
+        mSearchView = true
+        mShowView.adapter = mSearchPagingAdapter
+        val searchFlow = createPager("3/search/$mListType", mapOf("query" to query))
+        searchJob?.cancel()
+        searchJob = viewLifecycleOwner.lifecycleScope.launch {
+            searchFlow.collectLatest { mSearchPagingAdapter.submitData(it) }
+        }
     }
 
     /**
@@ -351,208 +325,92 @@ class ShowFragment : BaseFragment() {
      */
     override fun cancelSearch() {
         mSearchView = false
-        mShowView.adapter = mShowAdapter
-        mShowAdapter.notifyDataSetChanged()
+        searchJob?.cancel()
+        mShowView.adapter = mShowPagingAdapter
     }
 
     /**
-     * Uses Coroutine to retrieve the list with popular shows.
+     * Creates a new pager for the list of popular (or filtered) shows.
+     * The pages are cached in the fragment so they survive the view being recreated.
      */
-    private fun fetchShowList(params: Array<String?>) {
-        CoroutineScope(Dispatchers.Main).launch {
-            val listType: String?
-            val page: Int
-
-            try {
-                if (!isAdded) {
-                    return@launch
-                }
-                val progressBar = Optional.ofNullable(requireActivity().findViewById<ProgressBar>(R.id.progressBar))
-                progressBar.ifPresent { bar: ProgressBar -> bar.visibility = View.VISIBLE }
-
-                listType = params[0]
-                page = params[1]!!.toInt()
-
-                val response = withContext(Dispatchers.IO) {
-                    try {
-                        val api_key = ConfigHelper.getConfigValue(
-                            requireContext().applicationContext,
-                            "api_read_access_token"
-                        )
-                        val url = URL(
-                            "https://api.themoviedb.org/3/discover/" + listType + "?" + filterParameter + "&page=" + page + BaseActivity.getLanguageParameter(context)
-                        )
-                        val client = OkHttpClient()
-                        val request = Request.Builder()
-                            .url(url)
-                            .get()
-                            .addHeader("Content-Type", "application/json;charset=utf-8")
-                            .addHeader("Authorization", "Bearer $api_key")
-                            .build()
-                        client.newCall(request).execute().use { response ->
-                            response.body()?.string()
-                        }
-                    } catch (e: IOException) {
-                        e.printStackTrace()
-                        null
-                    }
-                }
-
-                if (isAdded) {
-                    handleResponse(response, page)
-                }
-            } catch (e: Exception) {
-                e.printStackTrace()
-            } finally {
-                if (isAdded) {
-                    val progressBar = Optional.ofNullable(requireActivity().findViewById<ProgressBar>(R.id.progressBar))
-                    progressBar.ifPresent { bar: ProgressBar -> bar.visibility = View.GONE }
-                }
-            }
-        }
+    private fun loadShowList() {
+        showListFlow = createPager("3/discover/$mListType?$filterParameter", emptyMap())
+            .cachedIn(lifecycleScope)
+        collectShowList()
     }
 
-    private fun handleResponse(response: String?, page: Int) {
-        if (isAdded && !response.isNullOrEmpty()) {
-            // Keep the user at the same position in the list.
-            val position: Int = try {
-                mShowLinearLayoutManager.findFirstVisibleItemPosition()
-            } catch (npe: NullPointerException) {
-                0
-            }
-
-            // If the filter has changed, remove the old items
-            if (filterChanged) {
-                mShowArrayList.clear()
-                showIdSet.clear() // Clear the set of IDs
-
-                // Set the previous total back to zero.
-                previousTotal = 0
-
-                // Set filterChanged back to false.
-                filterChanged = false
-            }
-
-            // Convert the JSON data from the webpage into JSONObjects
-            try {
-                val reader = JSONObject(response)
-                val arrayData = reader.getJSONArray("results")
-                for (i in 0 until arrayData.length()) {
-                    val websiteData = arrayData.getJSONObject(i)
-                    val showId = websiteData.getInt("id")
-
-                    // Check if the ID is already in the set
-                    if (!showIdSet.contains(showId)) {
-                        if (websiteData.getString("overview").isEmpty()) {
-                            websiteData.put("overview", "Overview may not be available in the specified language.")
-                        }
-                        mShowArrayList.add(websiteData)
-                        showIdSet.add(showId) // Add the ID to the set
-                    }
-                }
-
-                // Reload the adapter (with the new page)
-                // and set the user to his old position.
-                mShowView.adapter = mShowAdapter
-                if (page != 1) {
-                    mShowView.scrollToPosition(position)
-                }
-                mShowListLoaded = true
-            } catch (je: JSONException) {
-                je.printStackTrace()
-            }
+    private fun collectShowList() {
+        val flow = showListFlow ?: return
+        if (view == null) {
+            // The list will be collected as soon as the view is created.
+            return
+        }
+        showListJob?.cancel()
+        showListJob = viewLifecycleOwner.lifecycleScope.launch {
+            flow.collectLatest { mShowPagingAdapter.submitData(it) }
         }
-        loading = false
     }
 
     /**
-     * Uses Coroutine to retrieve the list with shows that fulfill the search query
-     * (and are of the requested type which means that nothing will turn up if you
-     * search for a series in the movies tab (and there are no movies with the same name).
+     * Creates the flow of pages for the given endpoint. Pages are requested two screens
+     * before the user reaches the end of the list and pages far away from the
+     * visible rows are dropped, so the memory that is used stays the same.
      */
-    private fun searchList(
-        listType: String?,
-        page: Int,
-        query: String?,
-    ) {
-        if (query.isNullOrEmpty()) {
-            // If the query is empty, show the original show list
-            cancelSearch()
-            return
-        }
-
-        CoroutineScope(Dispatchers.Main).launch {
-            if (isAdded) {
-                val progressBar = Optional.ofNullable(requireActivity().findViewById<ProgressBar>(R.id.progressBar))
-                progressBar.ifPresent { bar: ProgressBar -> bar.visibility = View.VISIBLE }
-
-                val response = withContext(Dispatchers.IO) {
-                    var result: String? = null
-                    try {
-                        val url = URL(
-                            "https://api.themoviedb.org/3/search/" +
-                                    listType + "?query=" + query + "&page=" + page +
-                                    "&api_key=" + API_KEY + BaseActivity.getLanguageParameter(context)
-                        )
-                        val urlConnection = url.openConnection()
-                        val bufferedReader = BufferedReader(InputStreamReader(urlConnection.getInputStream()))
-                        val stringBuilder = StringBuilder()
-                        var line: String?
-                        while (bufferedReader.readLine().also { line = it } != null) {
-                            stringBuilder.append(line).append("\n")
-                        }
-                        bufferedReader.close()
-                        result = stringBuilder.toString()
-                    } catch (ioe: IOException) {
-                        ioe.printStackTrace()
+    private fun createPager(path: String, params: Map<String, Any?>): Flow<PagingData<ShowSummary>> {
+        val client = tmdbClient
+        val prefetchDistance = 2 * showsPerScreen()
+        val config = PagingConfig(
+            pageSize = ShowPagingSource.PAGE_SIZE,
+            prefetchDistance = prefetchDistance,
+            enablePlaceholders = false,
+            maxSize = maxOf(MAX_LOADED_SHOWS, ShowPagingSource.PAGE_SIZE + 2 * prefetchDistance)
+        )
+        return Pager(config) { ShowPagingSource(client, path, params) }.flow
+            .map { pagingData ->
+                pagingData.map { show ->
+                    if (show.overview.isEmpty()) {
+                        show.overview = "Overview may not be available in the specified language."
                     }
-                    result
+                    show
                 }
-
-                handleResponse(response)
-                progressBar.ifPresent { bar: ProgressBar -> bar.visibility = View.GONE }
             }
-        }
     }
 
-    private fun handleResponse(
-        response: String?
-    ) {
-        requireActivity().runOnUiThread {
-            val position: Int = try {
-                mShowLinearLayoutManager.findFirstVisibleItemPosition()
-            } catch (npe: NullPointerException) {
-                0
-            }
-
-            if (currentSearchPage <= 0) {
-                mSearchShowArrayList.clear()
-            }
-
-            if (!response.isNullOrEmpty()) {
-                try {
-                    val reader = JSONObject(response)
-                    val arrayData = reader.getJSONArray("results")
-                    for (i in 0 until arrayData.length()) {
-                        val websiteData = arrayData.getJSONObject(i)
-                        if (websiteData.getString("overview").isEmpty()) {
-                            websiteData.put("overview", "Overview may not available in the specified language.")
-                        }
-                        mSearchShowArrayList.add(websiteData)
-                    }
+    /**
+     * Returns how many shows fit on one screen: the visible rows times the shows in a row.
+     * Grid cards are as high as their 2:3 poster, list cards are [LIST_ROW_HEIGHT_DP] high.
+     */
+    private fun showsPerScreen(): Int {
+        val metrics = resources.displayMetrics
+        val grid = preferences.getBoolean(SHOWS_LIST_PREFERENCE, true)
+        val columns = if (grid) maxOf(1, preferences.getInt(GRID_SIZE_PREFERENCE, 3)) else 1
+        val rowHeight = if (grid) {
+            metrics.widthPixels / columns * 3 / 2
+        } else {
+            (LIST_ROW_HEIGHT_DP * metrics.density).toInt()
+        }.coerceAtLeast(1)
+        val visibleRows = (metrics.heightPixels + rowHeight - 1) / rowHeight
+        return visibleRows * columns
+    }
 
-                    mSearchView = true
-                    mShowView.adapter = mSearchShowAdapter
-                    mShowView.scrollToPosition(position)
-                } catch (je: JSONException) {
-                    je.printStackTrace()
-                }
-            }
+    private fun showProgress(loadStates: CombinedLoadStates) {
+        if (!isAdded) {
+            return
         }
+        val loading = loadStates.refresh is LoadState.Loading || loadStates.append is LoadState.Loading
+        val progressBar = Optional.ofNullable(requireActivity().findViewById<ProgressBar>(R.id.progressBar))
+        progressBar.ifPresent { bar: ProgressBar -> bar.visibility = if (loading) View.VISIBLE else View.GONE }
     }
 
     companion object {
         const val ARG_LIST_TYPE = "arg_list_type"
+
+        // The maximum amount of shows that are kept in memory at once.
+        private const val MAX_LOADED_SHOWS = 200
+
+        // The height of a card in show_card.xml.
+        private const val LIST_ROW_HEIGHT_DP = 165
+
         fun newInstance(listType: String?): ShowFragment {
             val fragment = ShowFragment()
             val args = Bundle()
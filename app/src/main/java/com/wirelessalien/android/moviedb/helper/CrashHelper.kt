@@ -62,5 +62,38 @@ class CrashHelper {
                 Process.killProcess(Process.myPid())
             }
         }
+
+        /**
+         * Writes the network diagnostics next to the crash log, so that it can be
+         * collected the same way.
+         *
+         * @return the file that was written, or null if writing failed.
+         */
+        fun exportNetworkDiagnostics(context: Context, report: String): File? {
+            val osVersion = Build.VERSION.RELEASE
+            var appVersion = ""
+            try {
+                appVersion = context.packageManager.getPackageInfo(
+                    context.packageName,
+                    0
+                ).versionName
+            } catch (e: PackageManager.NameNotFoundException) {
+                e.printStackTrace()
+            }
+            return try {
+                val targetFile = File(context.filesDir, DIAGNOSTICS_FILE_NAME)
+                val fileOutputStream = FileOutputStream(targetFile, false)
+                fileOutputStream.write(
+                    ("Device OS Version: $osVersion\nApp Version: $appVersion\n\n$report").toByteArray()
+                )
+                fileOutputStream.close()
+                targetFile
+            } catch (e: IOException) {
+                e.printStackTrace()
+                null
+            }
+        }
+
+        const val DIAGNOSTICS_FILE_NAME = "Network_Diagnostics.txt"
     }
 }
\ No newline at end of file
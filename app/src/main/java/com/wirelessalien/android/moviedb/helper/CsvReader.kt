@@ -0,0 +1,88 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.helper
+
+import java.io.BufferedReader
+import java.io.Closeable
+import java.io.IOException
+import java.io.Reader
+
+/**
+ * Reads RFC 4180 CSV one row at a time. Quoted values can contain commas,
+ * doubled quotes and line breaks. An empty unquoted value is read as null.
+ */
+class CsvReader(reader: Reader) : Closeable {
+    private val reader = reader as? BufferedReader ?: BufferedReader(reader)
+    private val field = StringBuilder()
+
+    /**
+     * Returns the values of the next row, or null when the end of the input is reached.
+     */
+    @Throws(IOException::class)
+    fun readRow(): List<String?>? {
+        var c = reader.read()
+        if (c == -1) {
+            return null
+        }
+        val row = ArrayList<String?>()
+        while (true) {
+            field.setLength(0)
+            var quoted = false
+            if (c == '"'.code) {
+                quoted = true
+                while (true) {
+                    c = reader.read()
+                    if (c == -1) {
+                        break
+                    }
+                    if (c == '"'.code) {
+                        c = reader.read()
+                        if (c != '"'.code) {
+                            break
+                        }
+                    }
+                    field.append(c.toChar())
+                }
+            }
+            // Anything after the closing quote (or an unquoted value) up to the separator.
+            while (c != -1 && c != ','.code && c != '\n'.code && c != '\r'.code) {
+                field.append(c.toChar())
+                c = reader.read()
+            }
+            row.add(if (!quoted && field.isEmpty()) null else field.toString())
+            when (c) {
+                ','.code -> c = reader.read()
+                '\r'.code -> {
+                    reader.mark(1)
+                    if (reader.read() != '\n'.code) {
+                        reader.reset()
+                    }
+                    return row
+                }
+                else -> return row
+            }
+        }
+    }
+
+    @Throws(IOException::class)
+    override fun close() {
+        reader.close()
+    }
+}
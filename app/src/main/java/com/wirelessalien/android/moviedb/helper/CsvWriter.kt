@@ -0,0 +1,62 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.helper
+
+import java.io.Closeable
+import java.io.Flushable
+import java.io.IOException
+import java.io.Writer
+
+/**
+ * Writes rows as RFC 4180 CSV. Values are quoted and quotes inside them are doubled,
+ * so commas and line breaks in a value are kept. Null values are written as an empty
+ * unquoted field, which [CsvReader] reads back as null.
+ */
+class CsvWriter(private val writer: Writer) : Closeable, Flushable {
+
+    @Throws(IOException::class)
+    fun writeRow(values: Array<out String?>) {
+        for (i in values.indices) {
+            if (i > 0) {
+                writer.write(','.code)
+            }
+            val value = values[i] ?: continue
+            writer.write('"'.code)
+            for (c in value) {
+                if (c == '"') {
+                    writer.write('"'.code)
+                }
+                writer.write(c.code)
+            }
+            writer.write('"'.code)
+        }
+        writer.write("\r\n")
+    }
+
+    @Throws(IOException::class)
+    override fun flush() {
+        writer.flush()
+    }
+
+    @Throws(IOException::class)
+    override fun close() {
+        writer.close()
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.helper
+
+import android.content.Context
+import android.database.sqlite.SQLiteDatabase
+import android.database.sqlite.SQLiteOpenHelper
+import android.os.Build
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.OutputStream
+
+/**
+ * Connection settings that are shared by all database helpers.
+ *
+ * Every helper has a single instance for the whole process (see App), so a database
+ * is opened and configured once and must not be closed by the code that uses it.
+ */
+object DatabaseConfig {
+    /** A negative cache size is in KiB, this allows 4 MiB of cached pages per connection. */
+    private const val CACHE_SIZE_KIB = 4096
+
+    /** How often a snapshot is retried when other writes keep filling the log. */
+    private const val SNAPSHOT_ATTEMPTS = 5
+
+    /**
+     * Called from SQLiteOpenHelper.onConfigure, after write-ahead logging is enabled.
+     * NORMAL is safe in WAL mode: a crash may lose the last commit, but never corrupts the file.
+     */
+    @JvmStatic
+    fun configure(db: SQLiteDatabase) {
+        db.execSQL("PRAGMA synchronous = NORMAL")
+        db.execSQL("PRAGMA cache_size = -$CACHE_SIZE_KIB")
+    }
+
+    /**
+     * Moves everything in the write-ahead log into the database file,
+     * so the file can be copied as a complete database.
+     */
+    @JvmStatic
+    fun checkpoint(helper: SQLiteOpenHelper) {
+        helper.writableDatabase.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null).use {
+            it.moveToFirst()
+        }
+    }
+
+    /**
+     * Writes a consistent copy of the database to the stream, while the app keeps using it.
+     * The copy is made in the cache directory first and then streamed with a small buffer,
+     * so the database is never held in memory. The stream is not closed.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun writeSnapshot(context: Context, helper: SQLiteOpenHelper, outputStream: OutputStream) {
+        val snapshot = File.createTempFile("snapshot", ".db", context.cacheDir)
+        try {
+            createSnapshot(context, helper, snapshot)
+            FileInputStream(snapshot).use { it.copyTo(outputStream) }
+            outputStream.flush()
+        } finally {
+            snapshot.delete()
+        }
+    }
+
+    /**
+     * Copies the database into the snapshot file, which must be empty or not exist yet.
+     * VACUUM INTO needs SQLite 3.27 (Android 11). On older versions the log is moved into
+     * the database file and the file is copied while a transaction keeps writers out;
+     * if a write slipped in between, the log is not empty and it is tried again.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun createSnapshot(context: Context, helper: SQLiteOpenHelper, snapshot: File) {
+        val databaseFile = context.getDatabasePath(helper.databaseName)
+        val db = helper.writableDatabase
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            db.execSQL("VACUUM INTO ?", arrayOf(snapshot.path))
+            return
+        }
+        val log = File(databaseFile.path + "-wal")
+        repeat(SNAPSHOT_ATTEMPTS) {
+            checkpoint(helper)
+            db.beginTransaction()
+            try {
+                if (log.length() == 0L) {
+                    FileInputStream(databaseFile).channel.use { source ->
+                        FileOutputStream(snapshot).channel.use { target ->
+                            var position = 0L
+                            val size = source.size()
+                            while (position < size) {
+                                position += source.transferTo(position, size - position, target)
+                            }
+                        }
+                    }
+                    return
+                }
+            } finally {
+                db.endTransaction()
+            }
+        }
+        throw IOException("The database is too busy to make a snapshot")
+    }
+
+    /**
+     * Replaces the database of the helper with a copy of [source]. The file is copied next to
+     * the database first, so the database stays usable while it is copied. It is then renamed
+     * into place while the helper is closed and locked, so the helper can never be reopened on
+     * a partly written file. The helper opens the new database the next time it is used,
+     * which is why callers must always get the database from the helper instead of keeping it.
+     */
+    @JvmStatic
+    @Throws(IOException::class)
+    fun replaceDatabase(context: Context, helper: SQLiteOpenHelper, source: File) {
+        val databaseFile = context.getDatabasePath(helper.databaseName)
+        val copy = File(databaseFile.path + "-import")
+        try {
+            FileInputStream(source).channel.use { input ->
+                FileOutputStream(copy).channel.use { output ->
+                    var position = 0L
+                    val size = input.size()
+                    while (position < size) {
+                        position += input.transferTo(position, size - position, output)
+                    }
+                    output.force(true)
+                }
+            }
+            // SQLiteOpenHelper opens and closes the database while holding its own lock.
+            synchronized(helper) {
+                helper.close()
+                File(databaseFile.path + "-wal").delete()
+                File(databaseFile.path + "-shm").delete()
+                if (!copy.renameTo(databaseFile)) {
+                    throw IOException("Could not replace " + databaseFile.name)
+                }
+            }
+        } finally {
+            copy.delete()
+        }
+    }
+}
@@ -20,35 +20,147 @@
 package com.wirelessalien.android.moviedb.helper
 
 import android.content.Context
+import android.database.Cursor
 import android.database.sqlite.SQLiteDatabase
 import android.database.sqlite.SQLiteOpenHelper
+import com.wirelessalien.android.moviedb.App
+import com.wirelessalien.android.moviedb.data.Episode
 
-class EpisodeReminderDatabaseHelper(context: Context?) :
+class EpisodeReminderDatabaseHelper internal constructor(context: Context?) :
     SQLiteOpenHelper(context, DATABASE_NAME, null, DATABASE_VERSION) {
+    init {
+        setWriteAheadLoggingEnabled(true)
+    }
+
+    override fun onConfigure(db: SQLiteDatabase) {
+        super.onConfigure(db)
+        DatabaseConfig.configure(db)
+    }
+
     override fun onCreate(database: SQLiteDatabase) {
         database.execSQL(DATABASE_CREATE)
+        database.execSQL(CREATE_DATE_INDEX)
+        database.execSQL(CREATE_EPISODE_INDEX)
     }
 
     override fun onUpgrade(db: SQLiteDatabase, oldVersion: Int, newVersion: Int) {
-        db.execSQL("DROP TABLE IF EXISTS $TABLE_EPISODE_REMINDERS")
-        onCreate(db)
+        if (oldVersion < 2) {
+            db.execSQL(CREATE_DATE_INDEX)
+        }
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE $TABLE_EPISODE_REMINDERS ADD COLUMN $COLUMN_SEASON_NUMBER INTEGER;")
+            // The reminders of older versions have no season, so only exact copies are removed.
+            db.execSQL(
+                "DELETE FROM $TABLE_EPISODE_REMINDERS WHERE $COLUMN_ID NOT IN " +
+                        "(SELECT MAX($COLUMN_ID) FROM $TABLE_EPISODE_REMINDERS " +
+                        "GROUP BY $COLUMN_MOVIE_ID, $COLUMN_EPISODE_NUMBER, $COLUMN_DATE);"
+            )
+            db.execSQL(CREATE_EPISODE_INDEX)
+        }
+    }
+
+    /**
+     * Adds reminders for the episodes of a season in one transaction,
+     * episodes that already have a reminder get their name and air date updated.
+     * Reminders of older versions have no season, the one of an episode is
+     * recognised by its episode number and air date and gets the season.
+     *
+     * @return the number of reminders that were added.
+     */
+    fun addReminders(movieId: Int, tvShowName: String?, seasonNumber: Int, episodes: List<Episode>): Int {
+        val db = this.writableDatabase
+        var added = 0
+        db.beginTransaction()
+        try {
+            db.compileStatement(UPDATE_REMINDER).use { update ->
+                db.compileStatement(CLAIM_REMINDER).use { claim ->
+                    db.compileStatement(INSERT_REMINDER).use { insert ->
+                        for (episode in episodes) {
+                            for (statement in arrayOf(update, insert)) {
+                                statement.bindString(1, tvShowName ?: "")
+                                statement.bindString(2, episode.name)
+                                statement.bindString(3, episode.airDate)
+                                statement.bindLong(4, movieId.toLong())
+                                statement.bindLong(5, seasonNumber.toLong())
+                                statement.bindLong(6, episode.episodeNumber.toLong())
+                            }
+                            claim.bindString(1, tvShowName ?: "")
+                            claim.bindString(2, episode.name)
+                            claim.bindLong(3, seasonNumber.toLong())
+                            claim.bindLong(4, movieId.toLong())
+                            claim.bindLong(5, episode.episodeNumber.toLong())
+                            claim.bindString(6, episode.airDate)
+                            if (update.executeUpdateDelete() == 0 && claim.executeUpdateDelete() == 0) {
+                                insert.executeInsert()
+                                added++
+                            }
+                        }
+                    }
+                }
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
+        return added
+    }
+
+    /**
+     * Returns the reminders of the episodes that air on the given day.
+     *
+     * @param day the day in days since 1970-01-01.
+     */
+    fun getEpisodesAiringOn(day: Long): Cursor {
+        return this.readableDatabase.rawQuery(
+            "SELECT * FROM $TABLE_EPISODE_REMINDERS WHERE $COLUMN_DATE = $DAY_AS_DATE " +
+                    "ORDER BY $COLUMN_TV_SHOW_NAME, $COLUMN_EPISODE_NUMBER",
+            arrayOf(day.toString())
+        )
+    }
+
+    /**
+     * Returns the first day after the given day on which an episode with a reminder airs,
+     * or null if there is none. Both days are in days since 1970-01-01.
+     */
+    fun getNextAirDay(afterDay: Long): Long? {
+        this.readableDatabase.rawQuery(
+            "SELECT CAST(JULIANDAY(MIN($COLUMN_DATE)) - 2440587.5 AS INTEGER) " +
+                    "FROM $TABLE_EPISODE_REMINDERS WHERE $COLUMN_DATE > $DAY_AS_DATE",
+            arrayOf(afterDay.toString())
+        ).use { cursor ->
+            return if (cursor.moveToFirst() && !cursor.isNull(0)) cursor.getLong(0) else null
+        }
     }
 
-    fun deleteData(movieId: Int) {
+    /**
+     * Removes the reminders of all episodes of the show.
+     *
+     * @return the number of reminders that were removed.
+     */
+    fun deleteData(movieId: Int): Int {
         val db = this.writableDatabase
-        db.delete(TABLE_EPISODE_REMINDERS, "$COLUMN_MOVIE_ID=$movieId", null)
-        db.close()
+        return db.delete(TABLE_EPISODE_REMINDERS, "$COLUMN_MOVIE_ID = ?", arrayOf(movieId.toString()))
     }
 
     companion object {
+
+        /**
+         * Returns the helper that is shared by the whole application.
+         */
+        @JvmStatic
+        fun getInstance(context: Context): EpisodeReminderDatabaseHelper {
+            return (context.applicationContext as App).episodeReminderDatabaseHelper
+        }
+
         private const val DATABASE_NAME = "episode_reminder.db"
-        private const val DATABASE_VERSION = 1
+        private const val DATABASE_VERSION = 3
         const val TABLE_EPISODE_REMINDERS = "episode_reminders"
-        private const val COLUMN_ID = "_id"
+        const val COLUMN_ID = "_id"
         const val COLUMN_MOVIE_ID = "movie_id"
         const val COLUMN_TV_SHOW_NAME = "tv_show_name"
         const val COLUMN_NAME = "name"
         const val COLUMN_EPISODE_NUMBER = "episode_number"
+        const val COLUMN_SEASON_NUMBER = "season_number"
         const val COLUMN_DATE = "date"
         private const val DATABASE_CREATE = ("create table "
                 + TABLE_EPISODE_REMINDERS + "(" + COLUMN_ID
@@ -57,6 +169,29 @@ class EpisodeReminderDatabaseHelper(context: Context?) :
                 + " integer not null, " + COLUMN_NAME
                 + " text not null, " + COLUMN_EPISODE_NUMBER
                 + " text not null, " + COLUMN_DATE
-                + " text not null);")
+                + " text not null, " + COLUMN_SEASON_NUMBER
+                + " integer);")
+
+        /** The air dates are stored as yyyy-MM-dd, so they sort (and compare) as dates. */
+        private const val CREATE_DATE_INDEX = "CREATE INDEX IF NOT EXISTS " +
+                "episode_reminders_date ON $TABLE_EPISODE_REMINDERS($COLUMN_DATE);"
+
+        /** Every episode has one reminder, the index also serves the lookups by show. */
+        private const val CREATE_EPISODE_INDEX = "CREATE UNIQUE INDEX IF NOT EXISTS " +
+                "episode_reminders_episode ON $TABLE_EPISODE_REMINDERS" +
+                "($COLUMN_MOVIE_ID, $COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER);"
+        private const val UPDATE_REMINDER = "UPDATE $TABLE_EPISODE_REMINDERS SET " +
+                "$COLUMN_TV_SHOW_NAME = ?, $COLUMN_NAME = ?, $COLUMN_DATE = ? WHERE $COLUMN_MOVIE_ID = ? " +
+                "AND $COLUMN_SEASON_NUMBER = ? AND $COLUMN_EPISODE_NUMBER = ?"
+        private const val CLAIM_REMINDER = "UPDATE $TABLE_EPISODE_REMINDERS SET " +
+                "$COLUMN_TV_SHOW_NAME = ?, $COLUMN_NAME = ?, $COLUMN_SEASON_NUMBER = ? " +
+                "WHERE $COLUMN_MOVIE_ID = ? AND $COLUMN_SEASON_NUMBER IS NULL " +
+                "AND $COLUMN_EPISODE_NUMBER = ? AND $COLUMN_DATE = ?"
+        private const val INSERT_REMINDER = "INSERT INTO $TABLE_EPISODE_REMINDERS " +
+                "($COLUMN_TV_SHOW_NAME, $COLUMN_NAME, $COLUMN_DATE, $COLUMN_MOVIE_ID, " +
+                "$COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER) VALUES (?, ?, ?, ?, ?, ?)"
+
+        /** A day bound as days since 1970-01-01, as the yyyy-MM-dd date of the date column. */
+        private const val DAY_AS_DATE = "DATE(? * 86400, 'unixepoch')"
     }
 }
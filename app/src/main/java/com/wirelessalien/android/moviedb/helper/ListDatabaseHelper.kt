@@ -23,9 +23,21 @@ import android.content.ContentValues
 import android.content.Context
 import android.database.sqlite.SQLiteDatabase
 import android.database.sqlite.SQLiteOpenHelper
+import com.wirelessalien.android.moviedb.App
+import org.json.JSONException
+import org.json.JSONObject
 
-class ListDatabaseHelper(context: Context?) :
+class ListDatabaseHelper internal constructor(context: Context?) :
     SQLiteOpenHelper(context, DATABASE_NAME, null, DATABASE_VERSION) {
+    init {
+        setWriteAheadLoggingEnabled(true)
+    }
+
+    override fun onConfigure(db: SQLiteDatabase) {
+        super.onConfigure(db)
+        DatabaseConfig.configure(db)
+    }
+
     override fun onCreate(db: SQLiteDatabase) {
         val CREATE_LIST_DATA_TABLE = ("CREATE TABLE " + TABLE_LIST_DATA + "("
                 + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
@@ -61,7 +73,6 @@ class ListDatabaseHelper(context: Context?) :
             db.insert(TABLE_LISTS, null, values)
         }
         cursor.close()
-        db.close()
     }
 
     fun addListDetails(listId: Int, listName: String?, movieId: Int, mediaType: String?) {
@@ -82,7 +93,53 @@ class ListDatabaseHelper(context: Context?) :
             db.insert(TABLE_LIST_DATA, null, values)
         }
         cursor.close()
-        db.close()
+    }
+
+    /**
+     * Adds all items of a TMDB list in a single transaction,
+     * items that are already in the list are skipped.
+     *
+     * @param items the items as returned by the API, with an "id" and a "media_type".
+     * @return the amount of items that could not be read.
+     */
+    fun addListDetails(listId: Int, listName: String?, items: List<JSONObject>): Int {
+        val db = this.writableDatabase
+        var invalidItems = 0
+        db.beginTransaction()
+        try {
+            // Load the ids that are already in the list with one query instead of one per item.
+            val existingIds = HashSet<Int>()
+            val selectQuery = "SELECT " + COLUMN_MOVIE_ID + " FROM " + TABLE_LIST_DATA +
+                    " WHERE " + COLUMN_LIST_ID + " = ?"
+            db.rawQuery(selectQuery, arrayOf(listId.toString())).use { cursor ->
+                while (cursor.moveToNext()) {
+                    existingIds.add(cursor.getInt(0))
+                }
+            }
+
+            val values = ContentValues()
+            for (item in items) {
+                try {
+                    val movieId = item.getInt("id")
+                    val mediaType = item.getString("media_type")
+                    if (existingIds.add(movieId)) {
+                        values.clear()
+                        values.put(COLUMN_LIST_ID, listId)
+                        values.put(COLUMN_LIST_NAME, listName)
+                        values.put(COLUMN_MOVIE_ID, movieId)
+                        values.put(COLUMN_MEDIA_TYPE, mediaType)
+                        db.insert(TABLE_LIST_DATA, null, values)
+                    }
+                } catch (e: JSONException) {
+                    e.printStackTrace()
+                    invalidItems++
+                }
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
+        return invalidItems
     }
 
     fun deleteData(movieId: Int, listId: Int) {
@@ -92,17 +149,24 @@ class ListDatabaseHelper(context: Context?) :
             "$COLUMN_MOVIE_ID=$movieId AND $COLUMN_LIST_ID=$listId",
             null
         )
-        db.close()
     }
 
     fun deleteAllData() {
         val db = this.writableDatabase
         db.delete(TABLE_LIST_DATA, null, null)
         db.delete(TABLE_LISTS, null, null)
-        db.close()
     }
 
     companion object {
+
+        /**
+         * Returns the helper that is shared by the whole application.
+         */
+        @JvmStatic
+        fun getInstance(context: Context): ListDatabaseHelper {
+            return (context.applicationContext as App).listDatabaseHelper
+        }
+
         private const val DATABASE_NAME = "list_database.db"
         private const val DATABASE_VERSION = 2
         const val TABLE_LIST_DATA = "list_data"
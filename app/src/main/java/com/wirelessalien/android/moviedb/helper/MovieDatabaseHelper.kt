@@ -19,160 +19,119 @@
  */
 package com.wirelessalien.android.moviedb.helper
 
-import android.content.ContentValues
 import android.content.Context
 import android.content.DialogInterface
+import android.database.Cursor
+import android.database.sqlite.SQLiteConstraintException
 import android.database.sqlite.SQLiteDatabase
+import android.database.sqlite.SQLiteDoneException
 import android.database.sqlite.SQLiteOpenHelper
+import android.database.sqlite.SQLiteStatement
 import android.net.Uri
+import android.os.Build
+import android.util.JsonReader
+import android.util.JsonToken
+import android.util.JsonWriter
 import android.util.Log
+import android.util.SparseArray
 import android.view.LayoutInflater
 import android.widget.ArrayAdapter
 import android.widget.RadioButton
 import android.widget.Toast
 import androidx.documentfile.provider.DocumentFile
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.wirelessalien.android.moviedb.App
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.activity.ExportActivity
 import com.wirelessalien.android.moviedb.data.EpisodeDbDetails
+import com.wirelessalien.android.moviedb.data.SeasonTrackingState
+import com.wirelessalien.android.moviedb.data.ShowFilter
 import com.wirelessalien.android.moviedb.helper.DirectoryHelper.getExportDirectory
 import com.wirelessalien.android.moviedb.listener.AdapterDataChangedListener
+import com.wirelessalien.android.moviedb.work.ReleaseReminderWorker
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import org.json.JSONArray
-import org.json.JSONException
-import org.json.JSONObject
 import java.io.BufferedOutputStream
 import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.Closeable
 import java.io.File
 import java.io.FileInputStream
 import java.io.FileOutputStream
-import java.io.FileReader
 import java.io.IOException
-import java.nio.ByteBuffer
+import java.io.InputStreamReader
+import java.io.OutputStream
+import java.io.OutputStreamWriter
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
+import java.util.TimeZone
+import java.util.concurrent.TimeUnit
 
 /**
  * This class provides some (basic) database functionality.
  */
-class MovieDatabaseHelper  // Initialize the database object.
-/**
- * Initialises the database object.
- *
- * @param context the context passed on to the super.
- */
-    (context: Context?) : SQLiteOpenHelper(context, databaseFileName, null, DATABASE_VERSION) {
+class MovieDatabaseHelper internal constructor(context: Context?) :
+    SQLiteOpenHelper(context, databaseFileName, null, DATABASE_VERSION) {
+    init {
+        setWriteAheadLoggingEnabled(true)
+    }
+
+    override fun onConfigure(db: SQLiteDatabase) {
+        super.onConfigure(db)
+        DatabaseConfig.configure(db)
+    }
+
     /**
-     * Converts the show table in the database to a JSON string.
+     * Writes the shows in the database as a JSON array to the stream, every show
+     * with an "episodes" array of its watched episodes. The shows and episodes are read
+     * with one ordered join and written as they are read, so the export is never held in memory.
      *
      * @param database the database to get the data from.
-     * @return a string in JSON format containing all the show data.
+     * @param outputStream the stream to write to, it is flushed but not closed.
      */
-    private fun getEpisodesForMovie(movieId: Int, database: SQLiteDatabase): JSONArray {
-        val selectQuery =
-            "SELECT * FROM $TABLE_EPISODES WHERE $COLUMN_MOVIES_ID = $movieId"
-        val cursor = database.rawQuery(selectQuery, null)
-
-        // Convert the database to JSON
-        val episodesSet = JSONArray()
-        cursor.moveToFirst()
-        while (!cursor.isAfterLast) {
-            val totalColumn = cursor.columnCount
-            val rowObject = JSONObject()
-            for (i in 0 until totalColumn) {
-                if (cursor.getColumnName(i) != null) {
-                    try {
-                        if (cursor.getString(i) != null) {
-                            rowObject.put(cursor.getColumnName(i), cursor.getString(i))
-                        } else {
-                            rowObject.put(cursor.getColumnName(i), "")
-                        }
-                    } catch (e: JSONException) {
-                        e.printStackTrace()
+    private fun writeJSONExport(database: SQLiteDatabase, outputStream: OutputStream) {
+        val writer = JsonWriter(OutputStreamWriter(outputStream, Charsets.UTF_8))
+        database.rawQuery(JSON_EXPORT_QUERY, null).use { cursor ->
+            val columnNames = cursor.columnNames
+            val showColumns = columnNames.indices.filter { !columnNames[it].startsWith(EPISODE_ALIAS) }
+            val episodeColumns = columnNames.indices.filter { columnNames[it].startsWith(EPISODE_ALIAS) }
+            val showIdIndex = cursor.getColumnIndexOrThrow(COLUMN_ID)
+            val episodeIdIndex = columnNames.indexOf(EPISODE_ALIAS + COLUMN_ID)
+            var currentShowId: Long? = null
+
+            writer.beginArray()
+            while (cursor.moveToNext()) {
+                val showId = cursor.getLong(showIdIndex)
+                if (showId != currentShowId) {
+                    if (currentShowId != null) {
+                        writer.endArray().endObject()
+                    }
+                    writer.beginObject()
+                    for (i in showColumns) {
+                        writer.name(columnNames[i]).value(cursor.getString(i) ?: "")
                     }
+                    writer.name("episodes").beginArray()
+                    currentShowId = showId
                 }
-            }
-            episodesSet.put(rowObject)
-            cursor.moveToNext()
-        }
-        cursor.close()
-        return episodesSet
-    }
-
-    private suspend fun getJSONExportString(database: SQLiteDatabase): String = withContext(Dispatchers.IO) {
-        val selectQuery = "SELECT * FROM $TABLE_MOVIES"
-        val cursor = database.rawQuery(selectQuery, null)
-
-        // Convert the database to JSON
-        val databaseSet = JSONArray()
-        cursor.moveToFirst()
-        while (!cursor.isAfterLast) {
-            val totalColumn = cursor.columnCount
-            val rowObject = JSONObject()
-            for (i in 0 until totalColumn) {
-                if (cursor.getColumnName(i) != null) {
-                    try {
-                        if (cursor.getString(i) != null) {
-                            rowObject.put(cursor.getColumnName(i), cursor.getString(i))
-                        } else {
-                            rowObject.put(cursor.getColumnName(i), "")
-                        }
-                    } catch (e: JSONException) {
-                        e.printStackTrace()
+                // Shows without episodes still have one row, with only nulls for the episode.
+                if (!cursor.isNull(episodeIdIndex)) {
+                    writer.beginObject()
+                    for (i in episodeColumns) {
+                        writer.name(columnNames[i].removePrefix(EPISODE_ALIAS))
+                            .value(cursor.getString(i) ?: "")
                     }
+                    writer.endObject()
                 }
             }
-
-            // Add episodes for this movie
-            val movieId = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_MOVIES_ID))
-            try {
-                rowObject.put("episodes", getEpisodesForMovie(movieId, database))
-            } catch (e: JSONException) {
-                e.printStackTrace()
-            }
-            databaseSet.put(rowObject)
-            cursor.moveToNext()
-        }
-        cursor.close()
-
-        // Convert databaseSet to string and put in file
-        databaseSet.toString()
-    }
-
-    private suspend fun getCSVExportString(database: SQLiteDatabase): String = withContext(Dispatchers.IO) {
-        val selectQuery = """
-        SELECT m.*, e.$COLUMN_SEASON_NUMBER, e.$COLUMN_EPISODE_NUMBER, e.$COLUMN_EPISODE_RATING,
-               e.$COLUMN_EPISODE_WATCH_DATE, e.$COLUMN_EPISODE_REVIEW
-        FROM $TABLE_MOVIES m
-        LEFT JOIN $TABLE_EPISODES e ON m.$COLUMN_MOVIES_ID = e.$COLUMN_MOVIES_ID
-    """
-        val cursor = database.rawQuery(selectQuery, null)
-
-        val csvBuilder = StringBuilder()
-        val columnNames = cursor.columnNames
-
-        // Add column headers
-        csvBuilder.append(columnNames.joinToString(",") { "\"$it\"" }).append("\n")
-
-        // Add rows
-        cursor.moveToFirst()
-        while (!cursor.isAfterLast) {
-            val rowValues = mutableListOf<String>()
-            for (i in columnNames.indices) {
-                val value = cursor.getString(i) ?: "null"
-                val escapedValue = value.replace("\"", "\"\"")
-                rowValues.add("\"$escapedValue\"")
+            if (currentShowId != null) {
+                writer.endArray().endObject()
             }
-            csvBuilder.append(rowValues.joinToString(",")).append("\n")
-            cursor.moveToNext()
+            writer.endArray()
         }
-        cursor.close()
-
-        csvBuilder.toString()
+        writer.flush()
     }
 
     /**
@@ -211,15 +170,13 @@ class MovieDatabaseHelper  // Initialize the database object.
         when {
             jsonRadioButton.isChecked -> {
                 CoroutineScope(Dispatchers.IO).launch {
-                    val fileContent = getJSONExportString(readableDatabase)
                     val fileExtension = ".json"
                     val fileName = DATABASE_FILE_NAME + simpleDateFormat.format(Date()) + fileExtension
                     try {
                         val newFile = documentFile?.createFile("application/json", fileName)
                         val outputStream = context.contentResolver.openOutputStream(newFile!!.uri)
                         outputStream?.use {
-                            it.write(fileContent.toByteArray())
-                            it.flush()
+                            writeJSONExport(readableDatabase, it)
                         }
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + fileName, Toast.LENGTH_SHORT).show()
@@ -237,26 +194,10 @@ class MovieDatabaseHelper  // Initialize the database object.
                 val exportDBPath = DATABASE_FILE_NAME + simpleDateFormat.format(Date()) + fileExtension
                 CoroutineScope(Dispatchers.IO).launch {
                     try {
-                        val dynamicDbPath = context.getDatabasePath(databaseFileName).absolutePath
-                        val currentDb = File(dynamicDbPath)
-
-                        if (!currentDb.exists()) {
-                            withContext(Dispatchers.Main) {
-                                Toast.makeText(context, context.resources.getString(R.string.database_not_found), Toast.LENGTH_SHORT).show()
-                            }
-                        }
-
                         val newFile = documentFile?.createFile("application/octet-stream", exportDBPath)
                         val outputStream = context.contentResolver.openOutputStream(newFile!!.uri)
-                        val fileChannel = FileInputStream(currentDb).channel
-                        val buffer = ByteBuffer.allocate(fileChannel.size().toInt())
-                        fileChannel.read(buffer)
-                        buffer.flip()
-                        val byteArray = ByteArray(buffer.remaining())
-                        buffer[byteArray]
                         outputStream?.use {
-                            it.write(byteArray)
-                            it.flush()
+                            DatabaseConfig.writeSnapshot(context, this@MovieDatabaseHelper, it)
                         }
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + exportDBPath, Toast.LENGTH_SHORT).show()
@@ -273,15 +214,13 @@ class MovieDatabaseHelper  // Initialize the database object.
             }
             csvRadioButton.isChecked -> {
                 CoroutineScope(Dispatchers.IO).launch {
-                    val fileContent = getCSVExportString(readableDatabase)
                     val fileExtension = ".csv"
                     val fileName = DATABASE_FILE_NAME + simpleDateFormat.format(Date()) + fileExtension
                     try {
                         val newFile = documentFile?.createFile("text/csv", fileName)
                         val outputStream = context.contentResolver.openOutputStream(newFile!!.uri)
                         outputStream?.use {
-                            it.write(fileContent.toByteArray())
-                            it.flush()
+                            cSVExport(readableDatabase, it)
                         }
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + fileName, Toast.LENGTH_SHORT).show()
@@ -302,15 +241,13 @@ class MovieDatabaseHelper  // Initialize the database object.
         when {
             jsonRadioButton.isChecked -> {
                 CoroutineScope(Dispatchers.IO).launch {
-                    val fileContent = getJSONExportString(readableDatabase)
                     val fileExtension = ".json"
                     val fileName = DATABASE_FILE_NAME + simpleDateFormat.format(Date()) + fileExtension
                     try {
                         val file = File(exportDirectory, fileName)
-                        val bufferedOutputStream = BufferedOutputStream(FileOutputStream(file))
-                        bufferedOutputStream.write(fileContent.toByteArray())
-                        bufferedOutputStream.flush()
-                        bufferedOutputStream.close()
+                        BufferedOutputStream(FileOutputStream(file)).use {
+                            writeJSONExport(readableDatabase, it)
+                        }
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + fileName, Toast.LENGTH_SHORT).show()
                         }
@@ -327,26 +264,9 @@ class MovieDatabaseHelper  // Initialize the database object.
                 val exportDBPath = DATABASE_FILE_NAME + simpleDateFormat.format(Date()) + fileExtension
                 CoroutineScope(Dispatchers.IO).launch {
                     try {
-                        val dynamicDbPath = context.getDatabasePath(databaseFileName).absolutePath
-                        val currentDb = File(dynamicDbPath)
-
-                        if (!currentDb.exists()) {
-                            withContext(Dispatchers.Main) {
-                                Toast.makeText(context, context.resources.getString(R.string.database_not_found), Toast.LENGTH_SHORT).show()
-                            }
+                        FileOutputStream(File(exportDirectory, exportDBPath)).use {
+                            DatabaseConfig.writeSnapshot(context, this@MovieDatabaseHelper, it)
                         }
-
-                        val exportDB = File(exportDirectory, exportDBPath)
-                        val bufferedOutputStream = BufferedOutputStream(FileOutputStream(exportDB))
-                        val fileChannel = FileInputStream(currentDb).channel
-                        val buffer = ByteBuffer.allocate(fileChannel.size().toInt())
-                        fileChannel.read(buffer)
-                        buffer.flip()
-                        val byteArray = ByteArray(buffer.remaining())
-                        buffer[byteArray]
-                        bufferedOutputStream.write(byteArray)
-                        bufferedOutputStream.flush()
-                        bufferedOutputStream.close()
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + exportDBPath, Toast.LENGTH_SHORT).show()
                         }
@@ -362,15 +282,13 @@ class MovieDatabaseHelper  // Initialize the database object.
             }
             csvRadioButton.isChecked -> {
                 CoroutineScope(Dispatchers.IO).launch {
-                    val fileContent = getCSVExportString(readableDatabase)
                     val fileExtension = ".csv"
                     val fileName = DATABASE_FILE_NAME + simpleDateFormat.format(Date()) + fileExtension
                     try {
                         val file = File(exportDirectory, fileName)
-                        val bufferedOutputStream = BufferedOutputStream(FileOutputStream(file))
-                        bufferedOutputStream.write(fileContent.toByteArray())
-                        bufferedOutputStream.flush()
-                        bufferedOutputStream.close()
+                        FileOutputStream(file).use {
+                            cSVExport(readableDatabase, it)
+                        }
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + fileName, Toast.LENGTH_SHORT).show()
                         }
@@ -408,7 +326,7 @@ class MovieDatabaseHelper  // Initialize the database object.
 
     /**
      * Displays a dialog with possible files to import and imports the chosen file.
-     * The current database will be dropped in that case.
+     * A database file replaces the current database, JSON and CSV files are merged into it.
      *
      * @param context the context needed for the dialog.
      */
@@ -417,9 +335,9 @@ class MovieDatabaseHelper  // Initialize the database object.
         val downloadPath = context.cacheDir.path
         val directory = File(downloadPath)
         val files = directory.listFiles { pathname: File ->
-            // Only show database
+            // Only show database, JSON and CSV files
             val name = pathname.name
-            name.endsWith(".db")
+            name.endsWith(".db") || name.endsWith(".json") || name.endsWith(".csv")
         }
         val fileAdapter = ArrayAdapter<String>(context, android.R.layout.select_dialog_singlechoice)
         for (file in files) {
@@ -440,14 +358,45 @@ class MovieDatabaseHelper  // Initialize the database object.
                     CoroutineScope(Dispatchers.IO).launch {
                         try {
                             // Import the file selected in the dialog.
-                            val currentDBPath = context.getDatabasePath(databaseFileName).absolutePath
-                            val currentDB = File(currentDBPath)
-                            val importDB = File(path, exportDBPath)
-                            val src = FileInputStream(importDB).channel
-                            val dst = FileOutputStream(currentDB).channel
-                            dst.transferFrom(src, 0, src.size())
-                            src.close()
-                            dst.close()
+                            DatabaseConfig.replaceDatabase(context, this@MovieDatabaseHelper, File(path, exportDBPath))
+                            ReleaseReminderWorker.schedule(context)
+                            withContext(Dispatchers.Main) {
+                                Toast.makeText(context, R.string.database_import_successful, Toast.LENGTH_SHORT).show()
+                            }
+                        } catch (e: Exception) {
+                            e.printStackTrace()
+                        }
+                    }
+                } else if (exportDBPath.endsWith(".json")) {
+                    val progressDialog = MaterialAlertDialogBuilder(context)
+                        .setTitle(R.string.importing)
+                        .setMessage(context.getString(R.string.import_progress, 0))
+                        .setCancelable(false)
+                        .show()
+                    CoroutineScope(Dispatchers.IO).launch {
+                        try {
+                            importJSONToDatabase(writableDatabase, File(path, exportDBPath)) { rowCount ->
+                                launch(Dispatchers.Main) {
+                                    progressDialog.setMessage(context.getString(R.string.import_progress, rowCount))
+                                }
+                            }
+                            ReleaseReminderWorker.schedule(context)
+                            withContext(Dispatchers.Main) {
+                                Toast.makeText(context, R.string.database_import_successful, Toast.LENGTH_SHORT).show()
+                            }
+                        } catch (e: Exception) {
+                            e.printStackTrace()
+                        } finally {
+                            withContext(Dispatchers.Main) {
+                                progressDialog.dismiss()
+                            }
+                        }
+                    }
+                } else if (exportDBPath.endsWith(".csv")) {
+                    CoroutineScope(Dispatchers.IO).launch {
+                        try {
+                            importCSVToDatabase(writableDatabase, File(path, exportDBPath))
+                            ReleaseReminderWorker.schedule(context)
                             withContext(Dispatchers.Main) {
                                 Toast.makeText(context, R.string.database_import_successful, Toast.LENGTH_SHORT).show()
                             }
@@ -465,36 +414,185 @@ class MovieDatabaseHelper  // Initialize the database object.
         fileDialog.show()
     }
 
-    fun importCSVToDatabase(database: SQLiteDatabase, csvFile: File) {
-        try {
-            val bufferedReader = BufferedReader(FileReader(csvFile))
-            var line: String? = bufferedReader.readLine() // Read header line
-            val columns = line?.split(",")?.map { it.trim('"') } ?: return
+    /**
+     * Imports a CSV file as written by the CSV export (a row per episode, after the
+     * columns of its show), or a file with only shows or only episodes.
+     * Shows are merged into the library by their TMDB id, episodes by their season and number.
+     * The rows are written with reused statements in transactions of
+     * [CSV_IMPORT_BATCH_SIZE] rows, so the file is never held in memory.
+     *
+     * @return the number of rows that were read.
+     */
+    @Throws(IOException::class)
+    fun importCSVToDatabase(database: SQLiteDatabase, csvFile: File): Int {
+        var rowCount = 0
+        CsvReader(InputStreamReader(FileInputStream(csvFile), Charsets.UTF_8)).use { reader ->
+            val header = reader.readRow() ?: return 0
+            val movieColumns = getColumnNames(database, TABLE_MOVIES)
+            val showIndices = if (header.contains(COLUMN_TITLE)) {
+                header.indices.filter { header[it] in movieColumns }
+            } else {
+                emptyList()
+            }
+            val movieIdIndex = header.indexOf(COLUMN_MOVIES_ID)
+            val seasonIndex = header.indexOf(COLUMN_SEASON_NUMBER)
+            val episodeIndex = header.indexOf(COLUMN_EPISODE_NUMBER)
+            val ratingIndex = header.indexOf(COLUMN_EPISODE_RATING)
+            val watchDateIndex = header.indexOf(COLUMN_EPISODE_WATCH_DATE)
+            val reviewIndex = header.indexOf(COLUMN_EPISODE_REVIEW)
+
+            val showWriter = ShowWriter(database)
+            val episodeWriter = EpisodeWriter(database)
+            val show = HashMap<String, String?>()
+            var previousShow: List<String?>? = null
 
             database.beginTransaction()
             try {
-                while (bufferedReader.readLine().also { line = it } != null) {
-                    val values = line?.split(",")?.map { it.trim('"') } ?: continue
-                    val contentValues = ContentValues()
+                while (true) {
+                    val row = reader.readRow() ?: break
+                    val values = row.map { if (it == "null") null else it }
 
-                    for (i in columns.indices) {
-                        contentValues.put(columns[i], values[i])
+                    // The show is repeated on the row of each of its episodes, only merge it once.
+                    if (showIndices.isNotEmpty()) {
+                        val showValues = showIndices.map { values.getOrNull(it) }
+                        if (showValues != previousShow) {
+                            show.clear()
+                            for (i in showIndices.indices) {
+                                show[header[showIndices[i]]!!] = showValues[i]
+                            }
+                            showWriter.merge(show)
+                            previousShow = showValues
+                        }
                     }
 
-                    if (columns.contains("episode_number")) {
-                        database.insert("episodes", null, contentValues)
-                    } else {
-                        database.insert("movies", null, contentValues)
+                    val movieId = values.getOrNull(movieIdIndex)?.toIntOrNull()
+                    val seasonNumber = values.getOrNull(seasonIndex)?.toIntOrNull()
+                    val episodeNumber = values.getOrNull(episodeIndex)?.toIntOrNull()
+                    if (movieId != null && seasonNumber != null && episodeNumber != null) {
+                        episodeWriter.upsert(
+                            movieId, seasonNumber, episodeNumber,
+                            values.getOrNull(ratingIndex)?.toFloatOrNull(),
+                            values.getOrNull(watchDateIndex),
+                            values.getOrNull(reviewIndex)
+                        )
+                    }
+
+                    rowCount++
+                    if (rowCount % CSV_IMPORT_BATCH_SIZE == 0) {
+                        database.setTransactionSuccessful()
+                        database.endTransaction()
+                        database.beginTransaction()
+                    }
+                }
+                database.setTransactionSuccessful()
+            } finally {
+                database.endTransaction()
+                showWriter.close()
+                episodeWriter.close()
+            }
+        }
+        return rowCount
+    }
+
+    /**
+     * Imports a JSON file as written by either JSON export: an array of shows that each
+     * have an "episodes" array, or an object with the rows of the movies and episodes tables.
+     * Shows are merged into the library by their TMDB id, episodes by their season and number.
+     * The file is read as a stream and written in transactions of [JSON_IMPORT_BATCH_SIZE] rows.
+     *
+     * @param onProgress called after every committed transaction with the number of rows so far.
+     * @return the number of rows that were read.
+     */
+    @Throws(IOException::class)
+    fun importJSONToDatabase(
+        database: SQLiteDatabase,
+        jsonFile: File,
+        onProgress: ((Int) -> Unit)? = null
+    ): Int {
+        var rowCount = 0
+        JsonReader(BufferedReader(InputStreamReader(FileInputStream(jsonFile), Charsets.UTF_8))).use { reader ->
+            val showWriter = ShowWriter(database)
+            val episodeWriter = EpisodeWriter(database)
+            val show = HashMap<String, String?>()
+            val episode = HashMap<String, String?>()
+
+            fun rowRead() {
+                rowCount++
+                if (rowCount % JSON_IMPORT_BATCH_SIZE == 0) {
+                    database.setTransactionSuccessful()
+                    database.endTransaction()
+                    onProgress?.invoke(rowCount)
+                    database.beginTransaction()
+                }
+            }
+
+            fun addEpisode() {
+                val movieId = episode[COLUMN_MOVIES_ID]?.toIntOrNull()
+                val seasonNumber = episode[COLUMN_SEASON_NUMBER]?.toIntOrNull()
+                val episodeNumber = episode[COLUMN_EPISODE_NUMBER]?.toIntOrNull()
+                if (movieId != null && seasonNumber != null && episodeNumber != null) {
+                    episodeWriter.upsert(
+                        movieId, seasonNumber, episodeNumber,
+                        episode[COLUMN_EPISODE_RATING]?.toFloatOrNull(),
+                        episode[COLUMN_EPISODE_WATCH_DATE],
+                        episode[COLUMN_EPISODE_REVIEW]
+                    )
+                }
+                rowRead()
+            }
+
+            database.beginTransaction()
+            try {
+                if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    // The layout of the JSON export: shows with their episodes nested.
+                    reader.beginArray()
+                    while (reader.hasNext()) {
+                        readJSONRow(reader, show) {
+                            reader.beginArray()
+                            while (reader.hasNext()) {
+                                readJSONRow(reader, episode)
+                                addEpisode()
+                            }
+                            reader.endArray()
+                        }
+                        showWriter.merge(show)
+                        rowRead()
                     }
+                    reader.endArray()
+                } else {
+                    // The layout of the table export: every table as an object of rows.
+                    reader.beginObject()
+                    while (reader.hasNext()) {
+                        val table = reader.nextName()
+                        if (table != TABLE_MOVIES && table != TABLE_EPISODES) {
+                            reader.skipValue()
+                            continue
+                        }
+                        reader.beginObject()
+                        while (reader.hasNext()) {
+                            reader.nextName()
+                            if (table == TABLE_MOVIES) {
+                                readJSONRow(reader, show)
+                                showWriter.merge(show)
+                                rowRead()
+                            } else {
+                                readJSONRow(reader, episode)
+                                addEpisode()
+                            }
+                        }
+                        reader.endObject()
+                    }
+                    reader.endObject()
                 }
                 database.setTransactionSuccessful()
             } finally {
                 database.endTransaction()
+                showWriter.close()
+                episodeWriter.close()
             }
-            bufferedReader.close()
-        } catch (e: IOException) {
-            e.printStackTrace()
         }
+        onProgress?.invoke(rowCount)
+        return rowCount
     }
 
     override fun onCreate(database: SQLiteDatabase) {
@@ -510,7 +608,8 @@ class MovieDatabaseHelper  // Initialize the database object.
                 COLUMN_PERSONAL_FINISH_DATE + " text, " + COLUMN_PERSONAL_REWATCHED +
                 " integer, " + COLUMN_CATEGORIES + " integer not null, " + COLUMN_MOVIE +
                 " integer not null, " + COLUMN_PERSONAL_EPISODES + " integer, " +
-                COLUMN_MOVIE_REVIEW + " TEXT);")
+                COLUMN_MOVIE_REVIEW + " TEXT, " + COLUMN_RELEASE_DAY + " INTEGER, " +
+                COLUMN_PERSONAL_START_DAY + " INTEGER, " + COLUMN_PERSONAL_FINISH_DAY + " INTEGER);")
         database.execSQL(DATABASE_CREATE)
         val CREATE_EPISODES_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE_EPISODES + "(" +
                 COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
@@ -521,6 +620,157 @@ class MovieDatabaseHelper  // Initialize the database object.
                 COLUMN_EPISODE_WATCH_DATE + " TEXT, " +
                 COLUMN_EPISODE_REVIEW + " TEXT);"
         database.execSQL(CREATE_EPISODES_TABLE)
+        database.execSQL(CREATE_EPISODES_UNIQUE_INDEX)
+        createMovieIndexes(database)
+        createSearchIndex(database)
+        createDayIndexes(database)
+        createGenresTable(database)
+    }
+
+    /**
+     * Creates the table with the genres of every show, so the genre filters
+     * can use an index instead of parsing the genre ids of every show.
+     */
+    private fun createGenresTable(database: SQLiteDatabase) {
+        database.execSQL(
+            "CREATE TABLE IF NOT EXISTS $TABLE_MOVIE_GENRES (" +
+                    "$COLUMN_SHOW_ID INTEGER NOT NULL, $COLUMN_GENRE_ID INTEGER NOT NULL, " +
+                    "PRIMARY KEY ($COLUMN_SHOW_ID, $COLUMN_GENRE_ID));"
+        )
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS movie_genres_genre ON " +
+                    "$TABLE_MOVIE_GENRES($COLUMN_GENRE_ID, $COLUMN_SHOW_ID);"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS movies_genres_delete AFTER DELETE ON $TABLE_MOVIES " +
+                    "BEGIN DELETE FROM $TABLE_MOVIE_GENRES WHERE $COLUMN_SHOW_ID = OLD.$COLUMN_ID; END;"
+        )
+    }
+
+    /**
+     * Fills the genres table with the genres of the shows that are already in the database.
+     */
+    private fun rebuildGenresTable(database: SQLiteDatabase) {
+        database.execSQL("DELETE FROM $TABLE_MOVIE_GENRES;")
+        database.compileStatement(INSERT_SHOW_GENRE).use { statement ->
+            database.rawQuery("SELECT $COLUMN_ID, $COLUMN_GENRES_IDS FROM $TABLE_MOVIES", null).use { cursor ->
+                while (cursor.moveToNext()) {
+                    insertShowGenres(statement, cursor.getLong(0), cursor.getString(1))
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the genres of a show with the genres in its genre id list.
+     * Must be called whenever a show is inserted or its genre ids change.
+     *
+     * @param showId the row id of the show (not the TMDB id).
+     * @param genreIds the genre ids as stored in the movies table, e.g. "[28,12]".
+     */
+    fun setShowGenres(database: SQLiteDatabase, showId: Long, genreIds: String?) {
+        database.beginTransaction()
+        try {
+            database.delete(TABLE_MOVIE_GENRES, "$COLUMN_SHOW_ID = ?", arrayOf(showId.toString()))
+            database.compileStatement(INSERT_SHOW_GENRE).use { statement ->
+                insertShowGenres(statement, showId, genreIds)
+            }
+            database.setTransactionSuccessful()
+        } finally {
+            database.endTransaction()
+        }
+    }
+
+    /**
+     * Indexes for the filters and sort orders of the list of saved shows.
+     */
+    private fun createMovieIndexes(database: SQLiteDatabase) {
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS movies_category_type ON " +
+                    "$TABLE_MOVIES($COLUMN_CATEGORIES, $COLUMN_MOVIE);"
+        )
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS movies_title ON " +
+                    "$TABLE_MOVIES($COLUMN_TITLE COLLATE NOCASE);"
+        )
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS movies_movie_id ON $TABLE_MOVIES($COLUMN_MOVIES_ID);"
+        )
+    }
+
+    /**
+     * Creates the full-text index of the saved shows and the triggers that keep it
+     * in sync with the movies and episodes tables. The docid of a row is the id of the show.
+     */
+    private fun createSearchIndex(database: SQLiteDatabase) {
+        database.execSQL(
+            "CREATE VIRTUAL TABLE IF NOT EXISTS $TABLE_SEARCH USING fts4(" +
+                    "$COLUMN_TITLE, $COLUMN_SUMMARY, $COLUMN_MOVIE_REVIEW, $SEARCH_EPISODE_REVIEWS, " +
+                    "tokenize=unicode61);"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS movies_search_insert AFTER INSERT ON $TABLE_MOVIES " +
+                    "BEGIN ${insertSearchRow("NEW")} END;"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS movies_search_update AFTER UPDATE OF " +
+                    "$COLUMN_MOVIES_ID, $COLUMN_TITLE, $COLUMN_SUMMARY, $COLUMN_MOVIE_REVIEW " +
+                    "ON $TABLE_MOVIES BEGIN " +
+                    "DELETE FROM $TABLE_SEARCH WHERE docid = OLD.$COLUMN_ID; " +
+                    "${insertSearchRow("NEW")} END;"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS movies_search_delete AFTER DELETE ON $TABLE_MOVIES " +
+                    "BEGIN DELETE FROM $TABLE_SEARCH WHERE docid = OLD.$COLUMN_ID; END;"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS episodes_search_insert AFTER INSERT ON $TABLE_EPISODES " +
+                    "WHEN NEW.$COLUMN_EPISODE_REVIEW IS NOT NULL " +
+                    "BEGIN ${updateEpisodeReviews("NEW")} END;"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS episodes_search_update AFTER UPDATE OF " +
+                    "$COLUMN_EPISODE_REVIEW ON $TABLE_EPISODES " +
+                    "WHEN NEW.$COLUMN_EPISODE_REVIEW IS NOT OLD.$COLUMN_EPISODE_REVIEW " +
+                    "BEGIN ${updateEpisodeReviews("NEW")} END;"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS episodes_search_delete AFTER DELETE ON $TABLE_EPISODES " +
+                    "WHEN OLD.$COLUMN_EPISODE_REVIEW IS NOT NULL " +
+                    "BEGIN ${updateEpisodeReviews("OLD")} END;"
+        )
+    }
+
+    /**
+     * Creates the indexes on the epoch day columns and the triggers that
+     * derive these columns from the dates whenever a show is written.
+     */
+    private fun createDayIndexes(database: SQLiteDatabase) {
+        for (column in arrayOf(COLUMN_RELEASE_DAY, COLUMN_PERSONAL_START_DAY, COLUMN_PERSONAL_FINISH_DAY)) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS movies_$column ON $TABLE_MOVIES($column);")
+        }
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS movies_days_insert AFTER INSERT ON $TABLE_MOVIES " +
+                    "BEGIN $UPDATE_DAYS WHERE $COLUMN_ID = NEW.$COLUMN_ID; END;"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS movies_days_update AFTER UPDATE OF " +
+                    "$COLUMN_RELEASE_DATE, $COLUMN_PERSONAL_START_DATE, $COLUMN_PERSONAL_FINISH_DATE " +
+                    "ON $TABLE_MOVIES BEGIN $UPDATE_DAYS WHERE $COLUMN_ID = NEW.$COLUMN_ID; END;"
+        )
+    }
+
+    /**
+     * Fills the full-text index with the shows that are already in the database.
+     */
+    private fun rebuildSearchIndex(database: SQLiteDatabase) {
+        database.execSQL("DELETE FROM $TABLE_SEARCH;")
+        database.execSQL(
+            "INSERT INTO $TABLE_SEARCH (docid, $COLUMN_TITLE, $COLUMN_SUMMARY, " +
+                    "$COLUMN_MOVIE_REVIEW, $SEARCH_EPISODE_REVIEWS) " +
+                    "SELECT m.$COLUMN_ID, m.$COLUMN_TITLE, m.$COLUMN_SUMMARY, m.$COLUMN_MOVIE_REVIEW, " +
+                    "${episodeReviews("m")} FROM $TABLE_MOVIES m;"
+        )
     }
 
     override fun onUpgrade(database: SQLiteDatabase, oldVersion: Int, newVersion: Int) {
@@ -635,9 +885,75 @@ class MovieDatabaseHelper  // Initialize the database object.
                 database.execSQL(ALTER_EPISODES_TABLE)
             }
         }
+        if (oldVersion < 16) {
+            removeDuplicateEpisodes(database)
+            database.execSQL(CREATE_EPISODES_UNIQUE_INDEX)
+        }
+        if (oldVersion < 17) {
+            createMovieIndexes(database)
+        }
+        if (oldVersion < 18) {
+            createSearchIndex(database)
+            rebuildSearchIndex(database)
+        }
+        if (oldVersion < 19) {
+            for (column in arrayOf(COLUMN_RELEASE_DAY, COLUMN_PERSONAL_START_DAY, COLUMN_PERSONAL_FINISH_DAY)) {
+                if (isColumnExists(database, TABLE_MOVIES, column)) {
+                    database.execSQL("ALTER TABLE $TABLE_MOVIES ADD COLUMN $column INTEGER;")
+                }
+            }
+            database.execSQL("$UPDATE_DAYS;")
+            // The release date is sorted and filtered on the day column now.
+            database.execSQL("DROP INDEX IF EXISTS movies_release_date;")
+            createDayIndexes(database)
+        }
+        if (oldVersion < 20) {
+            createGenresTable(database)
+            rebuildGenresTable(database)
+        }
         onCreate(database)
     }
 
+    /**
+     * Keeps only the newest row of every episode, so the unique index can be created.
+     * Values that are only set on one of the older rows are copied to the remaining row.
+     */
+    private fun removeDuplicateEpisodes(database: SQLiteDatabase) {
+        val key = "$COLUMN_MOVIES_ID, $COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER"
+        val sameEpisode = "d.$COLUMN_MOVIES_ID = $TABLE_EPISODES.$COLUMN_MOVIES_ID AND " +
+                "d.$COLUMN_SEASON_NUMBER = $TABLE_EPISODES.$COLUMN_SEASON_NUMBER AND " +
+                "d.$COLUMN_EPISODE_NUMBER = $TABLE_EPISODES.$COLUMN_EPISODE_NUMBER"
+        val newestDuplicates = "SELECT MAX($COLUMN_ID) FROM $TABLE_EPISODES " +
+                "GROUP BY $key HAVING COUNT(*) > 1"
+
+        // A temporary index keeps the lookups below from scanning the table for every row.
+        database.execSQL("CREATE INDEX IF NOT EXISTS episodes_dedupe_tmp ON $TABLE_EPISODES($key);")
+        for (column in arrayOf(COLUMN_EPISODE_RATING, COLUMN_EPISODE_WATCH_DATE, COLUMN_EPISODE_REVIEW)) {
+            database.execSQL(
+                "UPDATE $TABLE_EPISODES SET $column = (SELECT d.$column FROM $TABLE_EPISODES d " +
+                        "WHERE $sameEpisode AND d.$column IS NOT NULL " +
+                        "ORDER BY d.$COLUMN_ID DESC LIMIT 1) " +
+                        "WHERE $column IS NULL AND $COLUMN_ID IN ($newestDuplicates);"
+            )
+        }
+        database.execSQL(
+            "DELETE FROM $TABLE_EPISODES WHERE $COLUMN_ID NOT IN " +
+                    "(SELECT MAX($COLUMN_ID) FROM $TABLE_EPISODES GROUP BY $key);"
+        )
+        database.execSQL("DROP INDEX IF EXISTS episodes_dedupe_tmp;")
+    }
+
+    private fun getColumnNames(database: SQLiteDatabase, tableName: String): Set<String> {
+        val columnNames = HashSet<String>()
+        database.rawQuery("PRAGMA table_info($tableName)", null).use { cursor ->
+            val columnIndex = cursor.getColumnIndex("name")
+            while (cursor.moveToNext()) {
+                columnNames.add(cursor.getString(columnIndex))
+            }
+        }
+        return columnNames
+    }
+
     private fun isColumnExists(
         database: SQLiteDatabase,
         tableName: String,
@@ -655,6 +971,10 @@ class MovieDatabaseHelper  // Initialize the database object.
         return true
     }
 
+    /**
+     * Adds the episode, or updates it if it is already in the database.
+     * A rating of 0 and null values leave the stored values untouched.
+     */
     fun addOrUpdateEpisode(
         movieId: Int,
         seasonNumber: Int,
@@ -663,34 +983,11 @@ class MovieDatabaseHelper  // Initialize the database object.
         watchDate: String?,
         review: String?
     ) {
-        val db = this.writableDatabase
-        val values = ContentValues()
-        values.put(COLUMN_MOVIES_ID, movieId)
-        values.put(COLUMN_SEASON_NUMBER, seasonNumber)
-        values.put(COLUMN_EPISODE_NUMBER, episodeNumber)
-        // Only add rating and watch date if they are not null
-        if (rating.toDouble() != 0.0) {
-            values.put(COLUMN_EPISODE_RATING, rating)
-        }
-        if (watchDate != null) {
-            values.put(COLUMN_EPISODE_WATCH_DATE, watchDate)
-        }
-        if (review != null) {
-            values.put(COLUMN_EPISODE_REVIEW, review)
-        }
-
-        // Check if the episode already exists
-        val exists = isEpisodeInDatabase(movieId, seasonNumber, listOf(episodeNumber))
-        if (exists) {
-            // Update existing episode
-            val whereClause =
-                "$COLUMN_MOVIES_ID=? AND $COLUMN_SEASON_NUMBER=? AND $COLUMN_EPISODE_NUMBER=?"
-            val whereArgs =
-                arrayOf(movieId.toString(), seasonNumber.toString(), episodeNumber.toString())
-            db.update(TABLE_EPISODES, values, whereClause, whereArgs)
-        } else {
-            // Insert new episode
-            db.insert(TABLE_EPISODES, null, values)
+        EpisodeWriter(this.writableDatabase).use { writer ->
+            writer.upsert(
+                movieId, seasonNumber, episodeNumber,
+                if (rating.toDouble() != 0.0) rating else null, watchDate, review
+            )
         }
     }
 
@@ -714,49 +1011,188 @@ class MovieDatabaseHelper  // Initialize the database object.
         return details
     }
 
+    /**
+     * Marks the episodes as watched, episodes that are already watched are left as they are.
+     */
     fun addEpisodeNumber(movieId: Int, seasonNumber: Int, episodeNumbers: List<Int?>) {
-        val db = this.writableDatabase
-        val values = ContentValues()
-        for (episodeNumber in episodeNumbers) {
-            values.put(COLUMN_MOVIES_ID, movieId)
-            values.put(COLUMN_SEASON_NUMBER, seasonNumber)
-            values.put(COLUMN_EPISODE_NUMBER, episodeNumber)
-            db.insert(TABLE_EPISODES, null, values)
-        }
+        addEpisodeNumbers(movieId, mapOf(seasonNumber to episodeNumbers.filterNotNull()))
     }
 
     fun removeEpisodeNumber(movieId: Int, seasonNumber: Int, episodeNumbers: List<Int>) {
+        removeEpisodeNumbers(movieId, mapOf(seasonNumber to episodeNumbers))
+    }
+
+    /**
+     * Marks the episodes of any number of seasons as watched in a single transaction.
+     * Episodes that are already watched are left as they are.
+     *
+     * @param episodes the episode numbers per season number, e.g. a season to `1..count`.
+     * @return the amount of episodes that were added.
+     */
+    fun addEpisodeNumbers(movieId: Int, episodes: Map<Int, Iterable<Int>>): Int {
+        return writeEpisodes(INSERT_EPISODE_IF_ABSENT, movieId, episodes)
+    }
+
+    /**
+     * Removes the episodes of any number of seasons in a single transaction.
+     *
+     * @param episodes the episode numbers per season number.
+     * @return the amount of episodes that were removed.
+     */
+    fun removeEpisodeNumbers(movieId: Int, episodes: Map<Int, Iterable<Int>>): Int {
+        return writeEpisodes(DELETE_EPISODE, movieId, episodes)
+    }
+
+    /**
+     * Runs the statement once for every episode, reusing the compiled statement
+     * and committing only once at the end.
+     */
+    private fun writeEpisodes(sql: String, movieId: Int, episodes: Map<Int, Iterable<Int>>): Int {
         val db = this.writableDatabase
-        for (episodeNumber in episodeNumbers) {
-            db.delete(
-                TABLE_EPISODES,
-                "$COLUMN_MOVIES_ID = ? AND $COLUMN_SEASON_NUMBER = ? AND $COLUMN_EPISODE_NUMBER = ?",
-                arrayOf(movieId.toString(), seasonNumber.toString(), episodeNumber.toString())
-            )
+        var changed = 0
+        db.beginTransaction()
+        try {
+            db.compileStatement(sql).use { statement ->
+                for ((seasonNumber, episodeNumbers) in episodes) {
+                    for (episodeNumber in episodeNumbers) {
+                        bindEpisodeKey(statement, movieId, seasonNumber, episodeNumber)
+                        changed += statement.executeUpdateDelete()
+                    }
+                }
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
         }
+        return changed
     }
 
+    /**
+     * Loads the watched episodes of the season and their details with a single query.
+     */
+    fun getSeasonTrackingState(movieId: Int, seasonNumber: Int): SeasonTrackingState {
+        val episodes = SparseArray<EpisodeDbDetails>()
+        this.readableDatabase.query(
+            TABLE_EPISODES,
+            arrayOf(
+                COLUMN_EPISODE_NUMBER, COLUMN_EPISODE_RATING,
+                COLUMN_EPISODE_WATCH_DATE, COLUMN_EPISODE_REVIEW
+            ),
+            "$COLUMN_MOVIES_ID = ? AND $COLUMN_SEASON_NUMBER = ?",
+            arrayOf(movieId.toString(), seasonNumber.toString()),
+            null,
+            null,
+            null
+        ).use { cursor ->
+            while (cursor.moveToNext()) {
+                val rating = if (cursor.isNull(1)) null else cursor.getFloat(1)
+                episodes.put(
+                    cursor.getInt(0),
+                    EpisodeDbDetails(rating, cursor.getString(2), cursor.getString(3))
+                )
+            }
+        }
+        return SeasonTrackingState(episodes)
+    }
+
+    /**
+     * Returns true if at least one of the episodes is in the database.
+     */
     fun isEpisodeInDatabase(movieId: Int, seasonNumber: Int, episodeNumbers: List<Int>): Boolean {
-        val db = this.readableDatabase
-        val selection =
-            "$COLUMN_MOVIES_ID = ? AND $COLUMN_SEASON_NUMBER = ? AND $COLUMN_EPISODE_NUMBER = ?"
-        var exists = false
-        for (episodeNumber in episodeNumbers) {
-            val cursor = db.query(
-                TABLE_EPISODES,
-                null,
-                selection,
-                arrayOf(movieId.toString(), seasonNumber.toString(), episodeNumber.toString()),
-                null,
-                null,
-                null
-            )
-            if (cursor.count > 0) {
-                exists = true
+        this.readableDatabase.compileStatement(EPISODE_EXISTS).use { statement ->
+            for (episodeNumber in episodeNumbers) {
+                bindEpisodeKey(statement, movieId, seasonNumber, episodeNumber)
+                if (statement.simpleQueryForLong() != 0L) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Returns the saved shows that match the search query and pass the filter,
+     * already sorted in the order of the filter. The words of the query are looked up
+     * in the full-text index, so they also find shows by their summary and reviews.
+     *
+     * @param searchQuery the words (or beginnings of words) to search for, or null for all shows.
+     * @param filter the settings of the FilterActivity, or null to show everything.
+     * @return a cursor over all columns of the matching shows, newest first unless sorted otherwise.
+     */
+    fun getShows(searchQuery: String?, filter: ShowFilter?): Cursor {
+        val selection = ArrayList<String>()
+        val selectionArgs = ArrayList<String>()
+        val terms = if (searchQuery.isNullOrEmpty()) emptyList() else searchTerms(searchQuery)
+        if (!searchQuery.isNullOrEmpty()) {
+            if (terms.isEmpty()) {
+                // Nothing that the full-text index can match (e.g. only punctuation).
+                selection.add("$COLUMN_TITLE LIKE ?")
+                selectionArgs.add("%$searchQuery%")
+            } else {
+                selection.add("$COLUMN_ID IN (SELECT docid FROM $TABLE_SEARCH WHERE $TABLE_SEARCH MATCH ?)")
+                selectionArgs.add(terms.joinToString(" ") { "$it*" })
             }
-            cursor.close()
         }
-        return exists
+        if (filter != null) {
+            if (filter.categories.isNotEmpty()) {
+                selection.add("$COLUMN_CATEGORIES IN (" + filter.categories.joinToString(", ") + ")")
+            }
+            if (!filter.showMovies) {
+                selection.add("$COLUMN_MOVIE != 1")
+            }
+            if (!filter.showSeries) {
+                selection.add("$COLUMN_MOVIE = 1")
+            }
+            for (genre in filter.withGenres) {
+                selection.add("$COLUMN_ID IN ($SHOWS_WITH_GENRE = ?)")
+                selectionArgs.add(genre.toString())
+            }
+            if (filter.withoutGenres.isNotEmpty()) {
+                selection.add(
+                    "$COLUMN_ID NOT IN ($SHOWS_WITH_GENRE IN (" +
+                            filter.withoutGenres.joinToString(", ") { "?" } + "))"
+                )
+                filter.withoutGenres.forEach { selectionArgs.add(it.toString()) }
+            }
+        }
+        var rank = ""
+        if (terms.isNotEmpty()) {
+            // Shows with the words in their title come before shows that only mention them.
+            rank = "$COLUMN_ID IN (SELECT docid FROM $TABLE_SEARCH WHERE $TABLE_SEARCH MATCH ?) DESC, "
+            selectionArgs.add(terms.joinToString(" ") { "$COLUMN_TITLE:$it*" })
+        }
+        val where = if (selection.isEmpty()) "" else " WHERE " + selection.joinToString(" AND ")
+        return this.readableDatabase.rawQuery(
+            "SELECT * FROM $TABLE_MOVIES$where ORDER BY " + rank + showOrder(filter?.sort),
+            selectionArgs.toTypedArray()
+        )
+    }
+
+    /**
+     * Returns the saved shows that are released between the given days (inclusive).
+     *
+     * @param fromDay the first day, in days since 1970-01-01.
+     * @param toDay the last day, in days since 1970-01-01.
+     */
+    fun getShowsReleasedBetween(fromDay: Long, toDay: Long): Cursor {
+        return this.readableDatabase.rawQuery(
+            "SELECT * FROM $TABLE_MOVIES WHERE $COLUMN_RELEASE_DAY BETWEEN ? AND ? " +
+                    "ORDER BY $COLUMN_RELEASE_DAY",
+            arrayOf(fromDay.toString(), toDay.toString())
+        )
+    }
+
+    /**
+     * Returns the first day after the given day on which a saved show is released,
+     * or null if there is none. Both days are in days since 1970-01-01.
+     */
+    fun getNextReleaseDay(afterDay: Long): Long? {
+        this.readableDatabase.rawQuery(
+            "SELECT MIN($COLUMN_RELEASE_DAY) FROM $TABLE_MOVIES WHERE $COLUMN_RELEASE_DAY > ?",
+            arrayOf(afterDay.toString())
+        ).use { cursor ->
+            return if (cursor.moveToFirst() && !cursor.isNull(0)) cursor.getLong(0) else null
+        }
     }
 
     fun getSeenEpisodesCount(movieId: Int): Int {
@@ -769,7 +1205,160 @@ class MovieDatabaseHelper  // Initialize the database object.
         return count
     }
 
+    /**
+     * Merges shows into the movies table by their TMDB id (and type, if it is known):
+     * a show that is already saved is updated with the given columns, other shows are inserted.
+     * The statements are compiled once for every set of columns that is written.
+     */
+    private class ShowWriter(private val db: SQLiteDatabase) : Closeable {
+        /** The columns of the movies table, and whether they are NOT NULL. */
+        private val columns = HashMap<String, Boolean>()
+        private val find = db.compileStatement(FIND_SHOW)
+        private val deleteGenres = db.compileStatement(DELETE_SHOW_GENRES)
+        private val insertGenre = db.compileStatement(INSERT_SHOW_GENRE)
+        private val inserts = HashMap<List<String>, SQLiteStatement>()
+        private val updates = HashMap<List<String>, SQLiteStatement>()
+
+        init {
+            db.rawQuery("PRAGMA table_info($TABLE_MOVIES)", null).use { cursor ->
+                val nameIndex = cursor.getColumnIndexOrThrow("name")
+                val notNullIndex = cursor.getColumnIndexOrThrow("notnull")
+                while (cursor.moveToNext()) {
+                    columns[cursor.getString(nameIndex)] = cursor.getInt(notNullIndex) == 1
+                }
+            }
+        }
+
+        /**
+         * @return the row id of the show, or -1 if it has no TMDB id or lacks a required column.
+         */
+        fun merge(show: Map<String, String?>): Long {
+            val movieId = show[COLUMN_MOVIES_ID]?.toLongOrNull() ?: return -1
+            // The row id is local to every database and the epoch days are derived by triggers.
+            val names = show.keys.filter { it in columns && it !in DERIVED_COLUMNS }.sorted()
+
+            find.bindLong(1, movieId)
+            val movie = show[COLUMN_MOVIE]?.toLongOrNull()
+            if (movie == null) find.bindNull(2) else find.bindLong(2, movie)
+            var showId = try {
+                find.simpleQueryForLong()
+            } catch (e: SQLiteDoneException) {
+                -1L
+            }
+
+            if (showId != -1L) {
+                val update = updates.getOrPut(names) {
+                    db.compileStatement(
+                        "UPDATE $TABLE_MOVIES SET " + names.joinToString(", ") { "$it = ?" } +
+                                " WHERE $COLUMN_ID = ?"
+                    )
+                }
+                bindShow(update, names, show)
+                update.bindLong(names.size + 1, showId)
+                update.executeUpdateDelete()
+                if (show[COLUMN_GENRES_IDS] == null) return showId
+                deleteGenres.bindLong(1, showId)
+                deleteGenres.executeUpdateDelete()
+            } else {
+                val insert = inserts.getOrPut(names) {
+                    db.compileStatement(
+                        "INSERT INTO $TABLE_MOVIES (" + names.joinToString(", ") + ") VALUES (" +
+                                names.joinToString(", ") { "?" } + ")"
+                    )
+                }
+                bindShow(insert, names, show)
+                showId = try {
+                    insert.executeInsert()
+                } catch (e: SQLiteConstraintException) {
+                    e.printStackTrace()
+                    return -1
+                }
+            }
+            insertShowGenres(insertGenre, showId, show[COLUMN_GENRES_IDS])
+            return showId
+        }
+
+        private fun bindShow(statement: SQLiteStatement, names: List<String>, show: Map<String, String?>) {
+            for (i in names.indices) {
+                // Empty values are read as null, but NOT NULL columns can only have been empty.
+                val value = show[names[i]] ?: if (columns[names[i]] == true) "" else null
+                if (value == null) statement.bindNull(i + 1) else statement.bindString(i + 1, value)
+            }
+        }
+
+        override fun close() {
+            find.close()
+            deleteGenres.close()
+            insertGenre.close()
+            inserts.values.forEach { it.close() }
+            updates.values.forEach { it.close() }
+        }
+    }
+
+    /**
+     * Writes episodes with precompiled statements, so it can be reused for many episodes.
+     * ON CONFLICT DO UPDATE needs SQLite 3.24 (Android 11), older versions
+     * insert the episode if it is absent and update it otherwise.
+     */
+    private class EpisodeWriter(db: SQLiteDatabase) : Closeable {
+        private val upsert: SQLiteStatement?
+        private val insert: SQLiteStatement?
+        private val update: SQLiteStatement?
+
+        init {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                upsert = db.compileStatement(UPSERT_EPISODE)
+                insert = null
+                update = null
+            } else {
+                upsert = null
+                insert = db.compileStatement(INSERT_EPISODE_OR_IGNORE)
+                update = db.compileStatement(UPDATE_EPISODE)
+            }
+        }
+
+        fun upsert(
+            movieId: Int,
+            seasonNumber: Int,
+            episodeNumber: Int,
+            rating: Float?,
+            watchDate: String?,
+            review: String?
+        ) {
+            if (upsert != null) {
+                bindEpisodeKey(upsert, movieId, seasonNumber, episodeNumber)
+                bindEpisodeValues(upsert, 4, rating, watchDate, review)
+                upsert.executeInsert()
+                return
+            }
+            bindEpisodeKey(insert!!, movieId, seasonNumber, episodeNumber)
+            bindEpisodeValues(insert, 4, rating, watchDate, review)
+            if (insert.executeInsert() == -1L) {
+                bindEpisodeValues(update!!, 1, rating, watchDate, review)
+                update.bindLong(4, movieId.toLong())
+                update.bindLong(5, seasonNumber.toLong())
+                update.bindLong(6, episodeNumber.toLong())
+                update.executeUpdateDelete()
+            }
+        }
+
+        override fun close() {
+            upsert?.close()
+            insert?.close()
+            update?.close()
+        }
+    }
+
     companion object {
+
+        /**
+         * Returns the helper that is shared by the whole application.
+         */
+        @JvmStatic
+        fun getInstance(context: Context): MovieDatabaseHelper {
+            return (context.applicationContext as App).movieDatabaseHelper
+        }
+
         const val TABLE_MOVIES = "movies"
         const val TABLE_EPISODES = "episodes"
         const val COLUMN_ID = "id"
@@ -795,6 +1384,16 @@ class MovieDatabaseHelper  // Initialize the database object.
         const val COLUMN_MOVIE = "movie"
         const val COLUMN_MOVIE_REVIEW = "movie_review"
         const val COLUMN_EPISODE_REVIEW = "episode_review"
+
+        /** The dates above as the number of days since 1970-01-01, derived by triggers. */
+        const val COLUMN_RELEASE_DAY = "release_day"
+        const val COLUMN_PERSONAL_START_DAY = "personal_start_day"
+        const val COLUMN_PERSONAL_FINISH_DAY = "personal_finish_day"
+
+        /** Links every show (by its row id) to each of its genres. */
+        const val TABLE_MOVIE_GENRES = "movie_genres"
+        const val COLUMN_SHOW_ID = "show_id"
+        const val COLUMN_GENRE_ID = "genre_id"
         const val CATEGORY_WATCHING = 2
         const val CATEGORY_PLAN_TO_WATCH = 0
         const val CATEGORY_WATCHED = 1
@@ -809,58 +1408,265 @@ class MovieDatabaseHelper  // Initialize the database object.
         const val databaseFileName = "movies.db"
         private const val DATABASE_FILE_NAME = "movies"
         private const val DATABASE_FILE_EXT = ".db"
-        private const val DATABASE_VERSION = 15
-
-
-        fun jSONExport(db: SQLiteDatabase): String {
-            val json = JSONObject()
-            val tables = arrayOf(TABLE_MOVIES, TABLE_EPISODES)
-            for (table in tables) {
-                val cursor = db.query(table, null, null, null, null, null, null)
-                val tableJson = JSONObject()
-                if (cursor.moveToFirst()) {
-                    do {
-                        val rowJson = JSONObject()
-                        for (i in 0 until cursor.columnCount) {
-                            rowJson.put(cursor.getColumnName(i), cursor.getString(i))
-                        }
-                        tableJson.put(cursor.position.toString(), rowJson)
-                    } while (cursor.moveToNext())
+        private const val DATABASE_VERSION = 20
+
+        /** The full-text index over the titles, summaries and reviews of the saved shows. */
+        private const val TABLE_SEARCH = "shows_search"
+        private const val SEARCH_EPISODE_REVIEWS = "episode_reviews"
+
+        private const val CREATE_EPISODES_UNIQUE_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS episodes_movie_season_episode ON " +
+                    "$TABLE_EPISODES($COLUMN_MOVIES_ID, $COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER);"
+        private const val EPISODE_KEY =
+            "$COLUMN_MOVIES_ID = ? AND $COLUMN_SEASON_NUMBER = ? AND $COLUMN_EPISODE_NUMBER = ?"
+        private const val INSERT_EPISODE_COLUMNS =
+            "$TABLE_EPISODES ($COLUMN_MOVIES_ID, $COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER, " +
+                    "$COLUMN_EPISODE_RATING, $COLUMN_EPISODE_WATCH_DATE, $COLUMN_EPISODE_REVIEW) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)"
+        private const val UPSERT_EPISODE =
+            "INSERT INTO $INSERT_EPISODE_COLUMNS " +
+                    "ON CONFLICT($COLUMN_MOVIES_ID, $COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER) DO UPDATE SET " +
+                    "$COLUMN_EPISODE_RATING = COALESCE(excluded.$COLUMN_EPISODE_RATING, $COLUMN_EPISODE_RATING), " +
+                    "$COLUMN_EPISODE_WATCH_DATE = COALESCE(excluded.$COLUMN_EPISODE_WATCH_DATE, $COLUMN_EPISODE_WATCH_DATE), " +
+                    "$COLUMN_EPISODE_REVIEW = COALESCE(excluded.$COLUMN_EPISODE_REVIEW, $COLUMN_EPISODE_REVIEW)"
+        private const val INSERT_EPISODE_OR_IGNORE = "INSERT OR IGNORE INTO $INSERT_EPISODE_COLUMNS"
+        private const val UPDATE_EPISODE =
+            "UPDATE $TABLE_EPISODES SET " +
+                    "$COLUMN_EPISODE_RATING = COALESCE(?, $COLUMN_EPISODE_RATING), " +
+                    "$COLUMN_EPISODE_WATCH_DATE = COALESCE(?, $COLUMN_EPISODE_WATCH_DATE), " +
+                    "$COLUMN_EPISODE_REVIEW = COALESCE(?, $COLUMN_EPISODE_REVIEW) " +
+                    "WHERE $EPISODE_KEY"
+        private const val INSERT_EPISODE_IF_ABSENT =
+            "INSERT OR IGNORE INTO $TABLE_EPISODES " +
+                    "($COLUMN_MOVIES_ID, $COLUMN_SEASON_NUMBER, $COLUMN_EPISODE_NUMBER) VALUES (?, ?, ?)"
+        private const val DELETE_EPISODE = "DELETE FROM $TABLE_EPISODES WHERE $EPISODE_KEY"
+        /**
+         * The episode columns of the JSON export are prefixed, so they do not
+         * collide with the columns of the show that have the same name. The prefix
+         * must not contain a '.', as the cursor ignores everything up to the last one.
+         */
+        private const val EPISODE_ALIAS = "episode_"
+        private val JSON_EXPORT_QUERY = "SELECT m.*, " +
+                arrayOf(
+                    COLUMN_ID, COLUMN_MOVIES_ID, COLUMN_SEASON_NUMBER, COLUMN_EPISODE_NUMBER,
+                    COLUMN_EPISODE_RATING, COLUMN_EPISODE_WATCH_DATE, COLUMN_EPISODE_REVIEW
+                ).joinToString(", ") { "e.$it AS $EPISODE_ALIAS$it" } +
+                " FROM $TABLE_MOVIES m LEFT JOIN $TABLE_EPISODES e " +
+                "ON e.$COLUMN_MOVIES_ID = m.$COLUMN_MOVIES_ID " +
+                "ORDER BY m.$COLUMN_ID, e.$COLUMN_SEASON_NUMBER, e.$COLUMN_EPISODE_NUMBER"
+        private const val CSV_EXPORT_QUERY =
+            "SELECT m.*, e.$COLUMN_SEASON_NUMBER, e.$COLUMN_EPISODE_NUMBER, e.$COLUMN_EPISODE_RATING, " +
+                    "e.$COLUMN_EPISODE_WATCH_DATE, e.$COLUMN_EPISODE_REVIEW " +
+                    "FROM $TABLE_MOVIES m LEFT JOIN $TABLE_EPISODES e " +
+                    "ON m.$COLUMN_MOVIES_ID = e.$COLUMN_MOVIES_ID " +
+                    "ORDER BY m.$COLUMN_ID, e.$COLUMN_SEASON_NUMBER, e.$COLUMN_EPISODE_NUMBER"
+        private const val CSV_IMPORT_BATCH_SIZE = 1000
+        private const val JSON_IMPORT_BATCH_SIZE = 2000
+
+        /** The show with the TMDB id, of the type if that is bound (or of any type if it is null). */
+        private const val FIND_SHOW =
+            "SELECT $COLUMN_ID FROM $TABLE_MOVIES WHERE $COLUMN_MOVIES_ID = ? " +
+                    "AND $COLUMN_MOVIE = COALESCE(?, $COLUMN_MOVIE) ORDER BY $COLUMN_ID LIMIT 1"
+        private val DERIVED_COLUMNS =
+            setOf(COLUMN_ID, COLUMN_RELEASE_DAY, COLUMN_PERSONAL_START_DAY, COLUMN_PERSONAL_FINISH_DAY)
+
+        /**
+         * Reads the values of a JSON object into [row], empty strings are read as null.
+         * An "episodes" array is left to [readEpisodes], other nested values are skipped.
+         */
+        private fun readJSONRow(
+            reader: JsonReader,
+            row: MutableMap<String, String?>,
+            readEpisodes: (() -> Unit)? = null
+        ) {
+            row.clear()
+            reader.beginObject()
+            while (reader.hasNext()) {
+                val name = reader.nextName()
+                when (reader.peek()) {
+                    JsonToken.STRING, JsonToken.NUMBER -> row[name] = reader.nextString().ifEmpty { null }
+                    JsonToken.BOOLEAN -> row[name] = if (reader.nextBoolean()) "1" else "0"
+                    JsonToken.NULL -> {
+                        reader.nextNull()
+                        row[name] = null
+                    }
+                    JsonToken.BEGIN_ARRAY ->
+                        if (name == "episodes" && readEpisodes != null) readEpisodes() else reader.skipValue()
+                    else -> reader.skipValue()
                 }
-                cursor.close()
-                json.put(table, tableJson)
             }
-            return json.toString()
+            reader.endObject()
         }
 
-        fun cSVExport(database: SQLiteDatabase): String {
-            val selectQuery = """
-        SELECT m.*, e.$COLUMN_SEASON_NUMBER, e.$COLUMN_EPISODE_NUMBER, e.$COLUMN_EPISODE_RATING,
-               e.$COLUMN_EPISODE_WATCH_DATE, e.$COLUMN_EPISODE_REVIEW
-        FROM $TABLE_MOVIES m
-        LEFT JOIN $TABLE_EPISODES e ON m.$COLUMN_MOVIES_ID = e.$COLUMN_MOVIES_ID
-    """
-            val cursor = database.rawQuery(selectQuery, null)
+        private const val EPISODE_EXISTS =
+            "SELECT EXISTS(SELECT 1 FROM $TABLE_EPISODES WHERE $EPISODE_KEY)"
 
-            val csvBuilder = StringBuilder()
-            val columnNames = cursor.columnNames
+        /**
+         * Turns a date column into days since 1970-01-01, or NULL if it is not a date.
+         * Dates are stored as yyyy-MM-dd (TMDB) or dd-MM-yyyy (personal dates, older
+         * versions also used yyyy-MM-dd). Partial dates have 00 as the day or month
+         * and count as the first day of the month or year.
+         */
+        private fun epochDay(column: String): String {
+            val isoDate = "CASE WHEN SUBSTR($column, 5, 1) = '-' THEN $column " +
+                    "WHEN SUBSTR($column, 3, 1) = '-' THEN " +
+                    "SUBSTR($column, 7, 4) || SUBSTR($column, 3, 4) || SUBSTR($column, 1, 2) END"
+            return "CAST(JULIANDAY(REPLACE($isoDate, '-00', '-01')) - 2440587.5 AS INTEGER)"
+        }
+
+        private val UPDATE_DAYS = "UPDATE $TABLE_MOVIES SET " +
+                "$COLUMN_RELEASE_DAY = ${epochDay(COLUMN_RELEASE_DATE)}, " +
+                "$COLUMN_PERSONAL_START_DAY = ${epochDay(COLUMN_PERSONAL_START_DATE)}, " +
+                "$COLUMN_PERSONAL_FINISH_DAY = ${epochDay(COLUMN_PERSONAL_FINISH_DATE)}"
+
+        /**
+         * Returns today in the time zone of the device as days since 1970-01-01,
+         * the same unit as the epoch day columns.
+         */
+        @JvmStatic
+        fun todayEpochDay(): Long {
+            val now = System.currentTimeMillis()
+            return TimeUnit.MILLISECONDS.toDays(now + TimeZone.getDefault().getOffset(now))
+        }
+
+        private fun episodeReviews(show: String): String {
+            return "(SELECT GROUP_CONCAT($COLUMN_EPISODE_REVIEW, ' ') FROM $TABLE_EPISODES " +
+                    "WHERE $COLUMN_MOVIES_ID = $show.$COLUMN_MOVIES_ID)"
+        }
 
-            csvBuilder.append(columnNames.joinToString(",") { "\"$it\"" }).append("\n")
+        private fun insertSearchRow(row: String): String {
+            return "INSERT INTO $TABLE_SEARCH (docid, $COLUMN_TITLE, $COLUMN_SUMMARY, " +
+                    "$COLUMN_MOVIE_REVIEW, $SEARCH_EPISODE_REVIEWS) VALUES ($row.$COLUMN_ID, " +
+                    "$row.$COLUMN_TITLE, $row.$COLUMN_SUMMARY, $row.$COLUMN_MOVIE_REVIEW, " +
+                    "${episodeReviews(row)});"
+        }
+
+        private fun updateEpisodeReviews(row: String): String {
+            return "UPDATE $TABLE_SEARCH SET $SEARCH_EPISODE_REVIEWS = " +
+                    "(SELECT GROUP_CONCAT($COLUMN_EPISODE_REVIEW, ' ') FROM $TABLE_EPISODES " +
+                    "WHERE $COLUMN_MOVIES_ID = $row.$COLUMN_MOVIES_ID) " +
+                    "WHERE docid IN (SELECT $COLUMN_ID FROM $TABLE_MOVIES " +
+                    "WHERE $COLUMN_MOVIES_ID = $row.$COLUMN_MOVIES_ID);"
+        }
+
+        /**
+         * Splits the search text into lowercase words, these are matched as prefixes
+         * so the results can already be shown while typing. Lowercase words are never
+         * read as FTS operators (AND, OR, NOT), and quotes or other symbols are dropped.
+         */
+        private fun searchTerms(query: String): List<String> {
+            return query.split(Regex("[^\\p{L}\\p{N}]+"))
+                .filter { it.isNotEmpty() }
+                .map { it.lowercase(Locale.ROOT) }
+        }
+
+        private const val INSERT_SHOW_GENRE =
+            "INSERT OR IGNORE INTO $TABLE_MOVIE_GENRES ($COLUMN_SHOW_ID, $COLUMN_GENRE_ID) VALUES (?, ?)"
+        private const val DELETE_SHOW_GENRES = "DELETE FROM $TABLE_MOVIE_GENRES WHERE $COLUMN_SHOW_ID = ?"
+        private const val SHOWS_WITH_GENRE =
+            "SELECT $COLUMN_SHOW_ID FROM $TABLE_MOVIE_GENRES WHERE $COLUMN_GENRE_ID"
+
+        private fun insertShowGenres(statement: SQLiteStatement, showId: Long, genreIds: String?) {
+            for (genreId in parseGenreIds(genreIds)) {
+                statement.bindLong(1, showId)
+                statement.bindLong(2, genreId.toLong())
+                statement.executeInsert()
+            }
+        }
 
-            cursor.moveToFirst()
-            while (!cursor.isAfterLast) {
-                val rowValues = mutableListOf<String>()
-                for (i in columnNames.indices) {
-                    val value = cursor.getString(i) ?: "null"
-                    val escapedValue = value.replace("\"", "\"\"")
-                    rowValues.add("\"$escapedValue\"")
+        /**
+         * Parses the genre ids as they are stored in the movies table ("[28,12]").
+         */
+        private fun parseGenreIds(genreIds: String?): List<Int> {
+            if (genreIds == null) return emptyList()
+            return genreIds.trim('[', ']', ' ').split(',').mapNotNull { it.trim().toIntOrNull() }
+        }
+
+        private fun showOrder(sort: String?): String {
+            val order = when (sort) {
+                "best_rated" ->
+                    "CAST(COALESCE($COLUMN_PERSONAL_RATING, $COLUMN_RATING) AS INTEGER) DESC"
+                "release_date" -> "$COLUMN_RELEASE_DAY DESC"
+                "alphabetic_order" -> "$COLUMN_TITLE COLLATE NOCASE"
+                "start_date_order" -> "$COLUMN_PERSONAL_START_DAY DESC"
+                "finish_date_order" -> "$COLUMN_PERSONAL_FINISH_DAY DESC"
+                else -> null
+            }
+            return if (order != null) "$order, $COLUMN_ID DESC" else "$COLUMN_ID DESC"
+        }
+
+        private fun bindEpisodeKey(
+            statement: SQLiteStatement,
+            movieId: Int,
+            seasonNumber: Int,
+            episodeNumber: Int
+        ) {
+            statement.bindLong(1, movieId.toLong())
+            statement.bindLong(2, seasonNumber.toLong())
+            statement.bindLong(3, episodeNumber.toLong())
+        }
+
+        private fun bindEpisodeValues(
+            statement: SQLiteStatement,
+            firstIndex: Int,
+            rating: Float?,
+            watchDate: String?,
+            review: String?
+        ) {
+            if (rating != null) statement.bindDouble(firstIndex, rating.toDouble())
+            else statement.bindNull(firstIndex)
+            if (watchDate != null) statement.bindString(firstIndex + 1, watchDate)
+            else statement.bindNull(firstIndex + 1)
+            if (review != null) statement.bindString(firstIndex + 2, review)
+            else statement.bindNull(firstIndex + 2)
+        }
+
+        /**
+         * Writes the movies and episodes tables to the stream as one JSON object
+         * with an object per table, in which every row is keyed by its position.
+         * Rows are written as they are read, the stream is flushed but not closed.
+         */
+        fun jSONExport(db: SQLiteDatabase, outputStream: OutputStream) {
+            val writer = JsonWriter(OutputStreamWriter(outputStream, Charsets.UTF_8))
+            writer.beginObject()
+            for (table in arrayOf(TABLE_MOVIES, TABLE_EPISODES)) {
+                writer.name(table).beginObject()
+                db.query(table, null, null, null, null, null, null).use { cursor ->
+                    val columnNames = cursor.columnNames
+                    while (cursor.moveToNext()) {
+                        writer.name(cursor.position.toString()).beginObject()
+                        for (i in columnNames.indices) {
+                            // Columns without a value are left out of the row.
+                            val value = cursor.getString(i) ?: continue
+                            writer.name(columnNames[i]).value(value)
+                        }
+                        writer.endObject()
+                    }
                 }
-                csvBuilder.append(rowValues.joinToString(",")).append("\n")
-                cursor.moveToNext()
+                writer.endObject()
             }
-            cursor.close()
+            writer.endObject()
+            writer.flush()
+        }
 
-            return csvBuilder.toString()
+        /**
+         * Writes the shows and their episodes to the stream as CSV, one row per episode
+         * after the columns of the show (or one row for a show without episodes).
+         * The stream is flushed but not closed.
+         */
+        fun cSVExport(database: SQLiteDatabase, outputStream: OutputStream) {
+            val csvWriter = CsvWriter(BufferedWriter(OutputStreamWriter(outputStream, Charsets.UTF_8)))
+            database.rawQuery(CSV_EXPORT_QUERY, null).use { cursor ->
+                val row = arrayOfNulls<String>(cursor.columnCount)
+                csvWriter.writeRow(cursor.columnNames)
+                while (cursor.moveToNext()) {
+                    for (i in row.indices) {
+                        row[i] = cursor.getString(i)
+                    }
+                    csvWriter.writeRow(row)
+                }
+            }
+            csvWriter.flush()
         }
     }
 }
@@ -31,6 +31,7 @@ import android.widget.RadioButton
 import android.widget.Toast
 import androidx.documentfile.provider.DocumentFile
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.wirelessalien.android.moviedb.App
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.listener.AdapterDataChangedListener
 import kotlinx.coroutines.CoroutineScope
@@ -39,16 +40,23 @@ import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.io.BufferedOutputStream
 import java.io.File
-import java.io.FileInputStream
 import java.io.FileOutputStream
 import java.io.IOException
-import java.nio.ByteBuffer
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
 
-class PeopleDatabaseHelper(context: Context?) :
+class PeopleDatabaseHelper internal constructor(context: Context?) :
     SQLiteOpenHelper(context, DATABASE_NAME, null, DATABASE_VERSION) {
+    init {
+        setWriteAheadLoggingEnabled(true)
+    }
+
+    override fun onConfigure(db: SQLiteDatabase) {
+        super.onConfigure(db)
+        DatabaseConfig.configure(db)
+    }
+
     override fun onCreate(db: SQLiteDatabase) {
         val CREATE_TABLE = "CREATE TABLE " + TABLE_NAME + " (" +
                 COLUMN_ID + " INTEGER PRIMARY KEY, " +
@@ -72,13 +80,11 @@ class PeopleDatabaseHelper(context: Context?) :
     fun deleteAll() {
         val db = this.writableDatabase
         db.execSQL(DELETE_ALL)
-        db.close()
     }
 
     fun deleteById(id: Int) {
         val db = this.writableDatabase
         db.execSQL(DELETE_BY_ID, arrayOf(id.toString()))
-        db.close()
     }
 
     fun personExists(actorId: Int): Boolean {
@@ -110,7 +116,6 @@ class PeopleDatabaseHelper(context: Context?) :
             put(COLUMN_HOMEPAGE, homepage)
         }
         db.insertWithOnConflict(TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE)
-        db.close()
     }
 
     private suspend fun getJSONExportString(database: SQLiteDatabase): String = withContext(Dispatchers.IO) {
@@ -217,26 +222,10 @@ class PeopleDatabaseHelper(context: Context?) :
                 ) + fileExtension
                 CoroutineScope(Dispatchers.IO).launch {
                     try {
-                        val dynamicDbPath = context.getDatabasePath(DATABASE_NAME).absolutePath
-                        val currentDb = File(dynamicDbPath)
-
-                        if (!currentDb.exists()) {
-                            withContext(Dispatchers.Main) {
-                                Toast.makeText(context, context.resources.getString(R.string.database_not_found), Toast.LENGTH_SHORT).show()
-                            }
-                        }
-
                         val newFile = documentFile?.createFile("application/octet-stream", exportDBPath)
                         val outputStream = context.contentResolver.openOutputStream(newFile!!.uri)
-                        val fileChannel = FileInputStream(currentDb).channel
-                        val buffer = ByteBuffer.allocate(fileChannel.size().toInt())
-                        fileChannel.read(buffer)
-                        buffer.flip()
-                        val byteArray = ByteArray(buffer.remaining())
-                        buffer[byteArray]
                         outputStream?.use {
-                            it.write(byteArray)
-                            it.flush()
+                            DatabaseConfig.writeSnapshot(context, this@PeopleDatabaseHelper, it)
                         }
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + exportDBPath, Toast.LENGTH_SHORT).show()
@@ -303,26 +292,9 @@ class PeopleDatabaseHelper(context: Context?) :
                 ) + fileExtension
                 CoroutineScope(Dispatchers.IO).launch {
                     try {
-                        val dynamicDbPath = context.getDatabasePath(DATABASE_NAME).absolutePath
-                        val currentDb = File(dynamicDbPath)
-
-                        if (!currentDb.exists()) {
-                            withContext(Dispatchers.Main) {
-                                Toast.makeText(context, context.resources.getString(R.string.database_not_found), Toast.LENGTH_SHORT).show()
-                            }
+                        FileOutputStream(File(exportDirectory, exportDBPath)).use {
+                            DatabaseConfig.writeSnapshot(context, this@PeopleDatabaseHelper, it)
                         }
-
-                        val exportDB = File(exportDirectory, exportDBPath)
-                        val bufferedOutputStream = BufferedOutputStream(FileOutputStream(exportDB))
-                        val fileChannel = FileInputStream(currentDb).channel
-                        val buffer = ByteBuffer.allocate(fileChannel.size().toInt())
-                        fileChannel.read(buffer)
-                        buffer.flip()
-                        val byteArray = ByteArray(buffer.remaining())
-                        buffer[byteArray]
-                        bufferedOutputStream.write(byteArray)
-                        bufferedOutputStream.flush()
-                        bufferedOutputStream.close()
                         withContext(Dispatchers.Main) {
                             Toast.makeText(context, context.resources.getString(R.string.write_to_external_storage_as) + exportDBPath, Toast.LENGTH_SHORT).show()
                         }
@@ -381,14 +353,7 @@ class PeopleDatabaseHelper(context: Context?) :
                     CoroutineScope(Dispatchers.IO).launch {
                         try {
                             // Import the file selected in the dialog.
-                            val currentDBPath = context.getDatabasePath(DATABASE_NAME).absolutePath
-                            val currentDB = File(currentDBPath)
-                            val importDB = File(path, exportDBPath)
-                            val src = FileInputStream(importDB).channel
-                            val dst = FileOutputStream(currentDB).channel
-                            dst.transferFrom(src, 0, src.size())
-                            src.close()
-                            dst.close()
+                            DatabaseConfig.replaceDatabase(context, this@PeopleDatabaseHelper, File(path, exportDBPath))
                             withContext(Dispatchers.Main) {
                                 Toast.makeText(context, R.string.database_import_successful, Toast.LENGTH_SHORT).show()
                             }
@@ -413,10 +378,18 @@ class PeopleDatabaseHelper(context: Context?) :
             UPDATE,
             arrayOf(name, birthday, deathday, biography, placeOfBirth, popularity.toString(), profilePath, imdbId, homepage, id.toString())
         )
-        db.close()
     }
 
     companion object {
+
+        /**
+         * Returns the helper that is shared by the whole application.
+         */
+        @JvmStatic
+        fun getInstance(context: Context): PeopleDatabaseHelper {
+            return (context.applicationContext as App).peopleDatabaseHelper
+        }
+
         const val TABLE_NAME = "people"
         const val COLUMN_ID = "_id"
         const val COLUMN_NAME = "name"
@@ -23,14 +23,9 @@ import android.content.Context
 import androidx.recyclerview.widget.RecyclerView
 import com.wirelessalien.android.moviedb.adapter.MovieImageAdapter
 import com.wirelessalien.android.moviedb.data.MovieImage
-import com.wirelessalien.android.moviedb.helper.ConfigHelper.getConfigValue
-import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import org.json.JSONObject
 import java.util.Locale
 
 class GetMovieImage(
@@ -39,35 +34,34 @@ class GetMovieImage(
     private val context: Context,
     private val recyclerView: RecyclerView
 ) {
-    private val apiKey: String? = getConfigValue(context, "api_read_access_token")
+    private val client: TmdbClient = TmdbClient.getInstance(context)
 
-    fun fetchMovieImages() {
-        CoroutineScope(Dispatchers.IO).launch {
-            try {
-                val locale = Locale.getDefault().language
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url("https://api.themoviedb.org/3/$type/$movieId/images?language=$locale&include_image_language=en,null")
-                    .get()
-                    .addHeader("accept", "application/json")
-                    .addHeader("Authorization", "Bearer $apiKey")
-                    .build()
-                val response = client.newCall(request).execute()
-                val responseBody = response.body()!!.string()
-                val jsonObject = JSONObject(responseBody)
-                val jsonArray = jsonObject.getJSONArray("backdrops")
-                val movieImages: MutableList<MovieImage> = ArrayList()
-                for (i in 0 until jsonArray.length()) {
-                    val imageObject = jsonArray.getJSONObject(i)
-                    movieImages.add(MovieImage(imageObject.getString("file_path")))
-                }
-                withContext(Dispatchers.Main) {
-                    val adapter = MovieImageAdapter(context, movieImages)
-                    recyclerView.adapter = adapter
-                }
-            } catch (e: Exception) {
-                e.printStackTrace()
+    /**
+     * Loads the backdrops in the scope of the caller, so the request
+     * is cancelled together with the screen that asked for it.
+     */
+    suspend fun fetchMovieImages() {
+        try {
+            val locale = Locale.getDefault().language
+            val jsonObject = client.getJson(
+                "3/$type/$movieId/images",
+                mapOf("language" to locale, "include_image_language" to "en,null")
+            )
+
+            val jsonArray = jsonObject.getJSONArray("backdrops")
+            val movieImages: MutableList<MovieImage> = ArrayList()
+            for (i in 0 until jsonArray.length()) {
+                val imageObject = jsonArray.getJSONObject(i)
+                movieImages.add(MovieImage(imageObject.getString("file_path")))
+            }
+            withContext(Dispatchers.Main) {
+                val adapter = MovieImageAdapter(context, movieImages)
+                recyclerView.adapter = adapter
             }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -23,56 +23,25 @@ import android.content.Context
 import android.content.SharedPreferences
 import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.data.TVSeason
-import com.wirelessalien.android.moviedb.helper.ConfigHelper.getConfigValue
-import org.json.JSONObject
-import java.io.BufferedReader
-import java.io.InputStreamReader
-import java.net.HttpURLConnection
-import java.net.URL
+import kotlinx.coroutines.runBlocking
 
 class GetTVSeason(private val tvShowId: Int, context: Context?) : Thread() {
     private lateinit var seasons: MutableList<TVSeason>
     private var tvShowName: String? = null
     private val preferences: SharedPreferences
-    private val apiKey: String?
+    private val client: TmdbClient
 
     init {
         preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        apiKey = getConfigValue(context, "api_key")
+        client = TmdbClient.getInstance(context)
     }
 
     override fun run() {
         try {
-            val url = URL("https://api.themoviedb.org/3/tv/$tvShowId?api_key=$apiKey")
-            val connection = url.openConnection() as HttpURLConnection
-            connection.requestMethod = "GET"
-            val reader = BufferedReader(InputStreamReader(connection.inputStream))
-            var line: String?
-            val builder = StringBuilder()
-            while (reader.readLine().also { line = it } != null) {
-                builder.append(line)
-            }
-            val jsonResponse = JSONObject(builder.toString())
-            tvShowName = jsonResponse.getString("name")
-            val response = jsonResponse.getJSONArray("seasons")
-            seasons = ArrayList()
-            for (i in 0 until response.length()) {
-                val seasonJson = response.getJSONObject(i)
-                val seasonNumber = seasonJson.getInt("season_number")
-                if (seasonNumber > 0) {
-                    val season = TVSeason()
-                    season.tvShowName = tvShowName
-                    season.airDate = seasonJson.getString("air_date")
-                    season.episodeCount = seasonJson.getInt("episode_count")
-                    season.id = seasonJson.getInt("id")
-                    season.name = seasonJson.getString("name")
-                    season.overview = seasonJson.getString("overview")
-                    season.setPosterPath(seasonJson.getString("poster_path"))
-                    season.seasonNumber = seasonNumber
-                    season.voteAverage = seasonJson.getDouble("vote_average")
-                    seasons.add(season)
-                }
-            }
+            seasons = runBlocking {
+                client.getDecoded("3/tv/$tvShowId", decoder = TmdbDecoder::readSeasons)
+            }.toMutableList()
+            tvShowName = seasons.firstOrNull()?.tvShowName
             val editor = preferences.edit()
             editor.putInt("tvShowId", tvShowId)
             editor.apply()
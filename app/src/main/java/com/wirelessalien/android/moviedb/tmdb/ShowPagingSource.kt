@@ -0,0 +1,99 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import com.wirelessalien.android.moviedb.data.ShowSummary
+import kotlinx.coroutines.withContext
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Loads a paged TMDB list (discover or search) for the Paging library.
+ *
+ * A new source is created for every list type, filter and search query.
+ *
+ * @param path the endpoint, it may already contain the filter as query string.
+ * @param params the query parameters besides the page number.
+ */
+class ShowPagingSource(
+    private val client: TmdbClient,
+    private val path: String,
+    private val params: Map<String, Any?> = emptyMap()
+) : PagingSource<Int, ShowSummary>() {
+
+    // Shows can move to the next page while the user is scrolling (e.g. when they are sorted
+    // by popularity), so every show is only kept on the page where it was seen first.
+    // Remembering the page instead of only the id keeps reloading a dropped page consistent.
+    private val firstPageOfShow = ConcurrentHashMap<Int, Int>()
+
+    override suspend fun load(params: LoadParams<Int>): LoadResult<Int, ShowSummary> {
+        val page = params.key ?: FIRST_PAGE
+        return try {
+            // Only the first page is needed right now, the others are loaded ahead of scrolling.
+            val priority = if (params is LoadParams.Refresh) TmdbPriority.UI else TmdbPriority.PREFETCH
+            val response = withContext(priority) {
+                client.getDecoded(
+                    path,
+                    this@ShowPagingSource.params + ("page" to page),
+                    withLanguage = true,
+                    decoder = TmdbDecoder::readPage
+                )
+            }
+            val shows = response.results.filter {
+                (firstPageOfShow.putIfAbsent(it.id, page) ?: page) == page
+            }
+            val lastPage = minOf(response.totalPages, MAX_PAGE)
+            LoadResult.Page(
+                data = shows,
+                prevKey = if (page > FIRST_PAGE) page - 1 else null,
+                nextKey = if (page < lastPage) page + 1 else null
+            )
+        } catch (e: IOException) {
+            e.printStackTrace()
+            LoadResult.Error(e)
+        } catch (e: IllegalStateException) {
+            // The response was not in the expected format.
+            e.printStackTrace()
+            LoadResult.Error(e)
+        }
+    }
+
+    override fun getRefreshKey(state: PagingState<Int, ShowSummary>): Int? {
+        // Reload around the page that the user was looking at.
+        return state.anchorPosition?.let { anchorPosition ->
+            val anchorPage = state.closestPageToPosition(anchorPosition)
+            anchorPage?.prevKey?.plus(1) ?: anchorPage?.nextKey?.minus(1)
+        }
+    }
+
+    companion object {
+        private const val FIRST_PAGE = 1
+
+        // TMDB does not return pages beyond this number.
+        private const val MAX_PAGE = 500
+
+        /**
+         * The amount of results on a single page, this is fixed by TMDB.
+         */
+        const val PAGE_SIZE = 20
+    }
+}
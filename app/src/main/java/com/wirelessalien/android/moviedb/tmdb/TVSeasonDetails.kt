@@ -20,19 +20,9 @@
 package com.wirelessalien.android.moviedb.tmdb
 
 import android.content.Context
-import android.util.Log
-import com.wirelessalien.android.moviedb.activity.BaseActivity.Companion.getLanguageParameter
 import com.wirelessalien.android.moviedb.data.Episode
-import com.wirelessalien.android.moviedb.helper.ConfigHelper.getConfigValue
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import org.json.JSONObject
-import java.io.IOException
-
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
+import com.wirelessalien.android.moviedb.data.TVSeason
+import kotlinx.coroutines.CancellationException
 
 class TVSeasonDetails(
     private val tvShowId: Int,
@@ -41,77 +31,40 @@ class TVSeasonDetails(
     var episodes: MutableList<Episode> = mutableListOf()
     private var seasonName: String? = null
     private var seasonOverview: String? = null
-    private var seasonPosterPath: String? = null
     private var seasonVoteAverage = 0.0
-    private val apiKey: String? = getConfigValue(context, "api_key")
+    private val client: TmdbClient = TmdbClient.getInstance(context)
     interface SeasonDetailsCallback {
         fun onSeasonDetailsFetched(episodes: List<Episode>)
     }
-    fun fetchSeasonDetails(callback: SeasonDetailsCallback) {
-        CoroutineScope(Dispatchers.Main).launch {
-            try {
-                val baseUrl =
-                    "https://api.themoviedb.org/3/tv/$tvShowId/season/$seasonNumber?api_key=$apiKey"
-                val urlWithLanguage = baseUrl + getLanguageParameter(context)
-                var jsonResponse = fetchSeasonDetailsFromNetwork(urlWithLanguage)
+    /**
+     * Fetches the season in the scope of the caller, so the request
+     * is cancelled together with the screen that asked for it.
+     */
+    suspend fun fetchSeasonDetails(callback: SeasonDetailsCallback) {
+        try {
+            var season = fetchSeasonDetailsFromNetwork(true)
 
-                // Check if overview is empty
-                if (jsonResponse!!.getString("overview").isEmpty()) {
-                    jsonResponse = fetchSeasonDetailsFromNetwork(baseUrl)
-                }
-                seasonName = jsonResponse!!.getString("name")
-                seasonOverview = jsonResponse.getString("overview")
-                seasonPosterPath = jsonResponse.getString("poster_path")
-                seasonVoteAverage = jsonResponse.getDouble("vote_average")
-                val response = jsonResponse.getJSONArray("episodes")
-                episodes = mutableListOf()
-                for (i in 0 until response.length()) {
-                    val episodeJson = response.getJSONObject(i)
-                    val name = episodeJson.getString("name")
-                    val overview = episodeJson.getString("overview")
-                    val airDate = episodeJson.getString("air_date")
-                    val episodeNumber = episodeJson.getInt("episode_number")
-                    val runtime =
-                        if (episodeJson.isNull("runtime")) 0 else episodeJson.getInt("runtime")
-                    val posterPath = episodeJson.getString("still_path")
-                    val voteAverage = episodeJson.getDouble("vote_average")
-                    episodes.add(
-                        Episode(
-                            airDate,
-                            episodeNumber,
-                            name,
-                            overview,
-                            runtime,
-                            posterPath,
-                            voteAverage
-                        )
-                    )
-                }
-                callback.onSeasonDetailsFetched(episodes)
-            } catch (e: Exception) {
-                e.printStackTrace()
+            // Check if overview is empty
+            if (season.overview.isNullOrEmpty()) {
+                season = fetchSeasonDetailsFromNetwork(false)
             }
+            seasonName = season.name
+            seasonOverview = season.overview
+            seasonVoteAverage = season.voteAverage
+            episodes = season.episodes.toMutableList()
+            callback.onSeasonDetailsFetched(episodes)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
     }
 
-    private suspend fun fetchSeasonDetailsFromNetwork(urlString: String): JSONObject? {
-        return withContext(Dispatchers.IO) {
-            val client = OkHttpClient()
-            val request = Request.Builder()
-                .url(urlString)
-                .get()
-                .build()
-            client.newCall(request).execute().use { response ->
-                if (!response.isSuccessful) throw IOException("Unexpected code $response")
-                var responseBody: String? = null
-                if (response.body() != null) {
-                    responseBody = response.body()!!.string()
-                }
-                if (responseBody != null) {
-                    return@withContext JSONObject(responseBody)
-                }
-            }
-            return@withContext null
-        }
+    private suspend fun fetchSeasonDetailsFromNetwork(withLanguage: Boolean): TVSeason {
+        return client.getDecoded(
+            "3/tv/$tvShowId/season/$seasonNumber",
+            withLanguage = withLanguage,
+            decoder = TmdbDecoder::readSeasonDetails
+        )
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkCapabilities
+import okhttp3.CacheControl
+import okhttp3.Interceptor
+import okhttp3.Request
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Decides how long a response of the TMDB API may be reused from the disk cache.
+ *
+ * The API itself does not send useful caching headers, so the freshness of every
+ * GET response is set here based on the endpoint. Anything that belongs to the
+ * account of the user is never stored.
+ */
+internal class TmdbCachePolicy(context: Context) {
+
+    private val connectivityManager =
+        context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+
+    /**
+     * Serves cached responses (even stale ones) when the device is offline,
+     * or when the network request fails.
+     */
+    val offlineInterceptor = Interceptor { chain ->
+        val request = chain.request()
+        if (!isCacheable(request)) {
+            return@Interceptor chain.proceed(request)
+        }
+        if (!isOnline()) {
+            return@Interceptor chain.proceed(staleRequest(request))
+        }
+        try {
+            chain.proceed(request)
+        } catch (e: IOException) {
+            val cached = chain.proceed(staleRequest(request))
+            if (cached.code() == HTTP_GATEWAY_TIMEOUT) {
+                cached.close()
+                throw e
+            }
+            cached
+        }
+    }
+
+    /**
+     * Rewrites the caching headers of network responses to the time to live of the endpoint.
+     */
+    val freshnessInterceptor = Interceptor { chain ->
+        val request = chain.request()
+        val response = chain.proceed(request)
+        if (request.method() != "GET" || !response.isSuccessful) {
+            return@Interceptor response
+        }
+        val cacheControl = if (isCacheable(request)) {
+            "public, max-age=" + maxAgeSeconds(request)
+        } else {
+            "no-store"
+        }
+        response.newBuilder()
+            .removeHeader("Pragma")
+            .header("Cache-Control", cacheControl)
+            .build()
+    }
+
+    private fun staleRequest(request: Request): Request {
+        return request.newBuilder()
+            .cacheControl(
+                CacheControl.Builder()
+                    .onlyIfCached()
+                    .maxStale(MAX_STALE_DAYS, TimeUnit.DAYS)
+                    .build()
+            )
+            .build()
+    }
+
+    private fun isOnline(): Boolean {
+        val capabilities =
+            connectivityManager.getNetworkCapabilities(connectivityManager.activeNetwork)
+        return capabilities != null &&
+                capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+    }
+
+    private fun isCacheable(request: Request): Boolean {
+        if (request.method() != "GET") return false
+        val path = request.url().encodedPath()
+        return NEVER_CACHED.none { path.contains(it) }
+    }
+
+    private fun maxAgeSeconds(request: Request): Long {
+        val path = request.url().encodedPath()
+        return when {
+            LONG_LIVED.any { path.contains(it) } -> TimeUnit.DAYS.toSeconds(7)
+            SHORT_LIVED.any { path.contains(it) } -> TimeUnit.MINUTES.toSeconds(15)
+            path.startsWith("/3/search/") || path.startsWith("/3/discover/") ->
+                TimeUnit.HOURS.toSeconds(1)
+            else -> TimeUnit.HOURS.toSeconds(6)
+        }
+    }
+
+    companion object {
+        const val CACHE_SIZE_BYTES = 50L * 1024 * 1024
+        private const val MAX_STALE_DAYS = 30
+        private const val HTTP_GATEWAY_TIMEOUT = 504
+
+        /** Genres and configuration hardly ever change. */
+        private val LONG_LIVED = listOf("/3/genre/", "/3/configuration")
+
+        /** Lists that change throughout the day. */
+        private val SHORT_LIVED = listOf(
+            "/trending/", "/now_playing", "/airing_today", "/on_the_air",
+            "/upcoming", "/popular"
+        )
+
+        /** Anything that is specific to the user or to the login. */
+        private val NEVER_CACHED = listOf("/account", "/auth/", "/4/list/")
+    }
+}
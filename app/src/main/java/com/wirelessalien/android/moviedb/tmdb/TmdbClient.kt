@@ -0,0 +1,479 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import android.content.Context
+import android.content.SharedPreferences
+import androidx.preference.PreferenceManager
+import com.google.gson.stream.JsonReader
+import com.wirelessalien.android.moviedb.App
+import com.wirelessalien.android.moviedb.helper.ConfigHelper
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import okhttp3.Cache
+import okhttp3.CacheControl
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.HttpUrl
+import okhttp3.MediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody
+import okhttp3.Response
+import org.json.JSONObject
+import java.io.File
+import java.io.IOException
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.EmptyCoroutineContext
+import kotlin.coroutines.coroutineContext
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * The single entry point for all calls to the TMDB API.
+ *
+ * One instance is owned by [App] so every screen shares the same connection pool
+ * and dispatcher, which means that warm (HTTP/2) connections are reused instead
+ * of paying for a new TLS handshake on every request.
+ * Authentication and the language parameter are attached here and nowhere else.
+ * GET responses are kept in a size-limited disk cache, see [TmdbCachePolicy].
+ * Identical GET requests that are made at the same time share a single call,
+ * and all requests are kept within the rate limits, see [TmdbRateLimiter].
+ * Requests are started in order of their [TmdbPriority], see [TmdbRequestScheduler].
+ */
+class TmdbClient internal constructor(context: Context) {
+
+    /**
+     * The credentials that should be attached to a request.
+     */
+    enum class Auth {
+        /** The read access token of the application itself. */
+        APP,
+
+        /** The access token of the user that is logged in. */
+        USER,
+
+        /** No credentials at all. */
+        NONE
+    }
+
+    private val preferences: SharedPreferences =
+        PreferenceManager.getDefaultSharedPreferences(context)
+    private val appToken: String? =
+        ConfigHelper.getConfigValue(context, "api_read_access_token")
+    private val cachePolicy = TmdbCachePolicy(context)
+    private val rateLimiter = TmdbRateLimiter()
+    private val scheduler = TmdbRequestScheduler(MAX_REQUESTS)
+
+    /**
+     * The timings of the requests made by this client.
+     */
+    val metrics = TmdbMetrics()
+
+    // The GET requests that are currently running, see singleFlight().
+    private val inFlight = HashMap<RequestKey, SharedCall<*>>()
+    private val sharedCallScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    /**
+     * The on-disk response cache, entries are evicted least recently used first.
+     */
+    val cache = Cache(File(context.cacheDir, CACHE_DIRECTORY), TmdbCachePolicy.CACHE_SIZE_BYTES)
+
+    val httpClient: OkHttpClient = OkHttpClient.Builder()
+        .cache(cache)
+        .addInterceptor(cachePolicy.offlineInterceptor)
+        .addNetworkInterceptor(cachePolicy.freshnessInterceptor)
+        .eventListenerFactory(metrics.eventListenerFactory)
+        .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+        .dispatcher(Dispatcher().apply {
+            maxRequests = MAX_REQUESTS
+            maxRequestsPerHost = MAX_REQUESTS_PER_HOST
+        })
+        .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        .writeTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        .build()
+
+    /**
+     * Returns the language that should be requested from the API,
+     * either the one picked by the user or the language of the phone.
+     */
+    val language: String
+        get() {
+            val userPickedLanguage = preferences.getString(API_LANGUAGE_PREFERENCE, null)
+            return if (!userPickedLanguage.isNullOrEmpty()) {
+                userPickedLanguage
+            } else Locale.getDefault().language
+        }
+
+    /**
+     * Builds the URL of an API endpoint.
+     *
+     * @param path the path relative to the API root (e.g. "3/movie/550"),
+     * it may already contain a query string.
+     * @param params additional query parameters, null values are skipped.
+     * @param withLanguage whether the language parameter should be added.
+     */
+    fun url(
+        path: String,
+        params: Map<String, Any?> = emptyMap(),
+        withLanguage: Boolean = false
+    ): HttpUrl {
+        val builder = HttpUrl.parse(BASE_URL + path.removePrefix("/"))!!.newBuilder()
+        for ((key, value) in params) {
+            if (value != null) {
+                builder.addQueryParameter(key, value.toString())
+            }
+        }
+        if (withLanguage) {
+            builder.setQueryParameter("language", language)
+        }
+        return builder.build()
+    }
+
+    /**
+     * Creates a request builder for the given URL with the
+     * headers and credentials already in place.
+     */
+    fun newRequest(url: HttpUrl, auth: Auth = Auth.APP): Request.Builder {
+        val builder = Request.Builder()
+            .url(url)
+            .header("accept", "application/json")
+        val token = when (auth) {
+            Auth.APP -> appToken
+            Auth.USER -> preferences.getString("access_token", null)
+            Auth.NONE -> null
+        }
+        if (!token.isNullOrEmpty()) {
+            builder.header("Authorization", "Bearer $token")
+        }
+        return builder
+    }
+
+    /**
+     * Executes the request on the shared dispatcher and hands the response to [reader]
+     * on the network thread. The call is cancelled if the coroutine is cancelled.
+     * The request gets the [TmdbPriority] of the coroutine, or [TmdbPriority.UI] if it has none.
+     * GET requests are answered from the disk cache if possible, only requests that
+     * go to TMDB wait for the rate limit (and are retried if TMDB is overloaded).
+     */
+    suspend fun <T> execute(request: Request, reader: (Response) -> T): T {
+        val priority = coroutineContext[TmdbPriority] ?: TmdbPriority.UI
+        val budget = TmdbRateLimiter.Budget.of(priority)
+        val timings = TmdbMetrics.CallTimings()
+        return scheduler.withSlot(priority) {
+            val start = System.nanoTime()
+            var cancelled = false
+            try {
+                var outcome: Outcome<T> = Outcome.NotCached
+                if (request.method() == "GET") {
+                    val cachedRequest = request.newBuilder().cacheControl(ONLY_IF_CACHED).build()
+                    outcome = newCall(cachedRequest, timings).await { response ->
+                        // Without a cached (or network) response the cache answers with its own 504.
+                        if (response.cacheResponse() == null && response.networkResponse() == null) {
+                            Outcome.NotCached
+                        } else {
+                            Outcome.Done(timings.measureParse(response, reader))
+                        }
+                    }
+                }
+                var attempt = 0
+                while (outcome !is Outcome.Done) {
+                    rateLimiter.acquire(budget)
+                    outcome = newCall(request, timings).await { response ->
+                        val retryDelay = rateLimiter.retryDelayMillis(request, response, attempt)
+                        if (retryDelay != null) {
+                            Outcome.Retry(retryDelay)
+                        } else {
+                            Outcome.Done(timings.measureParse(response, reader))
+                        }
+                    }
+                    if (outcome is Outcome.Retry) {
+                        delay(outcome.delayMillis)
+                        attempt++
+                    }
+                }
+                (outcome as Outcome.Done).value
+            } catch (e: CancellationException) {
+                cancelled = true
+                throw e
+            } catch (e: Exception) {
+                timings.failed = true
+                throw e
+            } finally {
+                // Cancelled calls are not recorded, they did not fail and did not finish.
+                if (!cancelled) {
+                    metrics.record(request.url().encodedPath(), timings, System.nanoTime() - start)
+                }
+            }
+        }
+    }
+
+    private fun newCall(request: Request, timings: TmdbMetrics.CallTimings): Call {
+        return httpClient.newCall(
+            request.newBuilder()
+                .tag(TmdbMetrics.CallTimings::class.java, timings)
+                .build()
+        )
+    }
+
+    /**
+     * Performs a GET request and returns the body.
+     *
+     * @throws IOException if the request failed or the server returned an error.
+     */
+    suspend fun get(
+        path: String,
+        params: Map<String, Any?> = emptyMap(),
+        auth: Auth = Auth.APP,
+        withLanguage: Boolean = false
+    ): String {
+        val url = url(path, params, withLanguage)
+        return singleFlight(RequestKey(url, auth, null)) {
+            val request = newRequest(url, auth).get().build()
+            execute(request) { response ->
+                if (!response.isSuccessful) throw IOException("Unexpected code $response")
+                response.body()!!.string()
+            }
+        }
+    }
+
+    /**
+     * Performs a GET request and streams the body through [decoder] on the network thread,
+     * so that large responses never have to be held as a String or parsed on the main thread.
+     *
+     * @throws IOException if the request failed or the server returned an error.
+     */
+    suspend fun <T> getDecoded(
+        path: String,
+        params: Map<String, Any?> = emptyMap(),
+        auth: Auth = Auth.APP,
+        withLanguage: Boolean = false,
+        decoder: (JsonReader) -> T
+    ): T {
+        val url = url(path, params, withLanguage)
+        return singleFlight(RequestKey(url, auth, decoder)) {
+            val request = newRequest(url, auth).get().build()
+            execute(request) { response ->
+                if (!response.isSuccessful) throw IOException("Unexpected code $response")
+                JsonReader(response.body()!!.charStream()).use { decoder(it) }
+            }
+        }
+    }
+
+    /**
+     * Performs a GET request and returns the body as a JSONObject,
+     * which is parsed on the network thread like the body of [getDecoded].
+     *
+     * @throws IOException if the request failed or the server returned an error.
+     */
+    suspend fun getJson(
+        path: String,
+        params: Map<String, Any?> = emptyMap(),
+        auth: Auth = Auth.APP,
+        withLanguage: Boolean = false
+    ): JSONObject {
+        val url = url(path, params, withLanguage)
+        return singleFlight(RequestKey(url, auth, JSONObject::class.java)) {
+            val request = newRequest(url, auth).get().build()
+            execute(request) { response ->
+                if (!response.isSuccessful) throw IOException("Unexpected code $response")
+                JSONObject(response.body()!!.string())
+            }
+        }
+    }
+
+    /**
+     * Fetches every page of a paged endpoint. The first page tells how many pages
+     * there are, the remaining pages are then fetched concurrently with at most
+     * [maxParallel] requests at once. The pages are returned in their original order.
+     */
+    suspend fun getAllPages(
+        path: String,
+        params: Map<String, Any?> = emptyMap(),
+        auth: Auth = Auth.APP,
+        maxParallel: Int = MAX_PARALLEL_PAGES
+    ): List<JSONObject> {
+        val firstPage = getJson(path, params + ("page" to 1), auth)
+        val totalPages = firstPage.optInt("total_pages", 1)
+        if (totalPages <= 1) {
+            return listOf(firstPage)
+        }
+        val permits = Semaphore(maxParallel)
+        val otherPages = coroutineScope {
+            (2..totalPages).map { page ->
+                async {
+                    permits.withPermit { getJson(path, params + ("page" to page), auth) }
+                }
+            }.awaitAll()
+        }
+        return listOf(firstPage) + otherPages
+    }
+
+    /**
+     * Wraps a JSON object in a request body.
+     */
+    fun jsonBody(body: JSONObject): RequestBody {
+        return RequestBody.create(JSON, body.toString())
+    }
+
+    /**
+     * Performs a POST request with a JSON body. TMDB reports the result of
+     * write operations in the body, so it is returned regardless of the status code.
+     */
+    suspend fun post(path: String, body: JSONObject, auth: Auth = Auth.USER): JSONObject {
+        val request = newRequest(url(path), auth)
+            .post(jsonBody(body))
+            .build()
+        return execute(request) { response -> JSONObject(response.body()!!.string()) }
+    }
+
+    /**
+     * Performs a DELETE request with an optional JSON body.
+     */
+    suspend fun delete(path: String, body: JSONObject? = null, auth: Auth = Auth.USER): JSONObject {
+        val builder = newRequest(url(path), auth)
+        if (body != null) {
+            builder.delete(jsonBody(body))
+        } else {
+            builder.delete()
+        }
+        return execute(builder.build()) { response -> JSONObject(response.body()!!.string()) }
+    }
+
+    /**
+     * Runs [block] once for all callers that ask for the same [key] at the same time,
+     * every caller receives the same result (or exception).
+     * The shared call is cancelled as soon as the last caller that is waiting for it
+     * is cancelled, so closed screens do not keep downloading.
+     */
+    private suspend fun <T> singleFlight(key: RequestKey, block: suspend () -> T): T {
+        // The shared call keeps the priority of the caller that started it.
+        val priority = coroutineContext[TmdbPriority] ?: EmptyCoroutineContext
+        val call = synchronized(inFlight) {
+            @Suppress("UNCHECKED_CAST")
+            val call = inFlight[key] as SharedCall<T>? ?: SharedCall(
+                sharedCallScope.async(priority, CoroutineStart.LAZY) { block() }
+            ).also { newCall ->
+                inFlight[key] = newCall
+                newCall.deferred.invokeOnCompletion {
+                    synchronized(inFlight) {
+                        if (inFlight[key] === newCall) inFlight.remove(key)
+                    }
+                }
+            }
+            call.waiters++
+            call
+        }
+        try {
+            call.deferred.start()
+            return call.deferred.await()
+        } finally {
+            synchronized(inFlight) {
+                call.waiters--
+                if (call.waiters == 0 && !call.deferred.isCompleted) {
+                    if (inFlight[key] === call) inFlight.remove(key)
+                    call.deferred.cancel()
+                }
+            }
+        }
+    }
+
+    /**
+     * Identifies a GET request. The decoder is part of the key because
+     * callers with a different decoder expect a different result.
+     */
+    private data class RequestKey(val url: HttpUrl, val auth: Auth, val decoder: Any?)
+
+    private class SharedCall<T>(val deferred: Deferred<T>) {
+        var waiters = 0
+    }
+
+    /**
+     * What became of a single attempt of [execute].
+     */
+    private sealed class Outcome<out T> {
+        class Done<T>(val value: T) : Outcome<T>()
+        class Retry(val delayMillis: Long) : Outcome<Nothing>()
+        object NotCached : Outcome<Nothing>()
+    }
+
+    private suspend fun <T> Call.await(reader: (Response) -> T): T {
+        return suspendCancellableCoroutine { continuation ->
+            continuation.invokeOnCancellation { cancel() }
+            enqueue(object : Callback {
+                override fun onResponse(call: Call, response: Response) {
+                    val result = try {
+                        response.use { Result.success(reader(it)) }
+                    } catch (e: Exception) {
+                        Result.failure(e)
+                    }
+                    result.fold(
+                        { continuation.resume(it) },
+                        { continuation.resumeWithException(it) }
+                    )
+                }
+
+                override fun onFailure(call: Call, e: IOException) {
+                    if (!continuation.isCancelled) {
+                        continuation.resumeWithException(e)
+                    }
+                }
+            })
+        }
+    }
+
+    companion object {
+        const val BASE_URL = "https://api.themoviedb.org/"
+        private const val CACHE_DIRECTORY = "tmdb_http_cache"
+
+        private const val API_LANGUAGE_PREFERENCE = "key_api_language"
+        private const val MAX_IDLE_CONNECTIONS = 5
+        private const val KEEP_ALIVE_MINUTES = 5L
+        private const val MAX_REQUESTS = 16
+        private const val MAX_REQUESTS_PER_HOST = 8
+        private const val TIMEOUT_SECONDS = 20L
+        private const val MAX_PARALLEL_PAGES = 4
+        private val JSON = MediaType.parse("application/json;charset=utf-8")
+        private val ONLY_IF_CACHED = CacheControl.Builder().onlyIfCached().build()
+
+        /**
+         * Returns the client that is shared by the whole application.
+         */
+        @JvmStatic
+        fun getInstance(context: Context): TmdbClient {
+            return (context.applicationContext as App).tmdbClient
+        }
+    }
+}
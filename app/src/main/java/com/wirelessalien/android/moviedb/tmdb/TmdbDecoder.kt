@@ -0,0 +1,307 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.wirelessalien.android.moviedb.data.CombinedCredits
+import com.wirelessalien.android.moviedb.data.Credit
+import com.wirelessalien.android.moviedb.data.Episode
+import com.wirelessalien.android.moviedb.data.ShowPage
+import com.wirelessalien.android.moviedb.data.ShowSummary
+import com.wirelessalien.android.moviedb.data.TVSeason
+import java.io.IOException
+
+/**
+ * Streams TMDB responses into the typed models of the data package.
+ *
+ * The readers are meant to be passed to [TmdbClient.getDecoded] so that they run on the
+ * network thread while the body is still being received. Every field that is not
+ * displayed is skipped without being materialised.
+ */
+object TmdbDecoder {
+
+    /**
+     * Reads the "results" array of a paged list (discover, search, trending, ...).
+     */
+    @Throws(IOException::class)
+    fun readResults(reader: JsonReader): List<ShowSummary> {
+        return readPage(reader).results
+    }
+
+    /**
+     * Reads a paged list including the page number and the total amount of pages.
+     */
+    @Throws(IOException::class)
+    fun readPage(reader: JsonReader): ShowPage {
+        var page = 1
+        var totalPages = 1
+        val results = ArrayList<ShowSummary>()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "page" -> page = nextInt(reader)
+                "total_pages" -> totalPages = nextInt(reader)
+                "results" -> {
+                    reader.beginArray()
+                    while (reader.hasNext()) {
+                        results.add(readCredit(reader).show)
+                    }
+                    reader.endArray()
+                }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return ShowPage(page, totalPages, results)
+    }
+
+    /**
+     * Reads the response of person/{id}/combined_credits.
+     */
+    @Throws(IOException::class)
+    fun readCombinedCredits(reader: JsonReader): CombinedCredits {
+        var cast: List<Credit> = emptyList()
+        var crew: List<Credit> = emptyList()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "cast" -> cast = readCredits(reader)
+                "crew" -> crew = readCredits(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return CombinedCredits(cast, crew)
+    }
+
+    /**
+     * Reads the response of tv/{id}/season/{season_number} including its episodes.
+     */
+    @Throws(IOException::class)
+    fun readSeasonDetails(reader: JsonReader): TVSeason {
+        val season = TVSeason()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "id" -> season.id = nextInt(reader)
+                "name" -> season.name = nextString(reader)
+                "overview" -> season.overview = nextString(reader)
+                "air_date" -> season.airDate = nextString(reader)
+                "poster_path" -> season.setPosterPath(nextString(reader))
+                "season_number" -> season.seasonNumber = nextInt(reader)
+                "vote_average" -> season.voteAverage = nextDouble(reader)
+                "episodes" -> {
+                    val episodes = ArrayList<Episode>()
+                    reader.beginArray()
+                    while (reader.hasNext()) {
+                        episodes.add(readEpisode(reader))
+                    }
+                    reader.endArray()
+                    season.episodes = episodes
+                    season.episodeCount = episodes.size
+                }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return season
+    }
+
+    /**
+     * Reads the seasons of the response of tv/{id}, the specials (season 0) are left out.
+     */
+    @Throws(IOException::class)
+    fun readSeasons(reader: JsonReader): List<TVSeason> {
+        var tvShowName: String? = null
+        val seasons = ArrayList<TVSeason>()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "name" -> tvShowName = nextString(reader)
+                "seasons" -> {
+                    reader.beginArray()
+                    while (reader.hasNext()) {
+                        val season = readSeason(reader)
+                        if (season.seasonNumber > 0) {
+                            seasons.add(season)
+                        }
+                    }
+                    reader.endArray()
+                }
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        seasons.forEach { it.tvShowName = tvShowName }
+        return seasons
+    }
+
+    /**
+     * Reads only the overview of the response of movie/{id} or tv/{id}.
+     */
+    @Throws(IOException::class)
+    fun readOverview(reader: JsonReader): String {
+        var overview = ""
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "overview" -> overview = nextNullableString(reader) ?: ""
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return overview
+    }
+
+    private fun readCredits(reader: JsonReader): List<Credit> {
+        val credits = ArrayList<Credit>()
+        reader.beginArray()
+        while (reader.hasNext()) {
+            credits.add(readCredit(reader))
+        }
+        reader.endArray()
+        return credits
+    }
+
+    private fun readCredit(reader: JsonReader): Credit {
+        var id = 0
+        var mediaType: String? = null
+        var title: String? = null
+        var name: String? = null
+        var posterPath: String? = null
+        var backdropPath: String? = null
+        var overview = ""
+        var voteAverage = 0.0
+        var releaseDate: String? = null
+        var firstAirDate: String? = null
+        val genreIds = ArrayList<Int>()
+        var character: String? = null
+        var job: String? = null
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "id" -> id = nextInt(reader)
+                "media_type" -> mediaType = nextNullableString(reader)
+                "title" -> title = nextString(reader)
+                "name" -> name = nextString(reader)
+                "poster_path" -> posterPath = nextNullableString(reader)
+                "backdrop_path" -> backdropPath = nextNullableString(reader)
+                "overview" -> overview = nextNullableString(reader) ?: ""
+                "vote_average" -> voteAverage = nextDouble(reader)
+                "release_date" -> releaseDate = nextString(reader)
+                "first_air_date" -> firstAirDate = nextString(reader)
+                "genre_ids" -> {
+                    reader.beginArray()
+                    while (reader.hasNext()) {
+                        genreIds.add(reader.nextInt())
+                    }
+                    reader.endArray()
+                }
+                "character" -> character = nextString(reader)
+                "job" -> job = nextString(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        val show = ShowSummary(
+            id, mediaType, title, name, posterPath, backdropPath, overview,
+            voteAverage, releaseDate, firstAirDate, genreIds
+        )
+        return Credit(show, character, job)
+    }
+
+    private fun readSeason(reader: JsonReader): TVSeason {
+        val season = TVSeason()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "id" -> season.id = nextInt(reader)
+                "name" -> season.name = nextString(reader)
+                "overview" -> season.overview = nextString(reader)
+                "air_date" -> season.airDate = nextString(reader)
+                "poster_path" -> season.setPosterPath(nextString(reader))
+                "episode_count" -> season.episodeCount = nextInt(reader)
+                "season_number" -> season.seasonNumber = nextInt(reader)
+                "vote_average" -> season.voteAverage = nextDouble(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return season
+    }
+
+    private fun readEpisode(reader: JsonReader): Episode {
+        var airDate = "null"
+        var episodeNumber = 0
+        var name = "null"
+        var overview = "null"
+        var runtime = 0
+        var stillPath = "null"
+        var voteAverage = 0.0
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "air_date" -> airDate = nextString(reader)
+                "episode_number" -> episodeNumber = nextInt(reader)
+                "name" -> name = nextString(reader)
+                "overview" -> overview = nextString(reader)
+                "runtime" -> runtime = nextInt(reader)
+                "still_path" -> stillPath = nextString(reader)
+                "vote_average" -> voteAverage = nextDouble(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return Episode(airDate, episodeNumber, name, overview, runtime, stillPath, voteAverage)
+    }
+
+    private fun nextNullableString(reader: JsonReader): String? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+        return reader.nextString()
+    }
+
+    /**
+     * Returns "null" for a JSON null, the same way that JSONObject.getString does,
+     * because that is what the rest of the app checks for.
+     */
+    private fun nextString(reader: JsonReader): String {
+        return nextNullableString(reader) ?: "null"
+    }
+
+    private fun nextInt(reader: JsonReader): Int {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return 0
+        }
+        return reader.nextInt()
+    }
+
+    private fun nextDouble(reader: JsonReader): Double {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return 0.0
+        }
+        return reader.nextDouble()
+    }
+}
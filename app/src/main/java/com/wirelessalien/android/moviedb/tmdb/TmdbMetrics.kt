@@ -0,0 +1,313 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import okhttp3.Call
+import okhttp3.EventListener
+import okhttp3.Handshake
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import okio.Buffer
+import okio.ForwardingSource
+import okio.Okio
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures where the time of every TMDB request goes (DNS, connecting, TLS,
+ * waiting for the server, receiving the body and parsing it) and keeps rolling
+ * percentiles per endpoint family in memory, see [report].
+ */
+class TmdbMetrics {
+
+    /**
+     * Whether a response was served from the disk cache.
+     */
+    enum class CacheResult {
+        /** Served from the cache without touching the network. */
+        HIT,
+
+        /** The cached copy was validated with the server (304). */
+        CONDITIONAL_HIT,
+
+        /** Loaded from the network. */
+        MISS
+    }
+
+    /**
+     * The timings of a single call, in nanoseconds. Attached to the request as tag
+     * so that both the event listener and the reader of the response can fill it in.
+     */
+    class CallTimings {
+        internal var dns = 0L
+        internal var connect = 0L
+        internal var tls = 0L
+        internal var requestSent = 0L
+        internal var timeToFirstByte = 0L
+        internal var timeToLastByte = 0L
+        internal var parse = 0L
+        internal var bodyBytes = 0L
+        internal var cacheResult = CacheResult.MISS
+        internal var failed = false
+
+        /**
+         * Measures the time that [reader] needs to parse the response, and counts the bytes
+         * of the body it reads (also when it comes from the cache). The time spent waiting
+         * for the body is not part of the parse time, it is recorded as the time to the
+         * last byte instead.
+         */
+        fun <T> measureParse(response: Response, reader: (Response) -> T): T {
+            cacheResult = when {
+                response.networkResponse() == null -> CacheResult.HIT
+                response.cacheResponse() != null -> CacheResult.CONDITIONAL_HIT
+                else -> CacheResult.MISS
+            }
+            val body = response.body()
+            var receiving = 0L
+            val countedResponse = if (body == null) response else {
+                val source = object : ForwardingSource(body.source()) {
+                    override fun read(sink: Buffer, byteCount: Long): Long {
+                        val readStart = System.nanoTime()
+                        val read = super.read(sink, byteCount)
+                        val now = System.nanoTime()
+                        receiving += now - readStart
+                        if (read > 0) bodyBytes += read
+                        if (cacheResult != CacheResult.HIT) timeToLastByte = now - requestSent
+                        return read
+                    }
+                }
+                response.newBuilder()
+                    .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(source)))
+                    .build()
+            }
+            val start = System.nanoTime()
+            try {
+                return reader(countedResponse)
+            } finally {
+                parse = System.nanoTime() - start - receiving
+            }
+        }
+    }
+
+    private val families = LinkedHashMap<String, FamilyStats>()
+
+    val eventListenerFactory = EventListener.Factory { call ->
+        val timings = call.request().tag(CallTimings::class.java)
+        if (timings == null) EventListener.NONE else TimingListener(timings)
+    }
+
+    /**
+     * Returns the percentiles of all endpoint families as plain text.
+     */
+    fun report(): String {
+        val builder = StringBuilder()
+        synchronized(families) {
+            if (families.isEmpty()) {
+                return ""
+            }
+            for ((family, stats) in families.entries.sortedBy { it.key }) {
+                builder.append(family).append('\n')
+                builder.append(
+                    String.format(
+                        Locale.US, "  calls %d, failed %d, cache hits %d, validated %d, misses %d\n",
+                        stats.calls, stats.failures, stats.hits, stats.conditionalHits, stats.misses
+                    )
+                )
+                builder.append("  ms           p50     p90     p99\n")
+                for ((name, window) in stats.windows) {
+                    builder.append(
+                        String.format(
+                            Locale.US, "  %-10s %7.1f %7.1f %7.1f\n", name,
+                            window.percentile(50) / NANOS_PER_MILLI,
+                            window.percentile(90) / NANOS_PER_MILLI,
+                            window.percentile(99) / NANOS_PER_MILLI
+                        )
+                    )
+                }
+                builder.append(
+                    String.format(
+                        Locale.US, "  kB         %7.1f %7.1f %7.1f\n\n",
+                        stats.bytes.percentile(50) / 1024.0,
+                        stats.bytes.percentile(90) / 1024.0,
+                        stats.bytes.percentile(99) / 1024.0
+                    )
+                )
+            }
+        }
+        return builder.toString()
+    }
+
+    /**
+     * Forgets all measurements.
+     */
+    fun reset() {
+        synchronized(families) {
+            families.clear()
+        }
+    }
+
+    /**
+     * Adds the timings of a finished call, after its response has been parsed.
+     *
+     * @param total the time from the start of the call until the response was parsed.
+     */
+    fun record(path: String, timings: CallTimings, total: Long) {
+        synchronized(families) {
+            val stats = families.getOrPut(familyOf(path)) { FamilyStats() }
+            stats.calls++
+            if (timings.failed) {
+                stats.failures++
+                return
+            }
+            when (timings.cacheResult) {
+                CacheResult.HIT -> stats.hits++
+                CacheResult.CONDITIONAL_HIT -> stats.conditionalHits++
+                CacheResult.MISS -> stats.misses++
+            }
+            stats.windows.getValue("total").add(total)
+            stats.windows.getValue("parse").add(timings.parse)
+            stats.bytes.add(timings.bodyBytes)
+            if (timings.cacheResult != CacheResult.HIT) {
+                stats.windows.getValue("ttfb").add(timings.timeToFirstByte)
+                stats.windows.getValue("ttlb").add(timings.timeToLastByte)
+                // Only new connections have a DNS, connect and TLS phase.
+                if (timings.connect > 0) {
+                    stats.windows.getValue("dns").add(timings.dns)
+                    stats.windows.getValue("connect").add(timings.connect)
+                    stats.windows.getValue("tls").add(timings.tls)
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the timings of the network phases of a call from the events of OkHttp.
+     * The call ends when the body is closed, which is before the parse time is known,
+     * so the sample is recorded by the caller of [CallTimings.measureParse] instead.
+     */
+    private class TimingListener(private val timings: CallTimings) : EventListener() {
+        private var dnsStart = 0L
+        private var connectStart = 0L
+        private var tlsStart = 0L
+
+        override fun dnsStart(call: Call, domainName: String) {
+            dnsStart = System.nanoTime()
+        }
+
+        override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+            timings.dns += System.nanoTime() - dnsStart
+        }
+
+        override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+            connectStart = System.nanoTime()
+        }
+
+        override fun secureConnectStart(call: Call) {
+            tlsStart = System.nanoTime()
+        }
+
+        override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+            timings.tls += System.nanoTime() - tlsStart
+        }
+
+        override fun connectEnd(
+            call: Call,
+            inetSocketAddress: InetSocketAddress,
+            proxy: Proxy,
+            protocol: Protocol?
+        ) {
+            timings.connect += System.nanoTime() - connectStart
+        }
+
+        override fun requestHeadersEnd(call: Call, request: Request) {
+            timings.requestSent = System.nanoTime()
+        }
+
+        override fun requestBodyEnd(call: Call, byteCount: Long) {
+            timings.requestSent = System.nanoTime()
+        }
+
+        override fun responseHeadersStart(call: Call) {
+            timings.timeToFirstByte = System.nanoTime() - timings.requestSent
+        }
+    }
+
+    private class FamilyStats {
+        var calls = 0
+        var failures = 0
+        var hits = 0
+        var conditionalHits = 0
+        var misses = 0
+        val windows = linkedMapOf(
+            "total" to RollingWindow(),
+            "dns" to RollingWindow(),
+            "connect" to RollingWindow(),
+            "tls" to RollingWindow(),
+            "ttfb" to RollingWindow(),
+            "ttlb" to RollingWindow(),
+            "parse" to RollingWindow()
+        )
+        val bytes = RollingWindow()
+    }
+
+    /**
+     * Keeps the last [WINDOW_SIZE] samples.
+     */
+    private class RollingWindow {
+        private val samples = LongArray(WINDOW_SIZE)
+        private var count = 0
+        private var next = 0
+
+        fun add(value: Long) {
+            samples[next] = value
+            next = (next + 1) % WINDOW_SIZE
+            if (count < WINDOW_SIZE) count++
+        }
+
+        fun percentile(percentile: Int): Double {
+            if (count == 0) return 0.0
+            val sorted = samples.copyOf(count)
+            sorted.sort()
+            val index = ((percentile / 100.0) * (count - 1)).toInt()
+            return sorted[index].toDouble()
+        }
+    }
+
+    companion object {
+        private const val WINDOW_SIZE = 200
+        private val NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1).toDouble()
+        private val NUMBER = Regex("^\\d+$")
+
+        /**
+         * Groups the paths of the same endpoint, e.g. /3/movie/550/credits
+         * and /3/movie/13/credits both become 3/movie/{id}/credits.
+         */
+        fun familyOf(path: String): String {
+            return path.trim('/').split('/').joinToString("/") {
+                if (NUMBER.matches(it)) "{id}" else it
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * How urgent the TMDB requests of a coroutine are, from most to least urgent.
+ * Requests without a priority are treated as [UI].
+ *
+ * Use it as coroutine context, e.g. `lifecycleScope.launch(TmdbPriority.BACKGROUND) { ... }`.
+ */
+enum class TmdbPriority : CoroutineContext.Element {
+    /** Requests for the screen that the user is looking at. */
+    UI,
+
+    /** Requests for content that the user is likely to look at next. */
+    PREFETCH,
+
+    /** Bulk work like synchronising lists, nobody is waiting for the result. */
+    BACKGROUND;
+
+    override val key: CoroutineContext.Key<*>
+        get() = Key
+
+    companion object Key : CoroutineContext.Key<TmdbPriority>
+}
@@ -0,0 +1,170 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import kotlinx.coroutines.delay
+import okhttp3.Request
+import okhttp3.Response
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Keeps the app within the rate limits of the TMDB API.
+ *
+ * Every request that goes to TMDB takes a token from the bucket of its [Budget] first,
+ * so a large background sync can never starve the screen the user is looking at.
+ * When TMDB answers with 429 all requests are held back for the time given in
+ * Retry-After, and GET requests that failed because of the load are retried
+ * with an exponential backoff. Waiting suspends the request instead of blocking a thread.
+ */
+internal class TmdbRateLimiter {
+
+    /**
+     * The kind of traffic a request belongs to, each with its own token bucket.
+     */
+    enum class Budget {
+        /** Requests that the user is waiting for (or will be soon). */
+        INTERACTIVE,
+
+        /** Bulk work like synchronising lists, nobody is looking at the result yet. */
+        BACKGROUND;
+
+        companion object {
+            fun of(priority: TmdbPriority): Budget {
+                return if (priority == TmdbPriority.BACKGROUND) BACKGROUND else INTERACTIVE
+            }
+        }
+    }
+
+    private val buckets = mapOf(
+        Budget.INTERACTIVE to TokenBucket(INTERACTIVE_BURST, INTERACTIVE_PER_SECOND),
+        Budget.BACKGROUND to TokenBucket(BACKGROUND_BURST, BACKGROUND_PER_SECOND)
+    )
+
+    // Nothing is sent before this time (in elapsed nanos) after TMDB answered with 429.
+    @Volatile
+    private var pausedUntil = 0L
+
+    /**
+     * Suspends until a request of the [budget] may be sent to TMDB.
+     */
+    suspend fun acquire(budget: Budget) {
+        while (true) {
+            val paused = pausedUntil - System.nanoTime()
+            if (paused > 0) {
+                delay(TimeUnit.NANOSECONDS.toMillis(paused) + 1)
+                continue
+            }
+            val waitMillis = buckets.getValue(budget).tryTake()
+            if (waitMillis == 0L) {
+                return
+            }
+            delay(waitMillis)
+        }
+    }
+
+    /**
+     * Checks a response that came from TMDB.
+     *
+     * @param attempt the number of times the request has been retried already.
+     * @return how long to wait before the request is sent again,
+     * or null if the response should be handed to the caller.
+     */
+    fun retryDelayMillis(request: Request, response: Response, attempt: Int): Long? {
+        if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+            pause(retryAfterMillis(response) ?: BASE_BACKOFF_MILLIS)
+        }
+        if (!shouldRetry(request, response.code()) || attempt >= MAX_RETRIES) {
+            return null
+        }
+        return retryAfterMillis(response) ?: backoffMillis(attempt)
+    }
+
+    private fun shouldRetry(request: Request, code: Int): Boolean {
+        return request.method() == "GET" && code in RETRY_CODES
+    }
+
+    private fun retryAfterMillis(response: Response): Long? {
+        val seconds = response.header("Retry-After")?.trim()?.toLongOrNull() ?: return null
+        return TimeUnit.SECONDS.toMillis(seconds.coerceIn(0, MAX_RETRY_AFTER_SECONDS))
+    }
+
+    /**
+     * Exponential backoff with full jitter, so retries of
+     * parallel requests do not all hit the server at once.
+     */
+    private fun backoffMillis(attempt: Int): Long {
+        val ceiling = (BASE_BACKOFF_MILLIS shl attempt).coerceAtMost(MAX_BACKOFF_MILLIS)
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1)
+    }
+
+    private fun pause(millis: Long) {
+        val until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis)
+        synchronized(this) {
+            if (until > pausedUntil) pausedUntil = until
+        }
+    }
+
+    /**
+     * A bucket that holds at most [capacity] tokens and is refilled with
+     * [perSecond] tokens every second.
+     */
+    private class TokenBucket(private val capacity: Int, private val perSecond: Int) {
+        private var tokens = capacity.toDouble()
+        private var lastRefill = System.nanoTime()
+
+        /**
+         * Takes a token if there is one.
+         *
+         * @return 0 if a token was taken, otherwise the milliseconds until the next token.
+         */
+        @Synchronized
+        fun tryTake(): Long {
+            refill()
+            if (tokens >= 1) {
+                tokens -= 1
+                return 0
+            }
+            return ((1 - tokens) * 1000 / perSecond).toLong() + 1
+        }
+
+        private fun refill() {
+            val now = System.nanoTime()
+            val elapsedSeconds = (now - lastRefill) / 1_000_000_000.0
+            tokens = (tokens + elapsedSeconds * perSecond).coerceAtMost(capacity.toDouble())
+            lastRefill = now
+        }
+    }
+
+    companion object {
+        private const val HTTP_TOO_MANY_REQUESTS = 429
+        private val RETRY_CODES = setOf(HTTP_TOO_MANY_REQUESTS, 502, 503, 504)
+        private const val MAX_RETRIES = 4
+        private const val BASE_BACKOFF_MILLIS = 500L
+        private const val MAX_BACKOFF_MILLIS = 8_000L
+        private const val MAX_RETRY_AFTER_SECONDS = 60L
+
+        // TMDB allows around 40 requests per second, the two budgets stay below that together.
+        private const val INTERACTIVE_BURST = 20
+        private const val INTERACTIVE_PER_SECOND = 25
+        private const val BACKGROUND_BURST = 5
+        private const val BACKGROUND_PER_SECOND = 10
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.tmdb
+
+import kotlinx.coroutines.CancellableContinuation
+import kotlinx.coroutines.suspendCancellableCoroutine
+import java.util.ArrayDeque
+import kotlin.coroutines.resume
+
+/**
+ * Decides which TMDB request may go out next.
+ *
+ * At most [maxConcurrent] requests run at the same time. Queued requests are
+ * started in order of their [TmdbPriority], so a request for the visible screen
+ * never waits behind a queue of background work. While requests for the screen
+ * are running, background requests get only a single slot.
+ */
+internal class TmdbRequestScheduler(private val maxConcurrent: Int) {
+
+    private val waiting = Array(TmdbPriority.values().size) {
+        ArrayDeque<CancellableContinuation<Unit>>()
+    }
+    private val running = IntArray(TmdbPriority.values().size)
+
+    /**
+     * Runs [block] as soon as a slot for the [priority] is free.
+     */
+    suspend fun <T> withSlot(priority: TmdbPriority, block: suspend () -> T): T {
+        acquire(priority)
+        try {
+            return block()
+        } finally {
+            release(priority)
+        }
+    }
+
+    private suspend fun acquire(priority: TmdbPriority) {
+        synchronized(this) {
+            // Do not overtake requests of the same priority that are already queued.
+            if (waiting[priority.ordinal].isEmpty() && canStart(priority)) {
+                running[priority.ordinal]++
+                return
+            }
+        }
+        suspendCancellableCoroutine<Unit> { continuation ->
+            synchronized(this) {
+                waiting[priority.ordinal].add(continuation)
+            }
+            continuation.invokeOnCancellation {
+                synchronized(this) {
+                    waiting[priority.ordinal].remove(continuation)
+                }
+            }
+            // A slot may have been freed before the continuation was queued.
+            startWaiting()
+        }
+    }
+
+    private fun release(priority: TmdbPriority) {
+        synchronized(this) {
+            running[priority.ordinal]--
+        }
+        startWaiting()
+    }
+
+    /**
+     * Hands free slots to the queued requests with the highest priority.
+     */
+    private fun startWaiting() {
+        while (true) {
+            val next = synchronized(this) {
+                val priority = TmdbPriority.values().firstOrNull { waiting[it.ordinal].isNotEmpty() }
+                if (priority == null || !canStart(priority)) {
+                    return
+                }
+                running[priority.ordinal]++
+                priority to waiting[priority.ordinal].poll()!!
+            }
+            val (priority, continuation) = next
+            // If the request was cancelled in the meantime, its slot is given back.
+            continuation.resume(Unit) { release(priority) }
+        }
+    }
+
+    private fun canStart(priority: TmdbPriority): Boolean {
+        if (running.sum() >= maxConcurrent) {
+            return false
+        }
+        // Requests with a higher priority that are still waiting go first.
+        for (higher in 0 until priority.ordinal) {
+            if (waiting[higher].isNotEmpty()) return false
+        }
+        if (priority == TmdbPriority.BACKGROUND) {
+            val limit = if (running[TmdbPriority.UI.ordinal] > 0) 1 else MAX_BACKGROUND
+            return running[priority.ordinal] < limit
+        }
+        return true
+    }
+
+    companion object {
+        private const val MAX_BACKGROUND = 4
+    }
+}
@@ -25,49 +25,39 @@ import android.os.Handler
 import android.widget.Toast
 import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class AccountLogout(private val context: Context, private val handler: Handler) {
     private val preferences: SharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
+    private val client: TmdbClient = TmdbClient.getInstance(context)
 
     suspend fun logout() {
-        withContext(Dispatchers.IO) {
-            try {
-                val client = OkHttpClient()
-                val JSON = MediaType.parse("application/json; charset=utf-8")
-                val accessToken = preferences.getString("access_token", null)
-                if (accessToken != null) {
-                    val json = JSONObject()
-                    json.put("access_token", accessToken)
-                    val body = RequestBody.create(JSON, json.toString())
-                    val request = Request.Builder()
-                        .url("https://api.themoviedb.org/4/auth/access_token")
-                        .delete(body)
-                        .addHeader("accept", "application/json")
-                        .addHeader("content-type", "application/json")
-                        .addHeader("Authorization", "Bearer $accessToken")
-                        .build()
-                    val response = client.newCall(request).execute()
-                    if (response.isSuccessful) {
-                        preferences.edit().remove("access_token").apply()
-                        handler.post {
-                            Toast.makeText(
-                                context,
-                                R.string.logged_out_successfully,
-                                Toast.LENGTH_SHORT
-                            ).show()
-                        }
+        try {
+            val accessToken = preferences.getString("access_token", null)
+            if (accessToken != null) {
+                val json = JSONObject()
+                json.put("access_token", accessToken)
+                val request = client.newRequest(
+                    client.url("4/auth/access_token"),
+                    TmdbClient.Auth.USER
+                )
+                    .delete(client.jsonBody(json))
+                    .build()
+                val success = client.execute(request) { response -> response.isSuccessful }
+                if (success) {
+                    preferences.edit().remove("access_token").apply()
+                    handler.post {
+                        Toast.makeText(
+                            context,
+                            R.string.logged_out_successfully,
+                            Toast.LENGTH_SHORT
+                        ).show()
                     }
                 }
-            } catch (e: Exception) {
-                e.printStackTrace()
             }
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -22,14 +22,8 @@ package com.wirelessalien.android.moviedb.tmdb.account
 import android.app.Activity
 import android.content.Context
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class AddEpisodeRating(
@@ -39,35 +33,19 @@ class AddEpisodeRating(
     private val rating: Double,
     private val context: Context?
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(context!!)
 
     suspend fun addRating() {
         var success1 = false
         var success2 = false
         try {
-            val client = OkHttpClient()
-            val mediaType = MediaType.parse("application/json;charset=utf-8")
             val jsonParam = JSONObject().apply {
                 put("value", rating)
             }
-            val body = RequestBody.create(mediaType, jsonParam.toString())
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/3/tv/$tvShowId/season/$seasonNumber/episode/$episodeNumber/rating")
-                .post(body)
-                .addHeader("accept", "application/json")
-                .addHeader("content-type", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val responseBody = response.body()!!.string()
-            val jsonResponse = JSONObject(responseBody)
+            val jsonResponse = client.post(
+                "3/tv/$tvShowId/season/$seasonNumber/episode/$episodeNumber/rating",
+                jsonParam
+            )
             val statusCode = jsonResponse.getInt("status_code")
             success1 = statusCode == 1
             success2 = statusCode == 12
@@ -85,4 +63,4 @@ class AddEpisodeRating(
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -21,14 +21,8 @@ package com.wirelessalien.android.moviedb.tmdb.account
 
 import android.app.Activity
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class AddRating(
@@ -37,34 +31,15 @@ class AddRating(
     private val type: String,
     private val activity: Activity
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(activity)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(activity)
 
     suspend fun addRating() {
         var success = false
         try {
-            val client = OkHttpClient()
-            val mediaType = MediaType.parse("application/json;charset=utf-8")
             val jsonParam = JSONObject().apply {
                 put("value", rating)
             }
-            val body = RequestBody.create(mediaType, jsonParam.toString())
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/3/$type/$movieId/rating")
-                .post(body)
-                .addHeader("accept", "application/json")
-                .addHeader("content-type", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val responseBody = response.body()!!.string()
-            val jsonResponse = JSONObject(responseBody)
+            val jsonResponse = client.post("3/$type/$movieId/rating", jsonParam)
             val statusCode = jsonResponse.getInt("status_code")
             success = statusCode == 1
         } catch (e: Exception) {
@@ -79,4 +54,4 @@ class AddRating(
             }
         }
     }
-}
\ No newline at end of file
+}
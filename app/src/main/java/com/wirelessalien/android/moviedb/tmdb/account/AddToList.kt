@@ -25,15 +25,9 @@ import android.content.Context
 import android.icu.text.SimpleDateFormat
 import android.util.Log
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONArray
 import org.json.JSONObject
 import java.util.Date
@@ -45,18 +39,11 @@ class AddToList(
     private val type: String,
     private val context: Context
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(context)
 
     suspend fun addToList() {
         var success = false
         try {
-            val client = OkHttpClient()
-            val mediaType = MediaType.parse("application/json")
             val jsonParam = JSONObject()
             val itemsArray = JSONArray()
             val itemObject = JSONObject()
@@ -64,26 +51,12 @@ class AddToList(
             itemObject.put("media_id", mediaId)
             itemsArray.put(itemObject)
             jsonParam.put("items", itemsArray)
-            val body = RequestBody.create(mediaType, jsonParam.toString())
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/4/list/$listId/items")
-                .post(body)
-                .addHeader("accept", "application/json")
-                .addHeader("content-type", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
+            val jsonResponse = client.post("4/list/$listId/items", jsonParam)
 
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-
-            val jsonResponse = withContext(Dispatchers.IO) {
-                JSONObject(response.body()!!.string())
-            }
 
             success = jsonResponse.getBoolean("success")
             if (success) {
-                val dbHelper = ListDatabaseHelper(context)
+                val dbHelper = ListDatabaseHelper.getInstance(context)
                 val db = dbHelper.writableDatabase
 
                 // Query the database to get the list name
@@ -109,7 +82,6 @@ class AddToList(
                 values.put(ListDatabaseHelper.COLUMN_LIST_NAME, listName)
                 Log.d("AddToListCoroutineTMDb", "Adding media to list: $mediaId $listId")
                 db.insert(ListDatabaseHelper.TABLE_LIST_DATA, null, values)
-                db.close()
             }
         } catch (e: Exception) {
             e.printStackTrace()
@@ -23,12 +23,7 @@ import android.app.Activity
 import android.widget.Toast
 import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class AddToWatchlist(
@@ -38,38 +33,23 @@ class AddToWatchlist(
     private val activity: Activity
 ) {
     private val accountId: String?
-    private val accessToken: String?
-    private val client: OkHttpClient
+    private val client: TmdbClient
 
     init {
         val preferences = PreferenceManager.getDefaultSharedPreferences(activity)
         accountId = preferences.getString("account_id", "")
-        accessToken = preferences.getString("access_token", "")
-        client = OkHttpClient()
+        client = TmdbClient.getInstance(activity)
     }
 
     suspend fun addToWatchlist() {
         var success = false
         try {
-            val mediaType = MediaType.parse("application/json;charset=utf-8")
             val jsonParam = JSONObject().apply {
                 put("media_type", type)
                 put("media_id", movieId)
                 put("watchlist", trueOrFalse)
             }
-            val body = RequestBody.create(mediaType, jsonParam.toString())
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/3/account/$accountId/watchlist")
-                .post(body)
-                .addHeader("accept", "application/json")
-                .addHeader("content-type", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val responseBody = response.body()!!.string()
-            val jsonResponse = JSONObject(responseBody)
+            val jsonResponse = client.post("3/account/$accountId/watchlist", jsonParam)
             val statusCode = jsonResponse.getInt("status_code")
             success = statusCode == 1
         } catch (e: Exception) {
@@ -84,4 +64,4 @@ class AddToWatchlist(
             }
         }
     }
-}
\ No newline at end of file
+}
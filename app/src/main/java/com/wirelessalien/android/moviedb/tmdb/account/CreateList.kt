@@ -22,15 +22,9 @@ package com.wirelessalien.android.moviedb.tmdb.account
 import android.app.Activity
 import android.content.Context
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class CreateList(
@@ -39,18 +33,11 @@ class CreateList(
     private val isPublic: Boolean,
     private val context: Context?
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(context!!)
 
     suspend fun createList() {
         var success = false
         try {
-            val client = OkHttpClient()
-            val mediaType = MediaType.parse("application/json")
             val jsonParam = JSONObject().apply {
                 put("name", listName)
                 put("description", description)
@@ -58,21 +45,10 @@ class CreateList(
                 put("iso_639_1", "en")
                 put("public", isPublic)
             }
-            val body = RequestBody.create(mediaType, jsonParam.toString())
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/4/list")
-                .post(body)
-                .addHeader("accept", "application/json")
-                .addHeader("content-type", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val jsonResponse = JSONObject(response.body()!!.string())
+            val jsonResponse = client.post("4/list", jsonParam)
             success = jsonResponse.getBoolean("success")
             if (success) {
-                ListDatabaseHelper(context).addList(jsonResponse.getInt("id"), listName)
+                ListDatabaseHelper.getInstance(context!!).addList(jsonResponse.getInt("id"), listName)
             }
         } catch (e: Exception) {
             e.printStackTrace()
@@ -88,4 +64,4 @@ class CreateList(
             }
         }
     }
-}
\ No newline at end of file
+}
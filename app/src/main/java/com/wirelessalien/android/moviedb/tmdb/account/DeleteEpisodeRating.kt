@@ -22,14 +22,9 @@ package com.wirelessalien.android.moviedb.tmdb.account
 import android.app.Activity
 import android.content.Context
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONException
-import org.json.JSONObject
 import java.io.IOException
 
 class DeleteEpisodeRating(
@@ -38,32 +33,15 @@ class DeleteEpisodeRating(
     private val episodeNumber: Int,
     private val context: Context?
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(context!!)
 
     suspend fun deleteEpisodeRating() {
-        var success: Boolean
-        val client = OkHttpClient()
-        val request = Request.Builder()
-            .url("https://api.themoviedb.org/3/tv/$tvShowId/season/$seasonNumber/episode/$episodeNumber/rating")
-            .delete()
-            .addHeader("accept", "application/json")
-            .addHeader("Content-Type", "application/json;charset=utf-8")
-            .addHeader("Authorization", "Bearer $accessToken")
-            .build()
         try {
-            withContext(Dispatchers.IO) {
-                client.newCall(request).execute().use { response ->
-                    val responseBody = response.body()!!.string()
-                    val jsonResponse = JSONObject(responseBody)
-                    val statusCode = jsonResponse.getInt("status_code")
-                    success = statusCode == 13
-                }
-            }
+            val jsonResponse = client.delete(
+                "3/tv/$tvShowId/season/$seasonNumber/episode/$episodeNumber/rating"
+            )
+            val statusCode = jsonResponse.getInt("status_code")
+            val success = statusCode == 13
             (context as Activity).runOnUiThread {
                 if (success) {
                     Toast.makeText(context, R.string.rating_delete_success, Toast.LENGTH_SHORT).show()
@@ -77,4 +55,4 @@ class DeleteEpisodeRating(
             e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -22,16 +22,12 @@ package com.wirelessalien.android.moviedb.tmdb.account
 import android.app.Activity
 import android.content.Context
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.adapter.ShowBaseAdapter
 import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
 import org.json.JSONArray
 import org.json.JSONObject
 
@@ -44,18 +40,11 @@ class DeleteFromList(
     private val showList: ArrayList<JSONObject>?,
     private val adapter: ShowBaseAdapter?
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(context)
 
     suspend fun deleteFromList() {
         var success = false
         try {
-            val client = OkHttpClient()
-            val mediaType = MediaType.parse("application/json")
             val jsonParam = JSONObject()
             val itemsArray = JSONArray()
             val itemObject = JSONObject()
@@ -63,30 +52,14 @@ class DeleteFromList(
             itemObject.put("media_id", mediaId)
             itemsArray.put(itemObject)
             jsonParam.put("items", itemsArray)
-            val body = RequestBody.create(mediaType, jsonParam.toString())
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/4/list/$listId/items")
-                .delete(body)
-                .addHeader("accept", "application/json")
-                .addHeader("content-type", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
+            val jsonResponse = client.delete("4/list/$listId/items", jsonParam)
 
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-
-            val jsonResponse = withContext(Dispatchers.IO) {
-                JSONObject(response.body()!!.string())
-            }
 
             success = jsonResponse.getBoolean("success")
             if (success) {
                 try {
                     withContext(Dispatchers.IO) {
-                        ListDatabaseHelper(context).use { dbHelper ->
-                            dbHelper.deleteData(mediaId, listId)
-                        }
+                        ListDatabaseHelper.getInstance(context).deleteData(mediaId, listId)
                     }
                 } catch (e: Exception) {
                     e.printStackTrace()
@@ -21,13 +21,8 @@ package com.wirelessalien.android.moviedb.tmdb.account
 
 import android.app.Activity
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import org.json.JSONObject
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 
 class DeleteList(
     private val listId: Int,
@@ -38,27 +33,12 @@ class DeleteList(
         fun onListDeleted()
     }
 
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(activity)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(activity)
 
     suspend fun deleteList() {
         var success = false
         try {
-            val client = OkHttpClient()
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/4/list/$listId")
-                .delete()
-                .addHeader("accept", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val jsonResponse = JSONObject(response.body()!!.string())
+            val jsonResponse = client.delete("4/list/$listId")
             success = jsonResponse.getBoolean("success")
         } catch (e: Exception) {
             e.printStackTrace()
@@ -73,4 +53,4 @@ class DeleteList(
             }
         }
     }
-}
\ No newline at end of file
+}
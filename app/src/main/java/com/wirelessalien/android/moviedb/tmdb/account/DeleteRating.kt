@@ -21,14 +21,9 @@ package com.wirelessalien.android.moviedb.tmdb.account
 
 import android.app.Activity
 import android.widget.Toast
-import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONException
-import org.json.JSONObject
 import java.io.IOException
 
 class DeleteRating(
@@ -36,32 +31,13 @@ class DeleteRating(
     private val type: String,
     private val activity: Activity
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(activity)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(activity)
 
     suspend fun deleteRating() {
-        var success: Boolean
-        val client = OkHttpClient()
-        val request = Request.Builder()
-            .url("https://api.themoviedb.org/3/$type/$movieId/rating")
-            .delete()
-            .addHeader("accept", "application/json")
-            .addHeader("Content-Type", "application/json;charset=utf-8")
-            .addHeader("Authorization", "Bearer $accessToken")
-            .build()
         try {
-            withContext(Dispatchers.IO) {
-                client.newCall(request).execute().use { response ->
-                    val responseBody = response.body()!!.string()
-                    val jsonResponse = JSONObject(responseBody)
-                    val statusCode = jsonResponse.getInt("status_code")
-                    success = statusCode == 13
-                }
-            }
+            val jsonResponse = client.delete("3/$type/$movieId/rating")
+            val statusCode = jsonResponse.getInt("status_code")
+            val success = statusCode == 13
             activity.runOnUiThread {
                 if (success) {
                     Toast.makeText(activity, R.string.rating_delete_success, Toast.LENGTH_SHORT).show()
@@ -75,4 +51,4 @@ class DeleteRating(
             e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -22,19 +22,15 @@ package com.wirelessalien.android.moviedb.tmdb.account
 import android.content.Context
 import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.data.ListData
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import org.json.JSONObject
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 
 
 class FetchList(
     context: Context?,
     private val listener: OnListFetchListener?
 ) {
-    private val accessToken: String?
     private val accountId: String?
+    private val client: TmdbClient
 
     interface OnListFetchListener {
         fun onListFetch(listData: List<ListData>?)
@@ -42,39 +38,31 @@ class FetchList(
 
     init {
         val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
         accountId = preferences.getString("account_id", "")
+        client = TmdbClient.getInstance(context)
     }
 
     suspend fun fetchLists(): List<ListData>? {
         return try {
-            val client = OkHttpClient()
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/4/account/$accountId/lists")
-                .get()
-                .addHeader("accept", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val responseBody = withContext(Dispatchers.IO) {
-                response.body()?.string()
-            }
-            val jsonResponse = JSONObject(responseBody!!)
-            val results = jsonResponse.getJSONArray("results")
+            val pages = client.getAllPages(
+                "4/account/$accountId/lists",
+                auth = TmdbClient.Auth.USER
+            )
             val listData: MutableList<ListData> = ArrayList()
-            for (i in 0 until results.length()) {
-                val result = results.getJSONObject(i)
-                listData.add(
-                    ListData(
-                        result.getInt("id"),
-                        result.getString("name"),
-                        result.getString("description"),
-                        result.getInt("number_of_items"),
-                        result.getDouble("average_rating")
+            for (page in pages) {
+                val results = page.getJSONArray("results")
+                for (i in 0 until results.length()) {
+                    val result = results.getJSONObject(i)
+                    listData.add(
+                        ListData(
+                            result.getInt("id"),
+                            result.getString("name"),
+                            result.getString("description"),
+                            result.getInt("number_of_items"),
+                            result.getDouble("average_rating")
+                        )
                     )
-                )
+                }
             }
             listener?.onListFetch(listData)
             listData
@@ -83,4 +71,4 @@ class FetchList(
             null
         }
     }
-}
\ No newline at end of file
+}
@@ -25,12 +25,7 @@ import android.os.Handler
 import android.widget.Toast
 import androidx.preference.PreferenceManager
 import com.wirelessalien.android.moviedb.R
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class GetAccessToken(
@@ -41,33 +36,26 @@ class GetAccessToken(
     private val listener: OnTokenReceivedListener?
 ) {
     private val preferences: SharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
+    private val client: TmdbClient = TmdbClient.getInstance(context)
 
     interface OnTokenReceivedListener {
         fun onTokenReceived(accessToken: String?)
     }
 
     suspend fun fetchAccessToken() {
-        withContext(Dispatchers.IO) {
-            try {
-                val client = OkHttpClient()
-
-                // With an approved request token, create a session
-                val postBody = JSONObject().apply {
-                    put("request_token", requestToken)
-                }
-                val body = RequestBody.create(
-                    MediaType.parse("application/json; charset=utf-8"),
-                    postBody.toString()
-                )
-                val sessionRequest = Request.Builder()
-                    .url("https://api.themoviedb.org/4/auth/access_token")
-                    .post(body)
-                    .addHeader("accept", "application/json")
-                    .addHeader("content-type", "application/json")
-                    .addHeader("authorization", "Bearer $apiKey")
-                    .build()
-                val sessionResponse = client.newCall(sessionRequest).execute()
-                val sessionResponseBody = sessionResponse.body()!!.string()
+        try {
+            // With an approved request token, create a session
+            val postBody = JSONObject().apply {
+                put("request_token", requestToken)
+            }
+            val sessionRequest = client.newRequest(
+                client.url("4/auth/access_token"),
+                TmdbClient.Auth.NONE
+            )
+                .post(client.jsonBody(postBody))
+                .header("Authorization", "Bearer $apiKey")
+                .build()
+            val sessionResponseBody = client.execute(sessionRequest) { sessionResponse ->
                 if (sessionResponse.isSuccessful) {
                     handler?.post {
                         Toast.makeText(
@@ -81,15 +69,16 @@ class GetAccessToken(
                         Toast.makeText(context, R.string.login_failed, Toast.LENGTH_SHORT).show()
                     }
                 }
-                val sessionResponseObject = JSONObject(sessionResponseBody)
-                val accessToken = sessionResponseObject.getString("access_token")
-                val accountId = sessionResponseObject.getString("account_id")
-                preferences.edit().putString("access_token", accessToken).apply()
-                preferences.edit().putString("account_id", accountId).apply()
-                listener?.onTokenReceived(accessToken)
-            } catch (e: Exception) {
-                e.printStackTrace()
+                sessionResponse.body()!!.string()
             }
+            val sessionResponseObject = JSONObject(sessionResponseBody)
+            val accessToken = sessionResponseObject.getString("access_token")
+            val accountId = sessionResponseObject.getString("account_id")
+            preferences.edit().putString("access_token", accessToken).apply()
+            preferences.edit().putString("account_id", accountId).apply()
+            listener?.onTokenReceived(accessToken)
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -23,10 +23,7 @@ import android.app.Activity
 import android.content.Context
 import android.util.Log
 import androidx.preference.PreferenceManager
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONException
 import org.json.JSONObject
 import java.io.IOException
@@ -34,8 +31,7 @@ import java.io.IOException
 class GetAccountDetails(private val context: Context?, private val callback: AccountDataCallback?) {
     private val accountId: String?
     private var accountIdInt = 0
-    private val accessToken: String?
-    private val client: OkHttpClient
+    private val client: TmdbClient
 
     interface AccountDataCallback {
         fun onAccountDataReceived(
@@ -50,50 +46,47 @@ class GetAccountDetails(private val context: Context?, private val callback: Acc
     init {
         val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
         accountId = preferences.getString("account_id", "")
-        accessToken = preferences.getString("access_token", "")
-        client = OkHttpClient()
+        client = TmdbClient.getInstance(context)
     }
 
     suspend fun fetchAccountDetails() {
-        withContext(Dispatchers.IO) {
-            try {
-                val request = Request.Builder()
-                    .url("https://api.themoviedb.org/3/account/$accountId")
-                    .get()
-                    .addHeader("accept", "application/json")
-                    .addHeader("Authorization", "Bearer $accessToken")
-                    .build()
-                val response = client.newCall(request).execute()
-                if (response.isSuccessful) {
-                    val jsonResponse = JSONObject(response.body()!!.string())
-                    accountIdInt = jsonResponse.getInt("id")
-                    val name = jsonResponse.getString("name")
-                    val username = jsonResponse.getString("username")
+        try {
+            val request = client.newRequest(
+                client.url("3/account/$accountId"),
+                TmdbClient.Auth.USER
+            ).get().build()
+            val responseBody = client.execute(request) { response ->
+                if (response.isSuccessful) response.body()!!.string() else null
+            }
+            if (responseBody != null) {
+                val jsonResponse = JSONObject(responseBody)
+                accountIdInt = jsonResponse.getInt("id")
+                val name = jsonResponse.getString("name")
+                val username = jsonResponse.getString("username")
 
-                    // avatar path - object tmdb
-                    val avatar = jsonResponse.getJSONObject("avatar")
-                    val tmdb = avatar.getJSONObject("tmdb")
-                    val avatarPath = tmdb.getString("avatar_path")
-                    val gravatar = avatar.getJSONObject("gravatar").getString("hash")
-                    callback?.onAccountDataReceived(accountIdInt, name, username, avatarPath, gravatar)
-                    (context as Activity).runOnUiThread {
-                        if (accountId != null) {
-                            val preferences = PreferenceManager.getDefaultSharedPreferences(context)
-                            val myEdit = preferences.edit()
-                            myEdit.putInt("accountIdInt", accountIdInt)
-                            myEdit.apply()
-                        } else {
-                            Log.e("GetAccountDetailsCoroutine", "Failed to get account id")
-                        }
+                // avatar path - object tmdb
+                val avatar = jsonResponse.getJSONObject("avatar")
+                val tmdb = avatar.getJSONObject("tmdb")
+                val avatarPath = tmdb.getString("avatar_path")
+                val gravatar = avatar.getJSONObject("gravatar").getString("hash")
+                callback?.onAccountDataReceived(accountIdInt, name, username, avatarPath, gravatar)
+                (context as Activity).runOnUiThread {
+                    if (accountId != null) {
+                        val preferences = PreferenceManager.getDefaultSharedPreferences(context)
+                        val myEdit = preferences.edit()
+                        myEdit.putInt("accountIdInt", accountIdInt)
+                        myEdit.apply()
+                    } else {
+                        Log.e("GetAccountDetailsCoroutine", "Failed to get account id")
                     }
-                } else {
-                    Log.e("GetAccountDetailsCoroutine", "Failed to get account id")
                 }
-            } catch (e: IOException) {
-                e.printStackTrace()
-            } catch (e: JSONException) {
-                e.printStackTrace()
+            } else {
+                Log.e("GetAccountDetailsCoroutine", "Failed to get account id")
             }
+        } catch (e: IOException) {
+            e.printStackTrace()
+        } catch (e: JSONException) {
+            e.printStackTrace()
         }
     }
 }
\ No newline at end of file
@@ -21,11 +21,7 @@ package com.wirelessalien.android.moviedb.tmdb.account
 
 
 import android.app.Activity
-import androidx.preference.PreferenceManager
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class GetAccountState(
@@ -39,41 +35,28 @@ class GetAccountState(
         private set
     var rating = 0.0
         private set
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(activity!!)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(activity!!)
 
     suspend fun fetchAccountState() {
-        withContext(Dispatchers.IO) {
-            try {
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url("https://api.themoviedb.org/3/$typeCheck/$movieId/account_states")
-                    .get()
-                    .addHeader("accept", "application/json")
-                    .addHeader("Authorization", "Bearer $accessToken")
-                    .build()
-                val response = client.newCall(request).execute()
-                val responseBody = response.body()!!.string()
-                val jsonResponse = JSONObject(responseBody)
-                isInFavourites = jsonResponse.getBoolean("favorite")
-                isInWatchlist = jsonResponse.getBoolean("watchlist")
-                if (!jsonResponse.isNull("rated")) {
-                    val rated = jsonResponse["rated"]
-                    if (rated is JSONObject) {
-                        rating = rated.getDouble("value")
-                    } else if (rated is Boolean && !rated) {
-                        rating = 0.0
-                    }
-                } else {
+        try {
+            val jsonResponse = client.getJson(
+                "3/$typeCheck/$movieId/account_states",
+                auth = TmdbClient.Auth.USER
+            )
+            isInFavourites = jsonResponse.getBoolean("favorite")
+            isInWatchlist = jsonResponse.getBoolean("watchlist")
+            if (!jsonResponse.isNull("rated")) {
+                val rated = jsonResponse["rated"]
+                if (rated is JSONObject) {
+                    rating = rated.getDouble("value")
+                } else if (rated is Boolean && !rated) {
                     rating = 0.0
                 }
-            } catch (e: Exception) {
-                e.printStackTrace()
+            } else {
+                rating = 0.0
             }
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -20,11 +20,9 @@
 package com.wirelessalien.android.moviedb.tmdb.account
 
 import android.content.Context
-import androidx.preference.PreferenceManager
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
 import org.json.JSONObject
 
 class GetAccountStateTvSeason(
@@ -37,44 +35,31 @@ class GetAccountStateTvSeason(
         fun onDataFetched(episodeRatings: Map<Int, Double>?)
     }
 
-    private val accessToken: String?
+    private val client: TmdbClient = TmdbClient.getInstance(context!!)
     private val episodeRatings: MutableMap<Int, Double> = HashMap()
 
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
-    }
-
     suspend fun fetchAccountState() {
-        withContext(Dispatchers.IO) {
-            try {
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url("https://api.themoviedb.org/3/tv/$seriesId/season/$seasonId/account_states")
-                    .get()
-                    .addHeader("accept", "application/json")
-                    .addHeader("Authorization", "Bearer $accessToken")
-                    .build()
-                val response = client.newCall(request).execute()
-                val responseBody = response.body()!!.string()
-                val jsonResponse = JSONObject(responseBody)
-                val results = jsonResponse.getJSONArray("results")
-                for (i in 0 until results.length()) {
-                    val result = results.getJSONObject(i)
-                    val episodeNumber = result.getInt("episode_number")
-                    val rated = result["rated"]
-                    var rating = 0.0
-                    if (rated is JSONObject) {
-                        rating = rated.getDouble("value")
-                    }
-                    episodeRatings[episodeNumber] = rating
+        try {
+            val jsonResponse = client.getJson(
+                "3/tv/$seriesId/season/$seasonId/account_states",
+                auth = TmdbClient.Auth.USER
+            )
+            val results = jsonResponse.getJSONArray("results")
+            for (i in 0 until results.length()) {
+                val result = results.getJSONObject(i)
+                val episodeNumber = result.getInt("episode_number")
+                val rated = result["rated"]
+                var rating = 0.0
+                if (rated is JSONObject) {
+                    rating = rated.getDouble("value")
                 }
-                withContext(Dispatchers.Main) {
-                    listener?.onDataFetched(episodeRatings)
-                }
-            } catch (e: Exception) {
-                e.printStackTrace()
+                episodeRatings[episodeNumber] = rating
+            }
+            withContext(Dispatchers.Main) {
+                listener?.onDataFetched(episodeRatings)
             }
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
     }
-}
\ No newline at end of file
+}
@@ -19,13 +19,12 @@
  */
 package com.wirelessalien.android.moviedb.tmdb.account
 
-import android.app.Activity
 import android.content.Context
-import androidx.preference.PreferenceManager
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
+import com.wirelessalien.android.moviedb.tmdb.TmdbPriority
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
 import org.json.JSONObject
 
 class GetAllListData(
@@ -33,56 +32,42 @@ class GetAllListData(
     private val context: Context?,
     private val listener: OnFetchListDetailsListener
 ) {
-    private val accessToken: String?
+    private val client: TmdbClient = TmdbClient.getInstance(context!!)
 
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
-    }
-
-    suspend fun fetchAllListData() {
-        var currentPage = 1
-        var hasMorePages = true
-        while (hasMorePages) {
+    /**
+     * Fetches all pages of the list concurrently and hands all items to the
+     * listener at once, in the order of the list, so they can be stored in one transaction.
+     * This is a bulk synchronisation, so it runs with background priority.
+     * The listener is called on [Dispatchers.IO], so it can write to the database
+     * and has to switch to the main thread to update the UI.
+     */
+    suspend fun fetchAllListData(): ArrayList<JSONObject>? {
+        val listDetailsData = withContext(TmdbPriority.BACKGROUND) {
             try {
-                val client = OkHttpClient()
-                val request = Request.Builder()
-                    .url("https://api.themoviedb.org/4/list/$listId?page=$currentPage")
-                    .get()
-                    .addHeader("accept", "application/json")
-                    .addHeader("Authorization", "Bearer $accessToken")
-                    .build()
-                val response = withContext(Dispatchers.IO) {
-                    client.newCall(request).execute()
-                }
-                val responseBody = withContext(Dispatchers.IO) {
-                    response.body()!!.string()
-                }
-                val jsonResponse = JSONObject(responseBody)
-                val items = jsonResponse.getJSONArray("results")
-                val listDetailsData = ArrayList<JSONObject>()
-                for (i in 0 until items.length()) {
-                    val item = items.getJSONObject(i)
-                    listDetailsData.add(item)
-                }
-                if (context is Activity) {
-                    context.runOnUiThread { listener.onFetchListDetails(listDetailsData) }
-                }
-
-                // Check if there are more pages
-                val totalPages = jsonResponse.getInt("total_pages")
-                if (currentPage >= totalPages) {
-                    hasMorePages = false
-                } else {
-                    currentPage++
+                val pages = client.getAllPages("4/list/$listId", auth = TmdbClient.Auth.USER)
+                val items = ArrayList<JSONObject>()
+                for (page in pages) {
+                    val results = page.getJSONArray("results")
+                    for (i in 0 until results.length()) {
+                        items.add(results.getJSONObject(i))
+                    }
                 }
+                items
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
+                // Failed requests were already retried by the rate limiter.
                 e.printStackTrace()
+                null
             }
         }
+        if (listDetailsData != null) {
+            withContext(Dispatchers.IO) { listener.onFetchListDetails(listDetailsData) }
+        }
+        return listDetailsData
     }
 
     interface OnFetchListDetailsListener {
         fun onFetchListDetails(listDetailsData: ArrayList<JSONObject>?)
     }
-}
\ No newline at end of file
+}
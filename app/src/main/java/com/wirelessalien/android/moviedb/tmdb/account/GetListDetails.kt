@@ -21,11 +21,7 @@ package com.wirelessalien.android.moviedb.tmdb.account
 
 import android.app.Activity
 import android.content.Context
-import androidx.preference.PreferenceManager
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.OkHttpClient
-import okhttp3.Request
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class GetListDetails(
@@ -33,29 +29,16 @@ class GetListDetails(
     private val context: Context?,
     private val listener: OnFetchListDetailsListener
 ) {
-    private val accessToken: String?
-
-    init {
-        val preferences = PreferenceManager.getDefaultSharedPreferences(context!!)
-        accessToken = preferences.getString("access_token", "")
-    }
+    private val client: TmdbClient = TmdbClient.getInstance(context!!)
 
     suspend fun fetchListDetails(page: Int) {
         try {
-            val client = OkHttpClient()
-            val request = Request.Builder()
-                .url("https://api.themoviedb.org/4/list/$listId?page=$page")
-                .get()
-                .addHeader("accept", "application/json")
-                .addHeader("Authorization", "Bearer $accessToken")
-                .build()
-            val response = withContext(Dispatchers.IO) {
-                client.newCall(request).execute()
-            }
-            val responseBody = withContext(Dispatchers.IO) {
-                response.body()!!.string()
-            }
-            val jsonResponse = JSONObject(responseBody)
+            val jsonResponse = client.getJson(
+                "4/list/$listId",
+                mapOf("page" to page),
+                TmdbClient.Auth.USER
+            )
+
             val items = jsonResponse.getJSONArray("results")
             val listDetailsData = ArrayList<JSONObject>()
             for (i in 0 until items.length()) {
@@ -24,59 +24,32 @@ import android.content.Intent
 import android.content.SharedPreferences
 import android.net.Uri
 import androidx.preference.PreferenceManager
-import com.wirelessalien.android.moviedb.helper.ConfigHelper.getConfigValue
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
-import okhttp3.MediaType
-import okhttp3.OkHttpClient
-import okhttp3.Request
-import okhttp3.RequestBody
+import com.wirelessalien.android.moviedb.tmdb.TmdbClient
 import org.json.JSONObject
 
 class TMDbAuthV4(private val context: Context) {
-    private val apiKey: String? = getConfigValue(context, "api_read_access_token")
+    private val client: TmdbClient = TmdbClient.getInstance(context)
     private val preferences: SharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
 
     suspend fun authenticate(): String? {
-        return withContext(Dispatchers.IO) {
-            var accessToken: String? = null
-            try {
-                val client = OkHttpClient()
-                val JSON = MediaType.parse("application/json; charset=utf-8")
+        var accessToken: String? = null
+        try {
+            // Create JSON object with redirect_to URL
+            val json = JSONObject()
+            json.put("redirect_to", "com.wirelessalien.android.moviedb://callback")
 
-                // Create JSON object with redirect_to URL
-                val json = JSONObject()
-                json.put("redirect_to", "com.wirelessalien.android.moviedb://callback")
-
-                // Generate a new request token
-                val requestTokenRequest = Request.Builder()
-                    .url("https://api.themoviedb.org/4/auth/request_token")
-                    .post(
-                        RequestBody.create(
-                            JSON,
-                            json.toString()
-                        )
-                    ) // provide JSON object as request body
-                    .addHeader("accept", "application/json")
-                    .addHeader("content-type", "application/json")
-                    .addHeader("authorization", "Bearer $apiKey")
-                    .build()
-                val requestTokenResponse = client.newCall(requestTokenRequest).execute()
-                val responseBody = requestTokenResponse.body()!!.string()
-
-                // Parse the JSON response body
-                val jsonObject = JSONObject(responseBody)
-                val requestToken = jsonObject.getString("request_token")
-                preferences.edit().putString("request_token", requestToken).apply()
-                val uri =
-                    Uri.parse("https://www.themoviedb.org/auth/access?request_token=$requestToken")
-                val browserIntent = Intent(Intent.ACTION_VIEW, uri)
-                context.startActivity(browserIntent)
-                accessToken = requestToken
-            } catch (e: Exception) {
-                e.printStackTrace()
-            }
-            accessToken
+            // Generate a new request token
+            val jsonObject = client.post("4/auth/request_token", json, TmdbClient.Auth.APP)
+            val requestToken = jsonObject.getString("request_token")
+            preferences.edit().putString("request_token", requestToken).apply()
+            val uri =
+                Uri.parse("https://www.themoviedb.org/auth/access?request_token=$requestToken")
+            val browserIntent = Intent(Intent.ACTION_VIEW, uri)
+            context.startActivity(browserIntent)
+            accessToken = requestToken
+        } catch (e: Exception) {
+            e.printStackTrace()
         }
+        return accessToken
     }
-}
\ No newline at end of file
+}
@@ -22,15 +22,38 @@ package com.wirelessalien.android.moviedb.work
 
 import android.app.NotificationManager
 import android.content.Context
+import android.database.sqlite.SQLiteOpenHelper
 import android.net.Uri
 import androidx.core.app.NotificationCompat
 import androidx.documentfile.provider.DocumentFile
+import androidx.preference.PreferenceManager
 import androidx.work.CoroutineWorker
 import androidx.work.WorkerParameters
 import com.wirelessalien.android.moviedb.R
+import com.wirelessalien.android.moviedb.helper.DatabaseConfig
+import com.wirelessalien.android.moviedb.helper.EpisodeReminderDatabaseHelper
+import com.wirelessalien.android.moviedb.helper.ListDatabaseHelper
+import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
+import com.wirelessalien.android.moviedb.helper.PeopleDatabaseHelper
+import java.io.File
 import java.io.FileInputStream
 import java.io.IOException
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
 
+/**
+ * Writes a compressed archive with a snapshot of all databases of the app to the
+ * backup directory. Runs are skipped when nothing changed since the last backup,
+ * and only the newest [BACKUP_GENERATIONS] archives are kept.
+ *
+ * Whether something changed is first decided by the size and modification time of the
+ * database files and their write-ahead logs, which needs no database access. Only when
+ * those moved the databases are copied and compared by their checksum.
+ */
 class DatabaseBackupWorker(appContext: Context, workerParams: WorkerParameters) :
     CoroutineWorker(appContext, workerParams) {
 
@@ -38,24 +61,43 @@ class DatabaseBackupWorker(appContext: Context, workerParams: WorkerParameters)
         val directoryUriString = inputData.getString("directoryUri") ?: return Result.failure()
         val directoryUri = Uri.parse(directoryUriString)
         val documentFile = DocumentFile.fromTreeUri(applicationContext, directoryUri)
-        val databaseName = "movies.db"
-        val existingFile = documentFile?.findFile(databaseName)
+            ?: return Result.failure()
+        val snapshots = ArrayList<File>()
 
         return try {
-            val currentDBPath = applicationContext.getDatabasePath(databaseName).absolutePath
-            val inputStream = FileInputStream(currentDBPath)
-            val outputStream = if (existingFile != null) {
-                applicationContext.contentResolver.openOutputStream(existingFile.uri)
-            } else {
-                val newFile = documentFile?.createFile("application/octet-stream", databaseName)
-                applicationContext.contentResolver.openOutputStream(newFile!!.uri)
+            // The markers are stored with the directory, so a new directory always gets a backup.
+            val fileState = directoryUriString + ":" + fileMarker()
+            val preferences = PreferenceManager.getDefaultSharedPreferences(applicationContext)
+            if (fileState == preferences.getString(LAST_FILE_STATE_PREFERENCE, null)
+                && getBackups(documentFile).isNotEmpty()
+            ) {
+                return Result.success()
             }
 
-            inputStream.use { input ->
-                outputStream?.use { output ->
-                    input.copyTo(output)
-                }
+            val checksum = CRC32()
+            for (helper in databaseHelpers()) {
+                val snapshot = File(applicationContext.cacheDir, "backup_" + helper.databaseName)
+                snapshot.delete()
+                snapshots.add(snapshot)
+                DatabaseConfig.createSnapshot(applicationContext, helper, snapshot)
+                updateChecksum(checksum, snapshot)
             }
+
+            val backupState = directoryUriString + ":" + checksum.value
+            if (backupState == preferences.getString(LAST_BACKUP_PREFERENCE, null)
+                && getBackups(documentFile).isNotEmpty()
+            ) {
+                preferences.edit().putString(LAST_FILE_STATE_PREFERENCE, fileState).apply()
+                return Result.success()
+            }
+
+            writeArchive(documentFile, snapshots)
+            getBackups(documentFile).drop(BACKUP_GENERATIONS).forEach { it.delete() }
+            preferences.edit()
+                .putString(LAST_BACKUP_PREFERENCE, backupState)
+                .putString(LAST_FILE_STATE_PREFERENCE, fileState)
+                .apply()
+
             showNotification(applicationContext.getString(R.string.database_backup), applicationContext.getString(
                 R.string.database_backup_successful
             ), true)
@@ -66,9 +108,80 @@ class DatabaseBackupWorker(appContext: Context, workerParams: WorkerParameters)
                 R.string.database_backup_failed
             ))
             Result.failure()
+        } finally {
+            snapshots.forEach { it.delete() }
+        }
+    }
+
+    private fun databaseHelpers(): List<SQLiteOpenHelper> {
+        return listOf(
+            MovieDatabaseHelper.getInstance(applicationContext),
+            PeopleDatabaseHelper.getInstance(applicationContext),
+            ListDatabaseHelper.getInstance(applicationContext),
+            EpisodeReminderDatabaseHelper.getInstance(applicationContext)
+        )
+    }
+
+    /**
+     * Describes the database files by their size and modification time. Every commit
+     * writes to the write-ahead log and every checkpoint to the database file, so the
+     * marker moves whenever the content may have changed. An empty log has no content,
+     * so its time is left out; this keeps the marker stable when it is truncated.
+     */
+    private fun fileMarker(): String {
+        return databaseHelpers().joinToString(";") { helper ->
+            val databaseFile = applicationContext.getDatabasePath(helper.databaseName)
+            val log = File(databaseFile.path + "-wal")
+            val logState = if (log.length() == 0L) "0" else log.length().toString() + "@" + log.lastModified()
+            databaseFile.length().toString() + "@" + databaseFile.lastModified() + "," + logState
+        }
+    }
+
+    private fun updateChecksum(checksum: CRC32, file: File) {
+        FileInputStream(file).use { input ->
+            val buffer = ByteArray(DEFAULT_BUFFER_SIZE)
+            var length: Int
+            while (input.read(buffer).also { length = it } > 0) {
+                checksum.update(buffer, 0, length)
+            }
         }
     }
 
+    /**
+     * Writes the snapshots into a new zip archive, named after the current time.
+     * An archive that could not be written completely is deleted again, because
+     * it would otherwise count as one of the kept backups.
+     */
+    private fun writeArchive(directory: DocumentFile, snapshots: List<File>) {
+        val fileName = BACKUP_PREFIX +
+                SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(Date()) + BACKUP_EXTENSION
+        val archive = directory.createFile("application/zip", fileName)
+            ?: throw IOException("Could not create $fileName")
+        try {
+            val outputStream = applicationContext.contentResolver.openOutputStream(archive.uri)
+                ?: throw IOException("Could not open $fileName")
+            ZipOutputStream(outputStream.buffered()).use { zip ->
+                for (snapshot in snapshots) {
+                    zip.putNextEntry(ZipEntry(snapshot.name.removePrefix("backup_")))
+                    FileInputStream(snapshot).use { it.copyTo(zip) }
+                    zip.closeEntry()
+                }
+            }
+        } catch (e: IOException) {
+            archive.delete()
+            throw e
+        }
+    }
+
+    /**
+     * Returns the backup archives in the directory, newest first.
+     */
+    private fun getBackups(directory: DocumentFile): List<DocumentFile> {
+        return directory.listFiles()
+            .filter { it.name?.let { name -> name.startsWith(BACKUP_PREFIX) && name.endsWith(BACKUP_EXTENSION) } == true }
+            .sortedByDescending { it.name }
+    }
+
     private fun showNotification(title: String, message: String, autoDismiss: Boolean = false) {
         val notificationManager = applicationContext.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
         val builder = NotificationCompat.Builder(applicationContext, "db_backup_channel")
@@ -83,4 +196,13 @@ class DatabaseBackupWorker(appContext: Context, workerParams: WorkerParameters)
         val notification = builder.build()
         notificationManager.notify(1, notification)
     }
-}
\ No newline at end of file
+
+    companion object {
+        const val WORK_NAME = "DatabaseBackupWorker"
+        private const val BACKUP_PREFIX = "showcase_backup_"
+        private const val BACKUP_EXTENSION = ".zip"
+        private const val BACKUP_GENERATIONS = 7
+        private const val LAST_BACKUP_PREFERENCE = "db_backup_last_state"
+        private const val LAST_FILE_STATE_PREFERENCE = "db_backup_last_file_state"
+    }
+}
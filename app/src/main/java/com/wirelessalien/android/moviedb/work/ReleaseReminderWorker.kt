@@ -24,11 +24,11 @@ import android.app.PendingIntent
 import android.content.Context
 import android.content.Intent
 import android.content.pm.PackageManager
-import android.icu.text.SimpleDateFormat
 import androidx.core.app.ActivityCompat
 import androidx.core.app.NotificationCompat
 import androidx.core.app.NotificationManagerCompat
 import androidx.preference.PreferenceManager
+import androidx.work.ExistingWorkPolicy
 import androidx.work.OneTimeWorkRequest
 import androidx.work.WorkManager
 import androidx.work.Worker
@@ -37,112 +37,136 @@ import com.wirelessalien.android.moviedb.R
 import com.wirelessalien.android.moviedb.activity.MainActivity
 import com.wirelessalien.android.moviedb.helper.EpisodeReminderDatabaseHelper
 import com.wirelessalien.android.moviedb.helper.MovieDatabaseHelper
-import java.util.Date
-import java.util.Locale
+import java.util.TimeZone
 import java.util.concurrent.TimeUnit
 
+/**
+ * Notifies about the saved shows that are released today and the episodes with a reminder
+ * that air today, then schedules itself for the next day on which something is due.
+ * Both are looked up through the indexes on their dates, so the daily work only
+ * depends on what is due and not on the size of the library.
+ */
 class ReleaseReminderWorker(context: Context, workerParams: WorkerParameters) : Worker(context, workerParams) {
     override fun doWork(): Result {
-        val databaseHelper = MovieDatabaseHelper(applicationContext)
-        val db = databaseHelper.readableDatabase
-        val cursor = db.rawQuery("SELECT * FROM " + MovieDatabaseHelper.TABLE_MOVIES, null)
-        val sdf = SimpleDateFormat("yyyy-MM-dd", Locale.US)
-        val currentDate = sdf.format(Date())
-        while (cursor.moveToNext()) {
-            val title =
-                cursor.getString(cursor.getColumnIndexOrThrow(MovieDatabaseHelper.COLUMN_TITLE))
-            val releaseDate =
-                cursor.getString(cursor.getColumnIndexOrThrow(MovieDatabaseHelper.COLUMN_RELEASE_DATE))
-            if (releaseDate != null && releaseDate == currentDate) {
-                createNotification(title)
+        val preferences = PreferenceManager.getDefaultSharedPreferences(applicationContext)
+        val databaseHelper = MovieDatabaseHelper.getInstance(applicationContext)
+        val episodeDatabaseHelper = EpisodeReminderDatabaseHelper.getInstance(applicationContext)
+        val today = MovieDatabaseHelper.todayEpochDay()
+
+        // The worker also runs whenever the app is opened, only notify once a day.
+        if (preferences.getLong(LAST_NOTIFIED_DAY_PREFERENCE, -1) < today) {
+            if (preferences.getBoolean(NOTIFICATION_PREFERENCES, true)) {
+                notifyReleases(databaseHelper, today)
             }
+            notifyEpisodes(episodeDatabaseHelper, today)
+            preferences.edit().putLong(LAST_NOTIFIED_DAY_PREFERENCE, today).apply()
         }
-        cursor.close()
-        val episodeDatabaseHelper = EpisodeReminderDatabaseHelper(applicationContext)
-        val dbEpisode = episodeDatabaseHelper.readableDatabase
-        val cursorEpisode = dbEpisode.rawQuery(
-            "SELECT * FROM " + EpisodeReminderDatabaseHelper.TABLE_EPISODE_REMINDERS,
-            null
-        )
-        while (cursorEpisode.moveToNext()) {
-            val tvShowName = cursorEpisode.getString(
-                cursorEpisode.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_TV_SHOW_NAME)
-            )
-            val episodeName = cursorEpisode.getString(
-                cursorEpisode.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_NAME)
-            )
-            val episodeNumber = cursorEpisode.getString(
-                cursorEpisode.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_EPISODE_NUMBER)
-            )
-            val airDate = cursorEpisode.getString(
-                cursorEpisode.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_DATE)
-            )
-            if (airDate != null && airDate == currentDate) {
-                createEpisodeNotification(tvShowName, episodeName, episodeNumber)
-            }
+
+        val nextDay = listOfNotNull(
+            databaseHelper.getNextReleaseDay(today),
+            episodeDatabaseHelper.getNextAirDay(today)
+        ).minOrNull()
+        if (nextDay != null) {
+            scheduleAt(applicationContext, nextDay)
         }
-        cursorEpisode.close()
-        val workRequest: OneTimeWorkRequest = OneTimeWorkRequest.Builder(ReleaseReminderWorker::class.java)
-            .setInitialDelay(24, TimeUnit.HOURS)
-            .build()
-        WorkManager.getInstance(applicationContext).enqueue(workRequest)
         return Result.success()
     }
 
-    private fun createNotification(title: String) {
-        val sharedPreferences = PreferenceManager.getDefaultSharedPreferences(applicationContext)
+    private fun notifyReleases(databaseHelper: MovieDatabaseHelper, today: Long) {
+        val titles = ArrayList<String>()
+        databaseHelper.getShowsReleasedBetween(today, today).use { cursor ->
+            val idIndex = cursor.getColumnIndexOrThrow(MovieDatabaseHelper.COLUMN_MOVIES_ID)
+            val titleIndex = cursor.getColumnIndexOrThrow(MovieDatabaseHelper.COLUMN_TITLE)
+            while (cursor.moveToNext()) {
+                val title = cursor.getString(titleIndex)
+                val builder = buildNotification(
+                    RELEASES_CHANNEL, R.drawable.icon, title,
+                    applicationContext.getString(R.string.movie_released_today, title)
+                )
+                notify(RELEASES_CHANNEL, cursor.getInt(idIndex), builder)
+                titles.add(title)
+            }
+        }
+        notifySummary(
+            RELEASES_CHANNEL, R.drawable.icon, notificationIdMovie,
+            applicationContext.getString(R.string.released_today_count, titles.size), titles
+        )
+    }
 
-        val shouldNotify = sharedPreferences.getBoolean(NOTIFICATION_PREFERENCES, true)
-        if (shouldNotify) {
-            val intent = Intent(applicationContext, MainActivity::class.java)
-            intent.putExtra("tab_index", 3)
-            val pendingIntent = PendingIntent.getActivity(
-                applicationContext,
-                0,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT
-            )
-            val builder = NotificationCompat.Builder(applicationContext, "released_movies")
-                .setSmallIcon(R.drawable.icon)
-                .setContentTitle(title)
-                .setContentText(applicationContext.getString(R.string.movie_released_today, title))
-                .setContentIntent(pendingIntent)
-                .setAutoCancel(true)
-                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
-            val notificationManager = NotificationManagerCompat.from(applicationContext)
-            if (ActivityCompat.checkSelfPermission(
-                    applicationContext,
-                    Manifest.permission.POST_NOTIFICATIONS
-                ) != PackageManager.PERMISSION_GRANTED
-            ) {
-                return
+    private fun notifyEpisodes(databaseHelper: EpisodeReminderDatabaseHelper, today: Long) {
+        val lines = ArrayList<String>()
+        databaseHelper.getEpisodesAiringOn(today).use { cursor ->
+            val idIndex = cursor.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_ID)
+            val showNameIndex =
+                cursor.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_TV_SHOW_NAME)
+            val nameIndex = cursor.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_NAME)
+            val episodeNumberIndex =
+                cursor.getColumnIndexOrThrow(EpisodeReminderDatabaseHelper.COLUMN_EPISODE_NUMBER)
+            while (cursor.moveToNext()) {
+                val tvShowName = cursor.getString(showNameIndex)
+                val text = applicationContext.getString(
+                    R.string.episode_airing_today,
+                    cursor.getString(episodeNumberIndex),
+                    cursor.getString(nameIndex)
+                )
+                val builder = buildNotification(EPISODES_CHANNEL, R.drawable.ic_notification, tvShowName, text)
+                notify(EPISODES_CHANNEL, cursor.getInt(idIndex), builder)
+                lines.add("$tvShowName: $text")
             }
-            notificationManager.notify(notificationIdMovie, builder.build())
         }
+        notifySummary(
+            EPISODES_CHANNEL, R.drawable.ic_notification, notificationIdEpisode,
+            applicationContext.getString(R.string.airing_today_count, lines.size), lines
+        )
     }
 
-    private fun createEpisodeNotification(tvShowName: String, episodeName: String, episodeNumber: String) {
+    /**
+     * Builds a notification that belongs to the group of its channel.
+     */
+    private fun buildNotification(
+        channelId: String,
+        icon: Int,
+        title: String,
+        text: String
+    ): NotificationCompat.Builder {
         val intent = Intent(applicationContext, MainActivity::class.java)
         intent.putExtra("tab_index", 3)
         val pendingIntent = PendingIntent.getActivity(
             applicationContext,
             0,
             intent,
-            PendingIntent.FLAG_UPDATE_CURRENT
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
         )
-        val builder = NotificationCompat.Builder(applicationContext, "episode_reminders")
-            .setSmallIcon(R.drawable.ic_notification)
-            .setContentTitle(tvShowName)
-            .setContentText(
-                applicationContext.getString(
-                    R.string.episode_airing_today,
-                    episodeNumber,
-                    episodeName
-                )
-            )
+        return NotificationCompat.Builder(applicationContext, channelId)
+            .setSmallIcon(icon)
+            .setContentTitle(title)
+            .setContentText(text)
             .setContentIntent(pendingIntent)
             .setAutoCancel(true)
+            .setGroup(channelId)
             .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+    }
+
+    /**
+     * Posts the summary of a group, which lists the notifications in the group
+     * (and replaces them on versions that do not bundle notifications).
+     */
+    private fun notifySummary(channelId: String, icon: Int, id: Int, title: String, lines: List<String>) {
+        if (lines.isEmpty()) return
+        val style = NotificationCompat.InboxStyle().setSummaryText(title)
+        for (line in lines) {
+            style.addLine(line)
+        }
+        val builder = buildNotification(channelId, icon, title, lines.first())
+            .setStyle(style)
+            .setGroupSummary(true)
+        notify(null, id, builder)
+    }
+
+    /**
+     * Posts the notification, the tag keeps the ids of shows and episodes apart from the summaries.
+     */
+    private fun notify(tag: String?, id: Int, builder: NotificationCompat.Builder) {
         val notificationManager = NotificationManagerCompat.from(applicationContext)
         if (ActivityCompat.checkSelfPermission(
                 applicationContext,
@@ -151,12 +175,57 @@ class ReleaseReminderWorker(context: Context, workerParams: WorkerParameters) :
         ) {
             return
         }
-        notificationManager.notify(notificationIdEpisode, builder.build())
+        notificationManager.notify(tag, id, builder.build())
     }
 
     companion object {
         private const val notificationIdMovie = 1
         private const val notificationIdEpisode = 2
         private const val NOTIFICATION_PREFERENCES = "key_get_notified_for_saved"
+        private const val LAST_NOTIFIED_DAY_PREFERENCE = "release_reminder_last_notified_day"
+        private const val LEGACY_WORK_CANCELLED_PREFERENCE = "release_reminder_legacy_work_cancelled"
+        private const val RELEASES_CHANNEL = "released_movies"
+        private const val EPISODES_CHANNEL = "episode_reminders"
+        private const val WORK_NAME = "ReleaseReminderWorker"
+
+        /** The hour of the day at which the reminders of a day are posted. */
+        private const val REMINDER_HOUR = 9L
+
+        /**
+         * Runs the worker now, which notifies about today (if that has not been done yet)
+         * and schedules the next run. Call it whenever the dates that are due may have changed.
+         */
+        @JvmStatic
+        fun schedule(context: Context) {
+            val workManager = WorkManager.getInstance(context)
+            val preferences = PreferenceManager.getDefaultSharedPreferences(context)
+            if (!preferences.getBoolean(LEGACY_WORK_CANCELLED_PREFERENCE, false)) {
+                // Older versions enqueued a periodic request on every launch, and every run
+                // another one-time request. The default tag also matches the unique work,
+                // so they are only cancelled once, before the unique work is enqueued.
+                workManager.cancelAllWorkByTag(ReleaseReminderWorker::class.java.name)
+                preferences.edit().putBoolean(LEGACY_WORK_CANCELLED_PREFERENCE, true).apply()
+            }
+            workManager.enqueueUniqueWork(
+                WORK_NAME,
+                ExistingWorkPolicy.REPLACE,
+                OneTimeWorkRequest.Builder(ReleaseReminderWorker::class.java).build()
+            )
+        }
+
+        /**
+         * Schedules the next run at [REMINDER_HOUR] on the given day (in days since 1970-01-01).
+         * Replacing the work would cancel the current run, so the next run is appended to it.
+         */
+        private fun scheduleAt(context: Context, day: Long) {
+            val now = System.currentTimeMillis()
+            val localNow = now + TimeZone.getDefault().getOffset(now)
+            val runAt = TimeUnit.DAYS.toMillis(day) + TimeUnit.HOURS.toMillis(REMINDER_HOUR)
+            val workRequest = OneTimeWorkRequest.Builder(ReleaseReminderWorker::class.java)
+                .setInitialDelay(maxOf(0L, runAt - localNow), TimeUnit.MILLISECONDS)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, workRequest)
+        }
     }
-}
\ No newline at end of file
+}
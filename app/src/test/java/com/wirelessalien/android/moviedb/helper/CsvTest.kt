@@ -0,0 +1,82 @@
+/*
+ *     This file is part of "ShowCase" formerly Movie DB. <https://github.com/WirelessAlien/MovieDB>
+ *     forked from <https://notabug.org/nvb/MovieDB>
+ *
+ *     Copyright (C) 2024  WirelessAlien <https://github.com/WirelessAlien>
+ *
+ *     ShowCase is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     ShowCase is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with "ShowCase".  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.wirelessalien.android.moviedb.helper
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.io.StringReader
+import java.io.StringWriter
+
+/**
+ * Local unit tests of [CsvWriter] and [CsvReader].
+ */
+class CsvTest {
+
+    private fun write(vararg rows: Array<String?>): String {
+        val output = StringWriter()
+        val writer = CsvWriter(output)
+        for (row in rows) {
+            writer.writeRow(row)
+        }
+        writer.flush()
+        return output.toString()
+    }
+
+    private fun read(csv: String): List<List<String?>> {
+        val rows = ArrayList<List<String?>>()
+        CsvReader(StringReader(csv)).use { reader ->
+            while (true) {
+                rows.add(reader.readRow() ?: break)
+            }
+        }
+        return rows
+    }
+
+    @Test
+    fun writeRow_quotesValuesAndWritesNullAsEmptyField() {
+        assertEquals("\"a\",,\"b\"\"c\"\r\n", write(arrayOf("a", null, "b\"c")))
+    }
+
+    @Test
+    fun readRow_readsQuotedSeparatorsAndLineBreaks() {
+        val rows = read("\"a,b\",\"line\r\nbreak\",\"say \"\"hi\"\"\"\r\nplain,,\"\"\n")
+        assertEquals(listOf("a,b", "line\r\nbreak", "say \"hi\""), rows[0])
+        assertEquals(listOf("plain", null, ""), rows[1])
+        assertEquals(2, rows.size)
+    }
+
+    @Test
+    fun readRow_returnsNullAtEndOfInput() {
+        CsvReader(StringReader("")).use { reader ->
+            assertNull(reader.readRow())
+        }
+    }
+
+    @Test
+    fun writtenRows_areReadBackUnchanged() {
+        val rows = arrayOf(
+            arrayOf<String?>("id", "title", "movie_review"),
+            arrayOf<String?>("1", "Comma, \"Quote\"", "two\nlines"),
+            arrayOf<String?>("2", "", null)
+        )
+        assertEquals(rows.map { it.toList() }, read(write(*rows)))
+    }
+}